@@ -0,0 +1,135 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package bench;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import graph.CsrGraph;
+import graph.Graph;
+import graph.GraphBuilder;
+import graph.algo.PageRank;
+import graph.algo.ShortestPaths;
+import graph.algo.StronglyConnectedComponents;
+
+/**
+ * JMH benchmarks of the graph.algo algorithms, over the same random power-law graphs as GraphBenchmarks.
+ *
+ * <p>Each algorithm runs on a CsrGraph through its id methods, and on a ConcreteVerticesGraph through its label
+ * methods, which also pays for freezing the graph on every call.
+ * <ul><li> distances: distances from a vertex drawn from a fixed pseudo-random sequence
+ *     <li> path: shortest path between two drawn vertices, stopping at the target
+ *     <li> scc: strongly connected components of the whole graph
+ *     <li> pagerank: PageRank of the whole graph with the default settings, in parallel </ul>
+ * As in GraphBenchmarks, every combination of implementation and size runs in JVMs of its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx8g")
+public class AlgoBenchmarks {
+
+    private static final int PROBES = 1 << 10;
+
+    /**
+     * A random power-law graph, frozen or not, and a sequence of vertices to start searches from.
+     */
+    @State(Scope.Benchmark)
+    public static class AlgoState {
+
+        /** Implementation of the graph: CsrGraph (id methods) or ConcreteVerticesGraph (label methods). */
+        @Param({ "CsrGraph", "ConcreteVerticesGraph" })
+        public String implementation;
+
+        /** Number of vertices. */
+        @Param({ "100", "1000", "10000", "100000", "1000000" })
+        public int vertices;
+
+        /** Seed of the random graph and probes. */
+        @Param({ "6005" })
+        public long seed;
+
+        String[] labels;
+        CsrGraph<String> frozen;
+        Graph<String> mutable;
+        private int[] probes;
+        private int next = 0;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            labels = GraphBenchmarks.labels(vertices);
+            int[][] edges = GraphBenchmarks.powerLawEdges(vertices, seed);
+            if (implementation.equals("CsrGraph")) {
+                GraphBuilder<String> builder = Graph.builder();
+                for (String label : labels) {
+                    builder.addVertex(label);
+                }
+                frozen = builder.addEdges(Arrays.asList(edges), edge -> labels[edge[0]], edge -> labels[edge[1]],
+                        edge -> 1).build();
+            } else {
+                mutable = GraphBenchmarks.build(implementation, labels, edges);
+            }
+            Random random = new Random(seed + 1);
+            probes = new int[PROBES];
+            for (int i = 0; i < PROBES; i++) {
+                probes[i] = random.nextInt(vertices);
+            }
+        }
+
+        /**
+         * @return id of the next vertex of the probe sequence
+         */
+        int nextVertex() {
+            return probes[next++ & (PROBES - 1)];
+        }
+    }
+
+    @Benchmark
+    public Object distances(AlgoState state) {
+        int source = state.nextVertex();
+        return state.frozen != null
+                ? ShortestPaths.distances(state.frozen, source)
+                : ShortestPaths.distances(state.mutable, state.labels[source]);
+    }
+
+    @Benchmark
+    public Object path(AlgoState state) {
+        String source = state.labels[state.nextVertex()];
+        String target = state.labels[state.nextVertex()];
+        return state.frozen != null
+                ? ShortestPaths.path(state.frozen, source, target)
+                : ShortestPaths.path(state.mutable, source, target);
+    }
+
+    @Benchmark
+    public Object scc(AlgoState state) {
+        return state.frozen != null
+                ? StronglyConnectedComponents.componentIds(state.frozen)
+                : StronglyConnectedComponents.of(state.mutable);
+    }
+
+    @Benchmark
+    public Object pagerank(AlgoState state) {
+        return state.frozen != null
+                ? PageRank.ranks(state.frozen, PageRank.DEFAULT_DAMPING, PageRank.DEFAULT_TOLERANCE,
+                        PageRank.DEFAULT_MAX_ITERATIONS)
+                : PageRank.of(state.mutable);
+    }
+
+}
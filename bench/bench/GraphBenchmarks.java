@@ -0,0 +1,271 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package bench;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fixtures.Zipf;
+import graph.ConcreteEdgesGraph;
+import graph.ConcreteVerticesGraph;
+import graph.ConcurrentGraph;
+import graph.CsrGraph;
+import graph.Graph;
+
+/**
+ * JMH benchmarks of the Graph operations on every implementation, over random graphs with power-law degrees.
+ *
+ * <p>A graph of n vertices has AVERAGE_DEGREE * n edge draws. The source and the target of each draw are Zipf
+ * distributed ranks mapped through two independent random permutations of the vertices, so both in-degrees and
+ * out-degrees follow a power law and the hubs on either side are unrelated. Repeated draws add to the weight.
+ *
+ * <p>Benchmarks, each called with a vertex or edge drawn from a fixed pseudo-random sequence:
+ * <ul><li> add: add a vertex that is already in the graph
+ *     <li> addRemove: add a new isolated vertex, then remove it
+ *     <li> set: set an existing edge to weight 1, then back to its weight
+ *     <li> removeRestore: remove a vertex that has edges, then set its edges back
+ *     <li> sources, targets: observe the edges of a vertex
+ *     <li> vertices: copy the vertex set </ul>
+ * The observer benchmarks run on every implementation, the mutator benchmarks on every mutable one.
+ *
+ * <p>Every combination of implementation and size runs in JVMs of its own, so the JIT compiles the Graph call
+ * sites for one implementation only, as it would in a program that uses one, and results do not depend on the
+ * order the implementations run in.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx8g")
+public class GraphBenchmarks {
+
+    /** Average number of edge draws per vertex. */
+    static final int AVERAGE_DEGREE = 8;
+
+    /** Skew of the degree distributions. */
+    static final double DEGREE_EXPONENT = 1.0;
+
+    private static final int PROBES = 1 << 16;
+
+    /**
+     * A random power-law graph and sequences of vertices and edges to probe it with.
+     */
+    @State(Scope.Benchmark)
+    public abstract static class GraphState {
+
+        /** Number of vertices. */
+        @Param({ "100", "1000", "10000", "100000", "1000000" })
+        public int vertices;
+
+        /** Seed of the random graph and probes. */
+        @Param({ "6005" })
+        public long seed;
+
+        Graph<String> graph;
+        String[] labels;
+        int[][] edges;
+        private int[] vertexProbes;
+        private int[] edgeProbes;
+        private int next = 0;
+
+        /**
+         * @return name of the implementation to benchmark
+         */
+        abstract String implementation();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            labels = labels(vertices);
+            edges = powerLawEdges(vertices, seed);
+            graph = build(implementation(), labels, edges);
+            Random random = new Random(seed + 1);
+            vertexProbes = new int[PROBES];
+            edgeProbes = new int[PROBES];
+            for (int i = 0; i < PROBES; i++) {
+                vertexProbes[i] = random.nextInt(labels.length);
+                edgeProbes[i] = random.nextInt(edges.length);
+            }
+        }
+
+        /**
+         * @return the next vertex of the probe sequence
+         */
+        String nextVertex() {
+            return labels[vertexProbes[next++ & (PROBES - 1)]];
+        }
+
+        /**
+         * @return a label that is not in the graph, from a sequence of PROBES labels
+         */
+        String nextNewLabel() {
+            return "new" + (next++ & (PROBES - 1));
+        }
+
+        /**
+         * @return the next edge draw of the probe sequence, as {source, target} vertex ids
+         */
+        int[] nextEdge() {
+            return edges[edgeProbes[next++ & (PROBES - 1)]];
+        }
+    }
+
+    /**
+     * A graph of any implementation.
+     */
+    public static class AnyGraph extends GraphState {
+
+        /** Implementation to benchmark. */
+        @Param({ "ConcreteEdgesGraph", "ConcreteVerticesGraph", "ConcurrentGraph", "CsrGraph" })
+        public String implementation;
+
+        @Override
+        String implementation() {
+            return implementation;
+        }
+    }
+
+    /**
+     * A graph of a mutable implementation.
+     */
+    public static class MutableGraph extends GraphState {
+
+        /** Implementation to benchmark. */
+        @Param({ "ConcreteEdgesGraph", "ConcreteVerticesGraph", "ConcurrentGraph" })
+        public String implementation;
+
+        @Override
+        String implementation() {
+            return implementation;
+        }
+    }
+
+    @Benchmark
+    public Map<String, Integer> sources(AnyGraph state) {
+        return state.graph.sources(state.nextVertex());
+    }
+
+    @Benchmark
+    public Map<String, Integer> targets(AnyGraph state) {
+        return state.graph.targets(state.nextVertex());
+    }
+
+    @Benchmark
+    public int vertices(AnyGraph state) {
+        return state.graph.vertices().size();
+    }
+
+    @Benchmark
+    public boolean add(MutableGraph state) {
+        return state.graph.add(state.nextVertex());
+    }
+
+    @Benchmark
+    public void addRemove(MutableGraph state, Blackhole blackhole) {
+        String label = state.nextNewLabel();
+        blackhole.consume(state.graph.add(label));
+        blackhole.consume(state.graph.remove(label));
+    }
+
+    @Benchmark
+    public int set(MutableGraph state) {
+        int[] edge = state.nextEdge();
+        String source = state.labels[edge[0]];
+        String target = state.labels[edge[1]];
+        return state.graph.set(source, target, state.graph.set(source, target, 1));
+    }
+
+    @Benchmark
+    public void removeRestore(MutableGraph state, Blackhole blackhole) {
+        Graph<String> graph = state.graph;
+        String vertex = state.nextVertex();
+        Map<String, Integer> targets = graph.targets(vertex);
+        Map<String, Integer> sources = graph.sources(vertex);
+        blackhole.consume(graph.remove(vertex));
+        blackhole.consume(graph.add(vertex));
+        targets.forEach((target, weight) -> blackhole.consume(graph.set(vertex, target, weight)));
+        sources.forEach((source, weight) -> blackhole.consume(graph.set(source, vertex, weight)));
+    }
+
+    /**
+     * @return the labels "v0".."v(size-1)"
+     */
+    static String[] labels(int size) {
+        String[] labels = new String[size];
+        for (int v = 0; v < size; v++) {
+            labels[v] = "v" + v;
+        }
+        return labels;
+    }
+
+    /**
+     * Draw the edges of a random graph with power-law in-degrees and out-degrees.
+     * @param size number of vertices
+     * @param seed seed of the draws
+     * @return array of {source, target} vertex ids, possibly repeated
+     */
+    static int[][] powerLawEdges(int size, long seed) {
+        Random random = new Random(seed);
+        Zipf zipf = new Zipf(size, DEGREE_EXPONENT);
+        int[] sourceOfRank = permutation(size, random);
+        int[] targetOfRank = permutation(size, random);
+        int[][] edges = new int[AVERAGE_DEGREE * size][];
+        for (int e = 0; e < edges.length; e++) {
+            edges[e] = new int[] { sourceOfRank[zipf.sample(random)], targetOfRank[zipf.sample(random)] };
+        }
+        return edges;
+    }
+
+    /**
+     * @return a uniformly random permutation of 0..size-1
+     */
+    private static int[] permutation(int size, Random random) {
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            int j = random.nextInt(i + 1);
+            permutation[i] = permutation[j];
+            permutation[j] = i;
+        }
+        return permutation;
+    }
+
+    /**
+     * Build a graph of every vertex and edge draw.
+     * @param implementation name of a Graph implementation in package graph
+     * @return a new graph of that implementation
+     * @throws IllegalArgumentException if there is no such implementation
+     */
+    static Graph<String> build(String implementation, String[] labels, int[][] edges) {
+        Graph<String> graph;
+        switch (implementation) {
+        case "ConcreteEdgesGraph": graph = new ConcreteEdgesGraph<>(); break;
+        case "ConcreteVerticesGraph": graph = new ConcreteVerticesGraph<>(); break;
+        case "ConcurrentGraph": graph = new ConcurrentGraph<>(); break;
+        case "CsrGraph": return CsrGraph.freeze(build("ConcreteVerticesGraph", labels, edges));
+        default: throw new IllegalArgumentException("unknown implementation " + implementation);
+        }
+        for (String label : labels) {
+            graph.add(label);
+        }
+        for (int[] edge : edges) {
+            graph.addToWeight(labels[edge[0]], labels[edge[1]], 1);
+        }
+        return graph;
+    }
+
+}
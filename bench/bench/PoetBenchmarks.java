@@ -0,0 +1,152 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fixtures.CorpusGenerator;
+import poet.GraphPoet;
+
+/**
+ * JMH benchmarks of GraphPoet on a synthetic corpus from a CorpusGenerator, with inputs from other streams of the
+ * same generator.
+ *
+ * <p>Benchmarks:
+ * <ul><li> construct, fromMappedCorpus, fromCorpusInParallel: load the corpus, in loads per second; the size of
+ *          the corpus is printed when it is written, to convert to MB/s
+ *     <li> poem: generate one poem from a long input, in input words per second, with bridges found by search,
+ *          through an eager index, or through a cache
+ *     <li> poems: generate a batch of short poems on the common pool, in poems per second </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx8g")
+public class PoetBenchmarks {
+
+    /** Number of distinct words in the synthetic vocabulary. */
+    static final int VOCABULARY_SIZE = 50_000;
+
+    /** Bigram locality of the synthetic corpus, see CorpusGenerator. */
+    static final double LOCALITY = 0.5;
+
+    /** Number of words in the input of poem. */
+    static final int POEM_WORDS = 100_000;
+
+    private static final int BATCH_POEMS = 1_000;
+    private static final int BATCH_POEM_WORDS = 20;
+
+    /**
+     * A synthetic corpus in a temporary file.
+     */
+    @State(Scope.Benchmark)
+    public static class CorpusState {
+
+        /** Number of words in the corpus. */
+        @Param({ "1000000" })
+        public int corpusWords;
+
+        /** Seed of the corpus and inputs. */
+        @Param({ "6005" })
+        public long seed;
+
+        CorpusGenerator generator;
+        File corpus;
+
+        @Setup(Level.Trial)
+        public void writeCorpus() throws IOException {
+            generator = new CorpusGenerator(seed, VOCABULARY_SIZE, 1.0, LOCALITY, CorpusGenerator.DEFAULT_FOLLOWERS);
+            Path path = Files.createTempFile("corpus", ".txt");
+            generator.write(path, corpusWords, 0);
+            corpus = path.toFile();
+            System.out.println("corpus of " + corpusWords + " words, " + corpus.length() + " bytes");
+        }
+
+        @TearDown(Level.Trial)
+        public void deleteCorpus() throws IOException {
+            Files.deleteIfExists(corpus.toPath());
+        }
+    }
+
+    /**
+     * A poet loaded from the synthetic corpus, and inputs to make poems from.
+     */
+    @State(Scope.Benchmark)
+    public static class PoetState {
+
+        /** How the poet finds bridges: search, index (eager) or cache. */
+        @Param({ "search", "index", "cache" })
+        public String bridges;
+
+        GraphPoet poet;
+        String input;
+        List<String> inputs;
+
+        @Setup(Level.Trial)
+        public void loadPoet(CorpusState corpus) throws IOException {
+            poet = GraphPoet.fromMappedCorpus(corpus.corpus);
+            switch (bridges) {
+            case "search": break;
+            case "index": poet.indexBridges(true, 1L << 28); break;
+            case "cache": poet.cacheBridges(1 << 16); break;
+            default: throw new IllegalArgumentException("unknown bridges " + bridges);
+            }
+            input = corpus.generator.text(POEM_WORDS, 1);
+            inputs = new ArrayList<>();
+            for (int i = 0; i < BATCH_POEMS; i++) {
+                inputs.add(corpus.generator.text(BATCH_POEM_WORDS, 2 + i));
+            }
+        }
+    }
+
+    @Benchmark
+    public GraphPoet construct(CorpusState state) throws IOException {
+        return new GraphPoet(state.corpus);
+    }
+
+    @Benchmark
+    public GraphPoet fromMappedCorpus(CorpusState state) throws IOException {
+        return GraphPoet.fromMappedCorpus(state.corpus);
+    }
+
+    @Benchmark
+    public GraphPoet fromCorpusInParallel(CorpusState state) throws IOException {
+        return GraphPoet.fromCorpusInParallel(state.corpus);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POEM_WORDS)
+    public String poem(PoetState state) {
+        return state.poet.poem(state.input);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_POEMS)
+    public List<String> poems(PoetState state) {
+        return state.poet.poems(state.inputs);
+    }
+
+}
@@ -0,0 +1,206 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package fixtures;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Immutable.
+ * A deterministic generator of synthetic corpora for load and scale testing.
+ *
+ * <p>The vocabulary has a fixed number of distinct lower case ASCII words, ranked by frequency; word frequencies
+ * follow a Zipf distribution. Bigram locality makes text look like text rather than a bag of words: every word
+ * has a small fixed set of followers, and with probability {@code locality} the next word is one of the followers
+ * of the current word (the first followers being the most likely) instead of an independent draw. Locality 0 gives
+ * independent words and a graph with edges between almost any pair of frequent words; locality near 1 gives few
+ * distinct bigrams with high weights.
+ *
+ * <p>Words are written to a buffered stream as they are drawn, so a corpus of any size is generated in memory
+ * proportional to the vocabulary. The same parameters and stream number always give the same bytes.
+ */
+public final class CorpusGenerator {
+
+    /** Default number of followers of each word. */
+    public static final int DEFAULT_FOLLOWERS = 8;
+
+    private static final int WORDS_PER_LINE = 12;
+
+    private final long seed;
+    private final double locality;
+    private final Zipf frequencies;
+    private final Zipf followerChoice;
+    private final byte[][] words;
+
+    // Abstraction function:
+    //   Represents the random process described above, with vocabulary words[0..n-1] in rank order, word
+    //   frequencies given by frequencies, and the followers of each word derived from seed
+    // Representation invariant:
+    //   words are distinct, non-empty and made of ASCII letters and digits
+    //   0 <= locality <= 1, frequencies.size() == words.length, followerChoice.size() >= 1
+    // Safety from rep exposure:
+    //   All fields are private final; word bytes are copied into Strings or output streams, never returned
+
+    /**
+     * Create a generator.
+     * @param seed seed of the vocabulary, the followers and every stream of words
+     * @param vocabularySize number of distinct words, positive
+     * @param exponent Zipf exponent of word frequencies, nonnegative; about 1 for natural language
+     * @param locality probability that a word is drawn among the followers of the previous word, in [0, 1]
+     * @param followers number of followers of each word, positive
+     */
+    public CorpusGenerator(long seed, int vocabularySize, double exponent, double locality, int followers) {
+        if (locality < 0 || locality > 1 || followers < 1) {
+            throw new IllegalArgumentException("invalid locality " + locality + " or followers " + followers);
+        }
+        this.seed = seed;
+        this.locality = locality;
+        this.frequencies = new Zipf(vocabularySize, exponent);
+        this.followerChoice = new Zipf(followers, 1.0);
+        this.words = new byte[vocabularySize][];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int rank = 0; rank < vocabularySize; rank++) {
+            // frequent words are short; the base 36 rank suffix keeps every word distinct
+            int letters = 1 + Math.min(10, (int) Math.log(rank + 2) / 2 + random.nextInt(3));
+            StringBuilder word = new StringBuilder();
+            for (int c = 0; c < letters; c++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words[rank] = word.append(Integer.toString(rank, 36)).toString().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * @return number of distinct words in the vocabulary
+     */
+    public int vocabularySize() {
+        return words.length;
+    }
+
+    /**
+     * @param rank rank of a word in the vocabulary
+     * @return the word of that rank
+     */
+    public String word(int rank) {
+        return new String(words[rank], StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Write a corpus file, replacing it if it exists.
+     * @param file file to write
+     * @param wordCount number of words to write
+     * @param stream number of the stream of words; different streams draw different words
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file, long wordCount, long stream) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out, wordCount, stream);
+        }
+    }
+
+    /**
+     * Write words separated by single spaces, with a newline instead every WORDS_PER_LINE words.
+     * @param out stream that receives the ASCII text; it is flushed but not closed
+     * @param wordCount number of words to write
+     * @param stream number of the stream of words; different streams draw different words
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(OutputStream out, long wordCount, long stream) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed ^ (stream * 0x9E3779B97F4A7C15L + 1));
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 1 << 20);
+        int previous = -1;
+        for (long i = 0; i < wordCount; i++) {
+            int rank;
+            if (previous >= 0 && random.nextDouble() < locality) {
+                rank = follower(previous, followerChoice.rank(random.nextDouble()));
+            } else {
+                rank = frequencies.rank(random.nextDouble());
+            }
+            if (i > 0) {
+                buffered.write(i % WORDS_PER_LINE == 0 ? '\n' : ' ');
+            }
+            buffered.write(words[rank]);
+            previous = rank;
+        }
+        buffered.write('\n');
+        buffered.flush();
+    }
+
+    /**
+     * Generate a text in memory, as write() would.
+     * @param wordCount number of words
+     * @param stream number of the stream of words
+     * @return the text
+     */
+    public String text(int wordCount, long stream) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(out, wordCount, stream);
+        } catch (IOException e) {
+            throw new AssertionError("in-memory stream failed", e);
+        }
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Find a follower of a word without storing any: the follower is drawn from the word frequencies by a hash
+     * of the seed, the word and the index of the follower.
+     * @param rank rank of a word
+     * @param index index of the follower, in 0..followers-1
+     * @return rank of the follower
+     */
+    private int follower(int rank, int index) {
+        long hash = seed + rank * 0xBF58476D1CE4E5B9L + index * 0x94D049BB133111EBL;
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        return frequencies.rank((hash >>> 11) * 0x1.0p-53);
+    }
+
+    /**
+     * Write a synthetic corpus file.
+     * <pre>
+     *     java -cp build/classes/java/fixtures fixtures.CorpusGenerator -o corpus.txt [-words 100000000]
+     *         [-vocabulary 100000] [-exponent 1.0] [-locality 0.5] [-followers 8] [-seed 6005] [-stream 0]
+     * </pre>
+     * @param args options as shown above; -o is required
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        long wordCount = 100_000_000;
+        int vocabularySize = 100_000;
+        double exponent = 1.0;
+        double locality = 0.5;
+        int followers = DEFAULT_FOLLOWERS;
+        long seed = 6005;
+        long stream = 0;
+        String output = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "-words": wordCount = Long.parseLong(args[++i]); break;
+            case "-vocabulary": vocabularySize = Integer.parseInt(args[++i]); break;
+            case "-exponent": exponent = Double.parseDouble(args[++i]); break;
+            case "-locality": locality = Double.parseDouble(args[++i]); break;
+            case "-followers": followers = Integer.parseInt(args[++i]); break;
+            case "-seed": seed = Long.parseLong(args[++i]); break;
+            case "-stream": stream = Long.parseLong(args[++i]); break;
+            case "-o": output = args[++i]; break;
+            default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("missing -o file");
+        }
+        new CorpusGenerator(seed, vocabularySize, exponent, locality, followers)
+            .write(Paths.get(output), wordCount, stream);
+    }
+
+}
@@ -0,0 +1,74 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package fixtures;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Immutable.
+ * A Zipf distribution over the ranks 0..n-1: rank r is drawn with probability proportional to 1 / (r + 1)^exponent.
+ * Sampling inverts the cumulative distribution with a binary search, so it takes O(log n) time and n doubles.
+ */
+public final class Zipf {
+
+    private final double[] cumulative;
+
+    // Abstraction function:
+    //   Represents the distribution where rank r has probability cumulative[r] - cumulative[r-1]
+    //   (cumulative[-1] taken as 0)
+    // Representation invariant:
+    //   cumulative is non-decreasing and ends at 1
+    // Safety from rep exposure:
+    //   cumulative is private final and never returned
+
+    /**
+     * Create a Zipf distribution.
+     * @param n number of ranks, positive
+     * @param exponent skew of the distribution, nonnegative; 0 is uniform, around 1 is natural language
+     */
+    public Zipf(int n, double exponent) {
+        if (n < 1 || exponent < 0) {
+            throw new IllegalArgumentException("invalid Zipf parameters " + n + ", " + exponent);
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int r = 0; r < n; r++) {
+            sum += 1 / Math.pow(r + 1, exponent);
+            cumulative[r] = sum;
+        }
+        for (int r = 0; r < n; r++) {
+            cumulative[r] /= sum;
+        }
+        cumulative[n - 1] = 1;
+    }
+
+    /**
+     * @return number of ranks of this distribution
+     */
+    public int size() {
+        return cumulative.length;
+    }
+
+    /**
+     * Draw a rank.
+     * @param random source of randomness
+     * @return a rank in 0..size()-1, drawn from this distribution
+     */
+    public int sample(Random random) {
+        return rank(random.nextDouble());
+    }
+
+    /**
+     * Invert the cumulative distribution.
+     * @param uniform a number in [0, 1)
+     * @return the smallest rank whose cumulative probability is more than uniform
+     */
+    public int rank(double uniform) {
+        int position = Arrays.binarySearch(cumulative, uniform);
+        return position >= 0 ? Math.min(position + 1, cumulative.length - 1)
+                             : Math.min(-position - 1, cumulative.length - 1);
+    }
+
+}
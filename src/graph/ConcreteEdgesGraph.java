@@ -7,6 +7,7 @@
 package graph;
 
 import java.util.*;
+import java.util.function.ObjIntConsumer;
 
 
 
@@ -18,35 +19,74 @@ import java.util.*;
 public class ConcreteEdgesGraph<L> implements Graph<L> {
     
     private final Set<L> vertices = new HashSet<>();
-    private final List<Edge<L>> edges = new ArrayList<>();
+    private final Set<Edge<L>> edges = new LinkedHashSet<>();
+    private final Map<L, Map<L, Edge<L>>> outgoing = new HashMap<>();
+    private final Map<L, Map<L, Edge<L>>> incoming = new HashMap<>();
+    private int operationCount = 0;
     
     // Abstraction function:
     //   Represents a mutable weighted directed graph with labeled vertices
     // Representation invariant:
     //   Edges are not duplicate
+    //   outgoing.get(s).get(t) == incoming.get(t).get(s) == e for every edge e from s to t in edges,
+    //   and the indexes contain no other edges and no empty inner maps
     // Safety from rep exposure:
     //   Fields are declared private final and observers return copies of the mutable Graph
     
-    // Check rep invariant
+    // Check rep invariant around one vertex - O(1), see RepCheck for the checking levels
+    private void checkRep(L vertex) {
+        if (RepCheck.isOn()) {
+            checkVertex(vertex);
+            checkRep();
+        }
+    }
+
+    // Check rep invariant around the edge from source to target - O(1)
+    private void checkRep(L source, L target) {
+        if (RepCheck.isOn()) {
+            Edge<L> edge = findEdge(source, target);
+            Map<L, Edge<L>> edgesToTarget = incoming.get(target);
+            if (edge == null) {
+                RepCheck.check(edgesToTarget == null || !edgesToTarget.containsKey(source),
+                        "Edge indexes are out of sync");
+            }
+            else {
+                RepCheck.check(edgesToTarget != null && edgesToTarget.get(source) == edge && edges.contains(edge),
+                        "Edge indexes are out of sync");
+                RepCheck.check(vertices.contains(source) && vertices.contains(target), "Edge to a missing vertex");
+            }
+            checkVertex(source);
+            checkVertex(target);
+            checkRep();
+        }
+    }
+
+    // Check the part of the rep invariant about one vertex - O(1)
+    private void checkVertex(L vertex) {
+        RepCheck.check(!vertices.contains(null), "Some vertex is null");
+        if (!vertices.contains(vertex)) {
+            RepCheck.check(!outgoing.containsKey(vertex) && !incoming.containsKey(vertex),
+                    "Edge indexes refer to a missing vertex");
+        }
+    }
+
+    // Check rep invariant for the whole graph when a full check is due - O(n)
     private void checkRep() {
-        assert(this.isEdgeNotDuplicate()) : "Edges are duplicate";
-        assert(this.isVerticesNotNull()) : "Some vertex is null";
+        if (RepCheck.isFullCheckDue(++operationCount)) {
+            RepCheck.check(this.isEdgeNotDuplicate(), "Edges are duplicate");
+            RepCheck.check(this.isVerticesNotNull(), "Some vertex is null");
+            RepCheck.check(this.areIndexesInSync(), "Edge indexes are out of sync");
+        }
     }
 
     /**
-     * Check that edges are not duplicate
-     * Using nested loops - O(n^2).
+     * Check that edges are not duplicate: every edge must be the one indexed for its source and target - O(n).
      * @return true if edges are not duplicate
      */
-     private boolean isEdgeNotDuplicate() {
-        if (edges.size() > 1) {
-            for (int i=0; i<edges.size(); i++) {
-                for (int j=0; j<edges.size(); j++) {
-                    if (i != j && edges.get(i).getSource() == edges.get(j).getSource() &&
-                            edges.get(i).getTarget() == edges.get(j).getTarget()) {
-                        return false;
-                    }
-                }
+    private boolean isEdgeNotDuplicate() {
+        for (Edge<L> edge : edges) {
+            if (findEdge(edge.getSource(), edge.getTarget()) != edge) {
+                return false;
             }
         }
         return true;
@@ -62,80 +102,130 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
         }
         return true;
     }
+
+    /**
+     * Check that the outgoing and incoming indexes hold exactly the edges in the list of edges
+     * @return true if both indexes agree with the list of edges
+     */
+    private boolean areIndexesInSync() {
+        int outgoingCount = 0;
+        for (Map<L, Edge<L>> edgesFromSource : outgoing.values()) {
+            if (edgesFromSource.isEmpty()) { return false; }
+            outgoingCount += edgesFromSource.size();
+        }
+        int incomingCount = 0;
+        for (Map<L, Edge<L>> edgesToTarget : incoming.values()) {
+            if (edgesToTarget.isEmpty()) { return false; }
+            incomingCount += edgesToTarget.size();
+        }
+        if (outgoingCount != edges.size() || incomingCount != edges.size()) {
+            return false;
+        }
+        for (Edge<L> edge : edges) {
+            Map<L, Edge<L>> edgesToTarget = incoming.get(edge.getTarget());
+            if (edgesToTarget == null || edgesToTarget.get(edge.getSource()) != edge
+                    || !vertices.contains(edge.getSource()) || !vertices.contains(edge.getTarget())) {
+                return false;
+            }
+        }
+        return true;
+    }
     
     @Override
     public boolean add(L vertex) {
-        boolean result = false;
-        if (!vertices.contains(vertex)) {
-            vertices.add(vertex);
-            result = true;
-        }
-        checkRep();
+        boolean result = vertices.add(vertex);
+        checkRep(vertex);
         return result;
     }
     
     @Override
     public int set(L source, L target, int weight) {
-        if (weight == 0) {
-            if (isEdgeInGraph(source, target)) {
-                Edge<L> edgeToSet = findEdge(source, target);
-                int result = edgeToSet.getWeight();
-                edges.remove(edgeToSet);
-                checkRep();
-                return result;
-            }
-            else {
-                checkRep();
-                return 0;
-            }
+        Edge<L> edgeToSet = findEdge(source, target);
+        int result = edgeToSet == null ? 0 : edgeToSet.getWeight();
+        replaceEdge(edgeToSet, source, target, weight);
+        checkRep(source, target);
+        return result;
+    }
+
+    @Override
+    public int addToWeight(L source, L target, int delta) {
+        if (delta <= 0) {
+            return Graph.super.addToWeight(source, target, delta);
         }
-        else {
-            if (isEdgeInGraph(source, target)) {
-                Edge<L> edgeToSet = findEdge(source, target);
-                int result = edgeToSet.getWeight();
-                edges.remove(edgeToSet);
-                edges.add(new Edge(source, target, weight));
-                checkRep();
-                return result;
-            }
-            else {
-                add(source);
-                add(target);
-                edges.add(new Edge(source, target, weight));
-                checkRep();
-                return 0;
-            }
+        Edge<L> edgeToAddTo = findEdge(source, target);
+        int previous = edgeToAddTo == null ? 0 : edgeToAddTo.getWeight();
+        if (previous > Integer.MAX_VALUE - delta) {
+            throw new IllegalArgumentException("weight of edge " + source + " -> " + target + " overflows");
         }
+        int result = previous + delta;
+        replaceEdge(edgeToAddTo, source, target, result);
+        checkRep(source, target);
+        return result;
     }
 
     /**
-     * Check if edge is in list of edges
-     * @param source source vertex
-     * @param target target vertex
-     * @return true if edge is in list of edges, false otherwise
+     * Replace the edge from source to target, if any, with an edge of the given weight.
+     * @param edge the edge from source to target found by findEdge(), or null if there is none
+     * @param source source of edge
+     * @param target target of edge
+     * @param weight weight of the new edge, or zero to only remove the old one
      */
-    private boolean isEdgeInGraph(L source, L target) {
-        for (Edge<L> edge : edges) {
-            if (edge.getSource().equals(source) && edge.getTarget().equals(target)){
-                return true;
-            }
+    private void replaceEdge(Edge<L> edge, L source, L target, int weight) {
+        if (edge != null) {
+            removeEdge(edge);
+        }
+        if (weight != 0) {
+            vertices.add(source);
+            vertices.add(target);
+            addEdge(new Edge<>(source, target, weight));
         }
-        return false;
     }
 
     /**
-     * Find an edge in list of edges given source and target vertices
+     * Find an edge in list of edges given source and target vertices.
+     * Looks the pair up in the outgoing index - O(1).
      * @param source source of edge
      * @param target target of edge
-     * @return edge if it's in list of edges, empty edge if it isn't
+     * @return edge if it's in list of edges, null if it isn't
      */
     private Edge<L> findEdge(L source, L target) {
-        for (Edge<L> edge : edges) {
-            if (edge.getSource().equals(source) && edge.getTarget().equals(target)) {
-                return edge;
-            }
+        Map<L, Edge<L>> edgesFromSource = outgoing.get(source);
+        return edgesFromSource == null ? null : edgesFromSource.get(target);
+    }
+
+    /**
+     * Add an edge to the list of edges and to both indexes.
+     * There must be no edge with the same source and target in the graph.
+     * @param edge edge to add
+     */
+    private void addEdge(Edge<L> edge) {
+        edges.add(edge);
+        outgoing.computeIfAbsent(edge.getSource(), source -> new HashMap<>()).put(edge.getTarget(), edge);
+        incoming.computeIfAbsent(edge.getTarget(), target -> new HashMap<>()).put(edge.getSource(), edge);
+    }
+
+    /**
+     * Remove an edge from the list of edges and from both indexes.
+     * @param edge edge in the graph to remove
+     */
+    private void removeEdge(Edge<L> edge) {
+        edges.remove(edge);
+        removeFromIndex(outgoing, edge.getSource(), edge.getTarget());
+        removeFromIndex(incoming, edge.getTarget(), edge.getSource());
+    }
+
+    /**
+     * Remove an entry from an edge index, dropping the inner map once it becomes empty.
+     * @param index outgoing or incoming index
+     * @param key vertex the inner map belongs to
+     * @param other vertex on the other end of the edge
+     */
+    private static <L> void removeFromIndex(Map<L, Map<L, Edge<L>>> index, L key, L other) {
+        Map<L, Edge<L>> inner = index.get(key);
+        inner.remove(other);
+        if (inner.isEmpty()) {
+            index.remove(key);
         }
-        return new Edge("", "", 0);
     }
 
     @Override
@@ -145,42 +235,36 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
             vertices.remove(vertex);
             List<Edge<L>> edgesForRemove = findEdgesBySource(vertex);
             edgesForRemove.addAll(findEdgesByTarget(vertex));
-            edges.removeAll(edgesForRemove);
+            for (Edge<L> edge : edgesForRemove) {
+                if (edges.contains(edge)) {
+                    removeEdge(edge);
+                }
+            }
             result = true;
         }
-        checkRep();
+        checkRep(vertex);
         return result;
     }
 
 
     /**
-     * Search edges with given source in list of edges
+     * Search edges with given source in the outgoing index
      * @param source source of edges
      * @return list of found edges
      */
     private List<Edge<L>> findEdgesBySource(L source) {
-        List<Edge<L>> result = new ArrayList<>();
-        for (Edge<L> edge : edges) {
-            if (edge.getSource().equals(source)) {
-                result.add(edge);
-            }
-        }
-        return result;
+        Map<L, Edge<L>> edgesFromSource = outgoing.getOrDefault(source, Collections.emptyMap());
+        return new ArrayList<>(edgesFromSource.values());
     }
 
     /**
-     * Search edges with give target in list of edges
+     * Search edges with give target in the incoming index
      * @param target target of edges
      * @return list of found edges
      */
     private List<Edge<L>> findEdgesByTarget(L target) {
-        List<Edge<L>> result = new ArrayList<>();
-        for (Edge<L> edge : edges) {
-            if (edge.getTarget().equals(target)) {
-                result.add(edge);
-            }
-        }
-        return result;
+        Map<L, Edge<L>> edgesToTarget = incoming.getOrDefault(target, Collections.emptyMap());
+        return new ArrayList<>(edgesToTarget.values());
     }
     
     @Override
@@ -192,27 +276,68 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
     @Override
     public Map<L, Integer> sources(L target) {
         Map<L, Integer> result = new HashMap<>();
-        for (Edge<L> edge : edges) {
-            if (edge.getTarget().equals(target)) {
-                result.put(edge.getSource(), edge.getWeight());
-            }
+        for (Edge<L> edge : findEdgesByTarget(target)) {
+            result.put(edge.getSource(), edge.getWeight());
         }
-        checkRep();
+        checkRep(target);
         return result;
     }
     
     @Override
     public Map<L, Integer> targets(L source) {
         Map<L, Integer> result = new HashMap<>();
-        for (Edge<L> edge : edges) {
-            if (edge.getSource().equals(source)) {
-                result.put(edge.getTarget(), edge.getWeight());
-            }
+        for (Edge<L> edge : findEdgesBySource(source)) {
+            result.put(edge.getTarget(), edge.getWeight());
         }
-        checkRep();
+        checkRep(source);
         return result;
     }
     
+    @Override
+    public int weight(L source, L target) {
+        Edge<L> edge = findEdge(source, target);
+        checkRep(source, target);
+        return edge == null ? 0 : edge.getWeight();
+    }
+
+    @Override
+    public void forEachTarget(L source, ObjIntConsumer<? super L> action) {
+        for (Edge<L> edge : outgoing.getOrDefault(source, Collections.emptyMap()).values()) {
+            action.accept(edge.getTarget(), edge.getWeight());
+        }
+        checkRep(source);
+    }
+
+    @Override
+    public void forEachSource(L target, ObjIntConsumer<? super L> action) {
+        for (Edge<L> edge : incoming.getOrDefault(target, Collections.emptyMap()).values()) {
+            action.accept(edge.getSource(), edge.getWeight());
+        }
+        checkRep(target);
+    }
+
+    @Override
+    public boolean forEachTargetWhile(L source, ObjIntPredicate<? super L> action) {
+        for (Edge<L> edge : outgoing.getOrDefault(source, Collections.emptyMap()).values()) {
+            if (!action.test(edge.getTarget(), edge.getWeight())) {
+                return false;
+            }
+        }
+        checkRep(source);
+        return true;
+    }
+
+    @Override
+    public boolean forEachSourceWhile(L target, ObjIntPredicate<? super L> action) {
+        for (Edge<L> edge : incoming.getOrDefault(target, Collections.emptyMap()).values()) {
+            if (!action.test(edge.getSource(), edge.getWeight())) {
+                return false;
+            }
+        }
+        checkRep(target);
+        return true;
+    }
+    
     @Override
     public String toString() {
         return "Graph contains " + vertices.size() + " vertices and " + edges.size() + " edges";
@@ -257,11 +382,13 @@ class Edge<L> {
         checkRep();
     }
 
-    // Check rep invariant
+    // Check rep invariant, free when checking is off (see RepCheck)
     private void checkRep() {
-        assert (weight > 0) : "Invalid value of weight";
-        assert (source != null) : "sourse not exists";
-        assert (target != null) : "target not exists";
+        if (RepCheck.isOn()) {
+            RepCheck.check(weight > 0, "Invalid value of weight");
+            RepCheck.check(source != null, "sourse not exists");
+            RepCheck.check(target != null, "target not exists");
+        }
     }
 
 
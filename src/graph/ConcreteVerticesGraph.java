@@ -4,7 +4,7 @@
 package graph;
 
 import java.util.*;
-import java.util.zip.CheckedInputStream;
+import java.util.function.ObjIntConsumer;
 
 /**
  * An implementation of Graph.
@@ -13,45 +13,143 @@ import java.util.zip.CheckedInputStream;
  */
 public class ConcreteVerticesGraph<L> implements Graph<L> {
     
+    private final LabelDictionary<L> dictionary = new LabelDictionary<>();
     private final List<Vertex<L>> vertices = new ArrayList<>();
+    private int operationCount = 0;
     
     // Abstraction function:
-    //   Represents a mutable weighted directed graph with labeled vertices
+    //   Represents a mutable weighted directed graph with labeled vertices, where the vertex with id v is
+    //   vertices.get(v) and is labeled dictionary.label(v), and edges are keyed by the ids of their ends
     // Representation invariant:
-    //   Vertices are not duplicate
+    //   vertices.get(v) is non-null iff v is an id of dictionary, and then its id is v and its name is the label of v
+    //   v has target t with weight w iff t has source v with weight w
     // Safety from rep exposure:
     //   Fields are private final and observers return either immutable types or copies of mutable types.
+    // Labels are hashed once per call, to find their ids; adjacency, weights and traversal work on ids, and ids
+    // are turned back into labels only when an observer returns them.
 
-    // Check rep invariant
+    // Check rep invariant around one vertex - O(1), see RepCheck for the checking levels
+    private void checkRep(L vertex) {
+        if (RepCheck.isOn()) {
+            checkVertex(vertex);
+            checkRep();
+        }
+    }
+
+    // Check rep invariant around the edge from source to target - O(1)
+    private void checkRep(L source, L target) {
+        if (RepCheck.isOn()) {
+            Vertex<L> sourceVertex = vertexOf(source);
+            Vertex<L> targetVertex = vertexOf(target);
+            boolean hasTarget = sourceVertex != null && targetVertex != null
+                    && sourceVertex.isVertexInTargets(targetVertex.getId());
+            boolean hasSource = sourceVertex != null && targetVertex != null
+                    && targetVertex.isVertexInSources(sourceVertex.getId());
+            RepCheck.check(hasTarget == hasSource, "Targets and sources disagree");
+            if (hasTarget) {
+                RepCheck.check(sourceVertex.getWeight(targetVertex.getId())
+                        == targetVertex.getSourceWeight(sourceVertex.getId()), "Targets and sources disagree");
+            }
+            checkVertex(source);
+            checkVertex(target);
+            checkRep();
+        }
+    }
+
+    // Check that a vertex, if present, is stored under its own id and name - O(1)
+    private void checkVertex(L vertex) {
+        int id = dictionary.id(vertex);
+        RepCheck.check(id < 0 || (vertices.get(id).getId() == id && vertices.get(id).getName().equals(vertex)),
+                "Vertices are duplicate");
+    }
+
+    // Check rep invariant for the whole graph when a full check is due - O(n)
     private void checkRep() {
-        assert(this.isVerticesNotDuplicate()) : "Vertices are duplicate";
+        if (RepCheck.isFullCheckDue(++operationCount)) {
+            RepCheck.check(this.isVerticesNotDuplicate(), "Vertices are duplicate");
+            RepCheck.check(this.areEdgesSymmetric(), "Targets and sources disagree");
+            for (Vertex<L> vertex : vertices) {
+                RepCheck.check(vertex == null || vertex.areWeightsPositive(), "Invalid weight found");
+            }
+        }
     }
 
     /**
-     * Verify that there are no duplicated vertices in this list.
+     * Verify that every vertex is stored under its own id, which is the id of its name in the dictionary.
       * @return true if there are no duplicates, false otherwise.
      */
     private boolean isVerticesNotDuplicate() {
-        if (vertices.size() > 1) {
-            for (int i = 0; i < vertices.size(); i++) {
-                for (int j=0; j < vertices.size(); j++) {
-                    if (i != j && vertices.get(i).getName().equals(vertices.get(j).getName())) {
-                        return false;
-                    }
+        int count = 0;
+        for (int id = 0; id < vertices.size(); id++) {
+            Vertex<L> vertex = vertices.get(id);
+            if (vertex != null) {
+                if (vertex.getId() != id || dictionary.id(vertex.getName()) != id) {
+                    return false;
                 }
+                count++;
             }
         }
-        return true;
+        return count == dictionary.size();
+    }
+
+    /**
+     * Verify that every outgoing edge is recorded as an incoming edge of its target and vice versa.
+     * @return true if targets and sources of all vertices agree, false otherwise.
+     */
+    private boolean areEdgesSymmetric() {
+        boolean[] result = { true };
+        for (Vertex<L> vertex : vertices) {
+            if (vertex == null) {
+                continue;
+            }
+            vertex.forEachTarget((target, weight) -> {
+                Vertex<L> targetVertex = target < vertices.size() ? vertices.get(target) : null;
+                result[0] &= targetVertex != null && targetVertex.getSourceWeight(vertex.getId()) == weight;
+            });
+            vertex.forEachSource((source, weight) -> {
+                Vertex<L> sourceVertex = source < vertices.size() ? vertices.get(source) : null;
+                result[0] &= sourceVertex != null && sourceVertex.isVertexInTargets(vertex.getId());
+            });
+        }
+        return result[0];
+    }
+
+    /**
+     * Find the vertex with a label.
+     * @param label a label
+     * @return the vertex labeled label, or null if there is none
+     */
+    private Vertex<L> vertexOf(L label) {
+        int id = dictionary.id(label);
+        return id < 0 ? null : vertices.get(id);
+    }
+
+    /**
+     * Find the vertex with a label, adding it if there is none.
+     * @param label a label
+     * @return the vertex labeled label
+     */
+    private Vertex<L> internVertex(L label) {
+        int id = dictionary.intern(label);
+        if (id == vertices.size()) {
+            vertices.add(null);
+        }
+        Vertex<L> vertex = vertices.get(id);
+        if (vertex == null) {
+            vertex = new Vertex<>(label, id);
+            vertices.set(id, vertex);
+        }
+        return vertex;
     }
     
     @Override
     public boolean add(L vertex) {
         boolean result = false;
         if (!hasVertex(vertex)) {
-            vertices.add(new Vertex(vertex));
+            internVertex(vertex);
             result = true;
         }
-        checkRep();
+        checkRep(vertex);
         return result;
     }
     
@@ -59,59 +157,71 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
     public int set(L source, L target, int weight) {
         int result = 0;
         if (weight > 0) {
-            if (!hasVertex(source)) vertices.add(new Vertex(source));
-            if (!hasVertex(target)) vertices.add(new Vertex(target));
-            for (Vertex<L> testVertex : vertices) {
-                if (testVertex.getName().equals(source)) {
-                    if (testVertex.isVertexInTargets(target)) {
-                        result = testVertex.getWeight(target);
-                    }
-                    testVertex.setTarget(target, weight);
-                    checkRep();
-                    return result;
-                }
-            }
+            Vertex<L> sourceVertex = internVertex(source);
+            Vertex<L> targetVertex = internVertex(target);
+            result = sourceVertex.getWeight(targetVertex.getId());
+            sourceVertex.setTarget(targetVertex.getId(), weight);
+            targetVertex.setSource(sourceVertex.getId(), weight);
         } else if (weight == 0) {
-            if(hasVertex(source)) {
-                for (Vertex<L> testVertex : vertices) {
-                    if (testVertex.getName().equals(source) && testVertex.getTargets().contains(target)) {
-                        result = testVertex.getWeight(target);
-                        testVertex.setTarget(target, weight);
-                        checkRep();
-                        return result;
-                    }
-                }
+            Vertex<L> sourceVertex = vertexOf(source);
+            Vertex<L> targetVertex = vertexOf(target);
+            if (sourceVertex != null && targetVertex != null && sourceVertex.isVertexInTargets(targetVertex.getId())) {
+                result = sourceVertex.getWeight(targetVertex.getId());
+                sourceVertex.setTarget(targetVertex.getId(), weight);
+                targetVertex.setSource(sourceVertex.getId(), weight);
             }
         }
-        return 0;
+        checkRep(source, target);
+        return result;
     }
     
     @Override
-    public boolean remove(L vertex) {
-        boolean result = false;
-        int remIndex = 0;
-        if (hasVertex(vertex)) {
-            for (Vertex<L> testVertex : vertices) {
-                if (testVertex.getName().equals(vertex)) {
-                    remIndex = vertices.indexOf(testVertex);
-                }
-                if (testVertex.getTargets().contains(vertex)) {
-                    testVertex.setTarget(vertex, 0);
-                }
-            }
-            vertices.remove(remIndex);
-            result = true;
+    public int addToWeight(L source, L target, int delta) {
+        if (delta <= 0) {
+            return Graph.super.addToWeight(source, target, delta);
         }
-        checkRep();
+        Vertex<L> sourceVertex = internVertex(source);
+        Vertex<L> targetVertex = internVertex(target);
+        int result;
+        try {
+            result = sourceVertex.addToTarget(targetVertex.getId(), delta);
+        } catch (ArithmeticException e) {
+            // only an existing edge can overflow, so both vertices were already in the graph
+            throw new IllegalArgumentException("weight of edge " + source + " -> " + target + " overflows", e);
+        }
+        targetVertex.setSource(sourceVertex.getId(), result);
+        checkRep(source, target);
         return result;
     }
     
     @Override
-    public Set<L> vertices() {
-        Set<L> graphVertices = new HashSet<>();
-        for (Vertex<L> testVertex : vertices) {
-            graphVertices.add(testVertex.getName());
+    public boolean remove(L vertex) {
+        int id = dictionary.id(vertex);
+        if (id < 0) {
+            checkRep(vertex);
+            return false;
         }
+        Vertex<L> removed = vertices.set(id, null);
+        removed.forEachTarget((target, weight) -> {
+            Vertex<L> targetVertex = vertices.get(target);
+            if (targetVertex != null) {
+                targetVertex.setSource(id, 0);
+            }
+        });
+        removed.forEachSource((source, weight) -> {
+            Vertex<L> sourceVertex = vertices.get(source);
+            if (sourceVertex != null) {
+                sourceVertex.setTarget(id, 0);
+            }
+        });
+        dictionary.release(id);
+        checkRep(vertex);
+        return true;
+    }
+    
+    @Override
+    public Set<L> vertices() {
+        Set<L> graphVertices = dictionary.labels();
         checkRep();
         return graphVertices;
     }
@@ -119,48 +229,78 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
     @Override
     public Map<L, Integer> sources(L target) {
         Map<L, Integer> result = new HashMap<>();
-        for (Vertex<L> testVertex : vertices) {
-            if (testVertex.getTargets().contains(target)) {
-                result.put(testVertex.getName(), testVertex.getWeight(target));
-            }
-        }
-        checkRep();
+        forEachSource(target, result::put);
         return result;
     }
     
     @Override
     public Map<L, Integer> targets(L source) {
         Map<L, Integer> result = new HashMap<>();
-        for (Vertex<L> vertex : vertices) {
-            if (vertex.getName().equals(source)) {
-                result = vertex.getTargetsMap();
-            }
-        }
-        checkRep();
+        forEachTarget(source, result::put);
+        return result;
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        Vertex<L> vertex = vertexOf(source);
+        int targetId = dictionary.id(target);
+        int result = vertex == null || targetId < 0 ? 0 : vertex.getWeight(targetId);
+        checkRep(source);
         return result;
     }
 
+    @Override
+    public void forEachTarget(L source, ObjIntConsumer<? super L> action) {
+        Vertex<L> vertex = vertexOf(source);
+        if (vertex != null) {
+            vertex.forEachTarget((target, weight) -> action.accept(dictionary.label(target), weight));
+        }
+        checkRep(source);
+    }
+
+    @Override
+    public void forEachSource(L target, ObjIntConsumer<? super L> action) {
+        Vertex<L> vertex = vertexOf(target);
+        if (vertex != null) {
+            vertex.forEachSource((source, weight) -> action.accept(dictionary.label(source), weight));
+        }
+        checkRep(target);
+    }
+
+    @Override
+    public boolean forEachTargetWhile(L source, ObjIntPredicate<? super L> action) {
+        Vertex<L> vertex = vertexOf(source);
+        boolean complete = vertex == null
+                || vertex.forEachTargetWhile((target, weight) -> action.test(dictionary.label(target), weight));
+        checkRep(source);
+        return complete;
+    }
+
+    @Override
+    public boolean forEachSourceWhile(L target, ObjIntPredicate<? super L> action) {
+        Vertex<L> vertex = vertexOf(target);
+        boolean complete = vertex == null
+                || vertex.forEachSourceWhile((source, weight) -> action.test(dictionary.label(source), weight));
+        checkRep(target);
+        return complete;
+    }
+
     /**
-     * Helper function to verify if vertices has a given vertex in its list
+     * Helper function to verify if vertices has a given vertex in its map
      * @param vertex a label
-     * @return true if this lists contains a vertex with the given label name, false otherwise.
+     * @return true if this graph contains a vertex with the given label name, false otherwise.
      */
     private boolean hasVertex(L vertex) {
-        for (Vertex<L> testVertex : vertices) {
-            if (testVertex.getName().equals(vertex)) {
-                return true;
-            }
-        }
-        return false;
+        return dictionary.id(vertex) >= 0;
     }
 
     @Override
     public String toString() {
         int numEdges = 0;
         for (Vertex<L> vertex : vertices) {
-            numEdges += vertex.getTargets().size();
+            numEdges += vertex == null ? 0 : vertex.getTargetCount();
         }
-        return "Graph contains " + vertices.size() + " vertices and " + numEdges + " edges";
+        return "Graph contains " + dictionary.size() + " vertices and " + numEdges + " edges";
     }
     
 }
@@ -168,77 +308,95 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
 /**
  * Mutable.
  * This class is internal to the rep of ConcreteVerticesGraph.
- * Each Vertex is an object in the adjacency list representation of graph. The Vertex has a name and a map of targeted
- * vertices as keys and the weight of each outgoing edge as values.
- * Targets are not duplicate by default. Keys in map form a set.
+ * Each Vertex is an object in the adjacency list representation of graph. The Vertex has a name, an id, and a map of
+ * the ids of targeted vertices as keys and the weight of each outgoing edge as values, plus the reverse map of the
+ * ids of source vertices and the weight of each incoming edge so that sources can be found without scanning the graph.
+ * Targets and sources are not duplicate by default. Keys in maps form a set.
  */
 class Vertex<L> {
     
-    private L nodeName;
-    private Map<L, Integer> targets;
+    private final L nodeName;
+    private final int id;
+    private final IntIntMap targets;
+    private final IntIntMap sources;
     
     // Abstraction function:
-    //   Represents a vertex in the adjacency list of Graph with its outgoing edges and their respective weights.
+    //   Represents a vertex in the adjacency list of Graph with its outgoing and incoming edges and their
+    //   respective weights, the other end of each edge given by its vertex id.
     // Representation invariant:
-    //   Targets are not duplicate by default and weights are positive.
+    //   Targets and sources are not duplicate by default and weights are positive; id is nonnegative.
+    //   Both maps are primitive int maps, so reading a weight never boxes it or hashes a label.
     // Safety from rep exposure:
-    //   Fields are private and observers return copies of the mutable fields
+    //   Fields are private and observers return immutable values
 
 
     /**
-     * Create a new Vertex object with given name and initializes Vertex targets map.
+     * Create a new Vertex object with given name and id and initializes Vertex targets and sources maps.
      * @param nodeName label for new Vertex
+     * @param id id of new Vertex in its graph, nonnegative
      */
-    public Vertex(L nodeName) {
+    public Vertex(L nodeName, int id) {
         this.nodeName = nodeName;
-        this.targets = new HashMap<>();
+        this.id = id;
+        this.targets = new IntIntMap();
+        this.sources = new IntIntMap();
     }
 
-    // Check rep invariant
-    private void checkRep() {
-        assert (this.areWeightsPositive()) : "Invalid weight found";
+    // Check rep invariant for the edges to and from neighbour - O(1), see RepCheck for the checking levels
+    private void checkRep(int neighbour) {
+        if (RepCheck.isOn()) {
+            RepCheck.check(targets.get(neighbour) >= 0, "Invalid weight found");
+            RepCheck.check(sources.get(neighbour) >= 0, "Invalid weight found");
+        }
     }
 
     /**
-     * Verify that all weights are positive
+     * Verify that all weights are positive - O(degree)
      * @return true if all weights are positive, false otherwise.
      */
-    private boolean areWeightsPositive() {
-        for (L testString : targets.keySet()) {
-            if (targets.get(testString) < 0) {
-                return false;
-            }
-        }
-        return true;
+    boolean areWeightsPositive() {
+        boolean[] result = { true };
+        targets.forEach((target, weight) -> result[0] &= weight > 0);
+        sources.forEach((source, weight) -> result[0] &= weight > 0);
+        return result[0];
     }
 
     /**
      * If weight is positive adds or changes the edge from Vertex to target. Otherwise, it deletes the target.
-     * @param target target name.
+     * @param target target id.
      * @param weight weight of edge from Vertex to target
      */
-    public void setTarget(L target, int weight) {
-        if (isVertexInTargets(target)) {
-            if (weight == 0) {
-                targets.remove(target);
-                checkRep();
-            }
-            else {
-                targets.replace(target, weight);
-                checkRep();
-            }
-        }
-        else {
-            if (weight == 0) {
-                return;
-            }
-            else {
-                targets.put(target, weight);
-                checkRep();
-            }
+    public void setTarget(int target, int weight) {
+        if (weight != 0 || isVertexInTargets(target)) {
+            targets.put(target, weight);
+            checkRep(target);
         }
     }
 
+    /**
+     * Add to the weight of the edge from Vertex to target, adding the target if it is new.
+     * @param target target id.
+     * @param delta positive amount to add to the weight of the edge from Vertex to target
+     * @return the new weight of the edge
+     * @throws ArithmeticException if the new weight would be more than Integer.MAX_VALUE, in which case the
+     *         edge is unchanged
+     */
+    public int addToTarget(int target, int delta) {
+        int weight = targets.add(target, delta);
+        checkRep(target);
+        return weight;
+    }
+
+    /**
+     * If weight is positive adds or changes the edge from source to Vertex. Otherwise, it deletes the source.
+     * @param source source id.
+     * @param weight weight of edge from source to Vertex
+     */
+    public void setSource(int source, int weight) {
+        sources.put(source, weight);
+        checkRep(source);
+    }
+
     /**
      * Get name of Vertex
      * @return label of Vertex
@@ -248,44 +406,98 @@ class Vertex<L> {
     }
 
     /**
-     * Get all targeted vertices from Vertex.
-     * @return the set of targets out from Vertex.
+     * Get id of Vertex
+     * @return id of Vertex in its graph
      */
-    public Set<L> getTargets() {
-        return new HashSet<>(targets.keySet());
+    public int getId() {
+        return id;
     }
 
     /**
-     * Get a all targeted vertices from Vertex and the weight of each edge.
-     * @return a map where the keys are the set of labels of vertices targeted by Vertex and the value for each key
-     * is the (nonzero) weight of each edge from Vertex to targets.
+     * Visit all targeted vertices from Vertex and the weight of each edge, without boxing.
+     * @param action called with the id of each target and the (nonzero) weight of the edge to it
      */
-    public Map<L, Integer> getTargetsMap() {
-        return new HashMap<>(targets);
+    public void forEachTarget(IntIntConsumer action) {
+        targets.forEach(action);
+    }
+
+    /**
+     * Visit targeted vertices from Vertex and the weight of each edge, without boxing, until action returns false.
+     * @param action called with the id of each target visited and the (nonzero) weight of the edge to it
+     * @return true if every target was visited
+     */
+    public boolean forEachTargetWhile(IntIntPredicate action) {
+        return targets.forEachWhile(action);
+    }
+
+    /**
+     * Get the number of targeted vertices from Vertex.
+     * @return the number of outgoing edges of Vertex.
+     */
+    public int getTargetCount() {
+        return targets.size();
+    }
+
+    /**
+     * Visit all source vertices with an edge to Vertex and the weight of each edge, without boxing.
+     * @param action called with the id of each source and the (nonzero) weight of the edge from it
+     */
+    public void forEachSource(IntIntConsumer action) {
+        sources.forEach(action);
+    }
+
+    /**
+     * Visit source vertices with an edge to Vertex and the weight of each edge, without boxing, until action
+     * returns false.
+     * @param action called with the id of each source visited and the (nonzero) weight of the edge from it
+     * @return true if every source was visited
+     */
+    public boolean forEachSourceWhile(IntIntPredicate action) {
+        return sources.forEachWhile(action);
+    }
+
+    /**
+     * Get the number of source vertices with an edge to Vertex.
+     * @return the number of incoming edges of Vertex.
+     */
+    public int getSourceCount() {
+        return sources.size();
+    }
+
+    /**
+     * Get the weight of the edge from source to Vertex.
+     * @param source an id
+     * @return the weight of the edge from source to Vertex, or zero if there is no such edge.
+     */
+    public int getSourceWeight(int source) {
+        return sources.get(source);
+    }
+
+    /**
+     * Helper function to verify if a given source has an edge to Vertex.
+     * @param source an id
+     * @return true if source is in the set of Vertex sources. False otherwise.
+     */
+    public boolean isVertexInSources(int source) {
+        return sources.containsKey(source);
     }
 
     /**
      * Get the weight of the edge from Vertex to target.
-     * @param target a label
-     * @return the weight of the edge from Vertex to target.
+     * @param target an id
+     * @return the weight of the edge from Vertex to target, or zero if there is no such edge.
      */
-    public int getWeight(L target) {
+    public int getWeight(int target) {
         return targets.get(target);
     }
 
     /**
      * Helper functions to verify if a given target is part of the set of targets that Vertex is pointing to.
-     * @param target a label
+     * @param target an id
      * @return true if target is in the set of Vertex targets. False otherwise.
      */
-    public boolean isVertexInTargets(L target) {
-        if (targets.keySet().contains(target)){
-            return true;
-        }
-        else {
-            return false;
-        }
-
+    public boolean isVertexInTargets(int target) {
+        return targets.containsKey(target);
     }
 
     @Override
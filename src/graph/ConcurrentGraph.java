@@ -0,0 +1,354 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A thread-safe implementation of Graph for concurrent readers and writers.
+ *
+ * <p>Adjacency is kept in ConcurrentHashMaps, so observers never block and never throw
+ * ConcurrentModificationException. Writers lock stripes: each vertex label hashes to one of a fixed array of
+ * locks. set() holds the stripes of its source and target, so it is atomic and returns the weight it replaced;
+ * sets on edges whose endpoints fall in other stripes run in parallel. remove() touches the neighbours of the
+ * removed vertex, which can be anywhere, so it holds every stripe.
+ *
+ * <p>vertices(), sources() and targets() return snapshots that are weakly consistent: each reflects every
+ * operation that completed before the call, and may or may not reflect operations running concurrently with it.
+ * In particular a snapshot taken during a set() may see the edge from the source side before the target side.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class ConcurrentGraph<L> implements Graph<L> {
+
+    private final Map<L, Node<L>> nodes = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes;
+    private final AtomicInteger operationCount = new AtomicInteger();
+
+    // Abstraction function:
+    //   Represents a mutable weighted directed graph with vertices nodes.keySet() and an edge v -> t of weight w
+    //   for every t -> w in nodes.get(v).targets
+    // Representation invariant:
+    //   each node is stored under its own label
+    //   v has target t with weight w iff t has source v with weight w, whenever no writer holds the stripes of
+    //   v and t; all weights are positive
+    //   stripes.length is a power of two
+    // Safety from rep exposure:
+    //   Fields are private final, nodes are never returned and observers return copies
+    // Thread safety argument:
+    //   The adjacency of a vertex is only written while holding its stripe, and every write that touches two
+    //   vertices holds both stripes, acquired in increasing index order (or all of them, in order) so writers
+    //   cannot deadlock. Readers use the ConcurrentHashMaps without locking and copy what they return.
+
+    /**
+     * Create an empty graph with a number of stripes suited to the available processors.
+     */
+    public ConcurrentGraph() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create an empty graph.
+     * @param concurrencyLevel expected number of concurrent writers, positive; the number of lock stripes is
+     *                         the next power of two, at least 16
+     */
+    public ConcurrentGraph(int concurrencyLevel) {
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrency level must be positive: " + concurrencyLevel);
+        }
+        int stripeCount = Math.max(16, Integer.highestOneBit(Math.min(concurrencyLevel, 1 << 16) * 2 - 1));
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // Check rep invariant around the edge from source to target - O(1), caller holds both stripes
+    private void checkRep(L source, L target) {
+        if (RepCheck.isOn()) {
+            Node<L> sourceNode = nodes.get(source);
+            Node<L> targetNode = nodes.get(target);
+            Integer outWeight = sourceNode == null ? null : sourceNode.targets.get(target);
+            Integer inWeight = targetNode == null ? null : targetNode.sources.get(source);
+            RepCheck.check(outWeight == null ? inWeight == null : outWeight.equals(inWeight),
+                    "Targets and sources disagree");
+            RepCheck.check(outWeight == null || outWeight > 0, "Invalid weight found");
+            RepCheck.check(sourceNode == null || sourceNode.label.equals(source), "Vertices are duplicate");
+            RepCheck.check(targetNode == null || targetNode.label.equals(target), "Vertices are duplicate");
+        }
+    }
+
+    // Check rep invariant for the whole graph when a full check is due - O(n), caller holds no stripe
+    private void checkRep() {
+        if (RepCheck.isFullCheckDue(operationCount.incrementAndGet())) {
+            lockAll();
+            try {
+                for (Map.Entry<L, Node<L>> entry : nodes.entrySet()) {
+                    RepCheck.check(entry.getKey().equals(entry.getValue().label), "Vertices are duplicate");
+                    for (L target : entry.getValue().targets.keySet()) {
+                        checkRep(entry.getKey(), target);
+                    }
+                    for (L source : entry.getValue().sources.keySet()) {
+                        checkRep(source, entry.getKey());
+                    }
+                }
+            } finally {
+                unlockAll();
+            }
+        }
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        boolean result = nodes.putIfAbsent(vertex, new Node<>(vertex)) == null;
+        checkRep();
+        return result;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        return withStripes(source, target, () -> setLocked(source, target, weight));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The read and the write are atomic: concurrent calls on the same edge never lose an addition.
+     */
+    @Override
+    public int addToWeight(L source, L target, int delta) {
+        return withStripes(source, target, () -> {
+            Node<L> sourceNode = nodes.get(source);
+            Integer previous = sourceNode == null ? null : sourceNode.targets.get(target);
+            long weight = (long) (previous == null ? 0 : previous) + delta;
+            if (weight < 0) {
+                throw new IllegalArgumentException("negative weight " + weight + " for edge " + source + " -> " + target);
+            }
+            if (weight > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("weight of edge " + source + " -> " + target + " overflows");
+            }
+            if (delta != 0) {
+                setLocked(source, target, (int) weight);
+            }
+            return (int) weight;
+        });
+    }
+
+    /**
+     * Run an operation on the edge from source to target while holding the stripes of both.
+     * @param operation operation that reads or writes the adjacency of source and target only
+     * @return the result of operation
+     */
+    private int withStripes(L source, L target, IntSupplier operation) {
+        int result;
+        int sourceStripe = stripeOf(source);
+        int targetStripe = stripeOf(target);
+        ReentrantLock first = stripes[Math.min(sourceStripe, targetStripe)];
+        ReentrantLock second = stripes[Math.max(sourceStripe, targetStripe)];
+        first.lock();
+        second.lock();
+        try {
+            result = operation.getAsInt();
+            checkRep(source, target);
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+        checkRep();
+        return result;
+    }
+
+    /**
+     * Set an edge as specified by set(), holding the stripes of source and target.
+     * @return the previous weight of the edge, or zero if there was no such edge
+     */
+    private int setLocked(L source, L target, int weight) {
+        if (weight > 0) {
+            Node<L> sourceNode = nodes.computeIfAbsent(source, Node::new);
+            Node<L> targetNode = nodes.computeIfAbsent(target, Node::new);
+            Integer previous = sourceNode.targets.put(target, weight);
+            targetNode.sources.put(source, weight);
+            return previous == null ? 0 : previous;
+        } else if (weight == 0) {
+            Node<L> sourceNode = nodes.get(source);
+            Integer previous = sourceNode == null ? null : sourceNode.targets.remove(target);
+            if (previous != null) {
+                nodes.get(target).sources.remove(source);
+                return previous;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        boolean result = false;
+        lockAll();
+        try {
+            Node<L> removed = nodes.remove(vertex);
+            if (removed != null) {
+                for (L target : removed.targets.keySet()) {
+                    Node<L> targetNode = nodes.get(target);
+                    if (targetNode != null) {
+                        targetNode.sources.remove(vertex);
+                    }
+                }
+                for (L source : removed.sources.keySet()) {
+                    Node<L> sourceNode = nodes.get(source);
+                    if (sourceNode != null) {
+                        sourceNode.targets.remove(vertex);
+                    }
+                }
+                result = true;
+            }
+        } finally {
+            unlockAll();
+        }
+        checkRep();
+        return result;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return new HashSet<>(nodes.keySet());
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Node<L> node = nodes.get(target);
+        return node == null ? new HashMap<>() : new HashMap<>(node.sources);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Node<L> node = nodes.get(source);
+        return node == null ? new HashMap<>() : new HashMap<>(node.targets);
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        Node<L> node = nodes.get(source);
+        Integer weight = node == null ? null : node.targets.get(target);
+        return weight == null ? 0 : weight;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Unlike the other implementations, this graph may be modified while the visit is in progress; the visit is
+     * then weakly consistent, like targets().
+     */
+    @Override
+    public void forEachTarget(L source, ObjIntConsumer<? super L> action) {
+        Node<L> node = nodes.get(source);
+        if (node != null) {
+            node.targets.forEach(action::accept);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Unlike the other implementations, this graph may be modified while the visit is in progress; the visit is
+     * then weakly consistent, like sources().
+     */
+    @Override
+    public void forEachSource(L target, ObjIntConsumer<? super L> action) {
+        Node<L> node = nodes.get(target);
+        if (node != null) {
+            node.sources.forEach(action::accept);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * As with forEachTarget(), the visit is weakly consistent if this graph is modified meanwhile.
+     */
+    @Override
+    public boolean forEachTargetWhile(L source, ObjIntPredicate<? super L> action) {
+        Node<L> node = nodes.get(source);
+        return node == null || whileEdges(node.targets, action);
+    }
+
+    /**
+     * {@inheritDoc}
+     * As with forEachSource(), the visit is weakly consistent if this graph is modified meanwhile.
+     */
+    @Override
+    public boolean forEachSourceWhile(L target, ObjIntPredicate<? super L> action) {
+        Node<L> node = nodes.get(target);
+        return node == null || whileEdges(node.sources, action);
+    }
+
+    /**
+     * Visit edges until action returns false.
+     * @param edges weights of the edges of a vertex by the label at their other end
+     * @return true if every edge was visited
+     */
+    private static <L> boolean whileEdges(Map<L, Integer> edges, ObjIntPredicate<? super L> action) {
+        for (Map.Entry<L, Integer> edge : edges.entrySet()) {
+            if (!action.test(edge.getKey(), edge.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return index in stripes of the stripe that guards the adjacency of vertex
+     */
+    private int stripeOf(L vertex) {
+        int hash = vertex.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    /**
+     * Acquire every stripe, in order.
+     */
+    private void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    /**
+     * Release every stripe acquired by lockAll().
+     */
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        int numVertices = 0;
+        int numEdges = 0;
+        for (Node<L> node : nodes.values()) {
+            numVertices++;
+            numEdges += node.targets.size();
+        }
+        return "Graph contains " + numVertices + " vertices and " + numEdges + " edges";
+    }
+
+    /**
+     * Mutable, thread-safe.
+     * This class is internal to the rep of ConcurrentGraph: a vertex with its outgoing and incoming edges.
+     */
+    private static final class Node<L> {
+        private final L label;
+        private final Map<L, Integer> targets = new ConcurrentHashMap<>();
+        private final Map<L, Integer> sources = new ConcurrentHashMap<>();
+
+        Node(L label) {
+            this.label = label;
+        }
+    }
+
+}
@@ -0,0 +1,394 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * An immutable implementation of Graph in compressed sparse row (CSR) form.
+ *
+ * <p>Vertices are numbered with dense int ids 0..vertexCount()-1. The edges out of vertex v are at positions
+ * outStart(v)..outEnd(v)-1 of two parallel int arrays holding target ids and weights, sorted by target id; the
+ * edges into v are stored the same way, sorted by source id. A frozen graph takes a few ints per edge instead of a
+ * hash map entry and a boxed weight, and iterating the neighbours of a vertex reads contiguous memory.
+ *
+ * <p>Every mutator throws UnsupportedOperationException. The int id observers are public so that algorithms can
+ * work on ids directly instead of labels.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public final class CsrGraph<L> implements Graph<L> {
+
+    private final Object[] labels;
+    private final ObjIntMap<L> ids;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+
+    // Abstraction function:
+    //   Represents the weighted directed graph with vertices {labels[v]} and an edge labels[v] -> labels[outTargets[i]]
+    //   of weight outWeights[i] for every v and outOffsets[v] <= i < outOffsets[v+1]
+    // Representation invariant:
+    //   labels are distinct and non-null, ids.get(labels[v]) == v + 1 for every v (zero means "no vertex")
+    //   outOffsets and inOffsets have length labels.length + 1, start at 0, are non-decreasing and end at the
+    //   number of edges; all weights are positive
+    //   the targets of each vertex are strictly increasing, and so are the sources of each vertex
+    //   the in arrays hold exactly the transpose of the out arrays
+    // Safety from rep exposure:
+    //   All fields are private final, arrays are never returned and observers return copies
+
+    /**
+     * Create a frozen graph from arrays built by freeze() or a GraphBuilder. The arrays are not copied.
+     */
+    CsrGraph(Object[] labels, int[] outOffsets, int[] outTargets, int[] outWeights) {
+        this.labels = labels;
+        this.ids = new ObjIntMap<>();
+        for (int v = 0; v < labels.length; v++) {
+            ids.put(label(v), v + 1);
+        }
+        int edgeCount = outTargets.length;
+        this.inOffsets = new int[labels.length + 1];
+        this.inSources = new int[edgeCount];
+        this.inWeights = new int[edgeCount];
+        transpose(outOffsets, outTargets, outWeights, inOffsets, inSources, inWeights);
+        // transposing twice sorts every adjacency list by neighbour id
+        this.outOffsets = new int[labels.length + 1];
+        this.outTargets = new int[edgeCount];
+        this.outWeights = new int[edgeCount];
+        transpose(inOffsets, inSources, inWeights, this.outOffsets, this.outTargets, this.outWeights);
+        checkRep();
+    }
+
+    /**
+     * Freeze a graph: make an immutable CSR copy of it.
+     *
+     * @param <L> type of vertex labels in the graph
+     * <p>Ids do not depend on the iteration order of graph.vertices(): a MappedGraph keeps its own ids, the
+     * vertices of any other graph are numbered in the natural order of their labels if they are mutually
+     * Comparable, and in the iteration order of graph.vertices() otherwise.
+     *
+     * @param graph graph to copy, must not be modified during the copy
+     * @return an immutable graph with the same vertices and edges as graph; graph itself if it is already frozen
+     */
+    public static <L> CsrGraph<L> freeze(Graph<L> graph) {
+        if (graph instanceof CsrGraph) {
+            return (CsrGraph<L>) graph;
+        }
+        Object[] labels = labelsInIdOrder(graph);
+        ObjIntMap<L> ids = new ObjIntMap<>();
+        for (int v = 0; v < labels.length; v++) {
+            @SuppressWarnings("unchecked")
+            L label = (L) labels[v];
+            ids.put(label, v + 1);
+        }
+        int[] outOffsets = new int[labels.length + 1];
+        for (int v = 0; v < labels.length; v++) {
+            @SuppressWarnings("unchecked")
+            L label = (L) labels[v];
+            int[] degree = { 0 };
+            graph.forEachTarget(label, (target, weight) -> degree[0]++);
+            outOffsets[v + 1] = outOffsets[v] + degree[0];
+        }
+        int[] outTargets = new int[outOffsets[labels.length]];
+        int[] outWeights = new int[outTargets.length];
+        for (int v = 0; v < labels.length; v++) {
+            @SuppressWarnings("unchecked")
+            L label = (L) labels[v];
+            int[] position = { outOffsets[v] };
+            graph.forEachTarget(label, (target, weight) -> {
+                outTargets[position[0]] = ids.get(target) - 1;
+                outWeights[position[0]] = weight;
+                position[0]++;
+            });
+        }
+        return new CsrGraph<>(labels, outOffsets, outTargets, outWeights);
+    }
+
+    /**
+     * @return the vertices of graph in the order of the ids freeze() gives them
+     */
+    private static Object[] labelsInIdOrder(Graph<?> graph) {
+        if (graph instanceof MappedGraph) {
+            MappedGraph mapped = (MappedGraph) graph;
+            Object[] labels = new Object[mapped.vertexCount()];
+            for (int v = 0; v < labels.length; v++) {
+                labels[v] = mapped.label(v);
+            }
+            return labels;
+        }
+        Object[] labels = graph.vertices().toArray();
+        Object[] sorted = labels.clone();
+        try {
+            Arrays.sort(sorted);
+            return sorted;
+        } catch (ClassCastException notComparable) {
+            // the sort may have moved some labels before failing, so keep the untouched copy
+            return labels;
+        }
+    }
+
+    /**
+     * Transpose a CSR adjacency with a counting sort by neighbour id.
+     * The resulting lists are sorted by the id of the vertex that owned the edge in the input.
+     */
+    private static void transpose(int[] offsets, int[] neighbours, int[] weights,
+                                  int[] transposedOffsets, int[] transposedNeighbours, int[] transposedWeights) {
+        int vertexCount = offsets.length - 1;
+        for (int neighbour : neighbours) {
+            transposedOffsets[neighbour + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            transposedOffsets[v + 1] += transposedOffsets[v];
+        }
+        int[] next = Arrays.copyOf(transposedOffsets, vertexCount);
+        for (int v = 0; v < vertexCount; v++) {
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                int position = next[neighbours[i]]++;
+                transposedNeighbours[position] = v;
+                transposedWeights[position] = weights[i];
+            }
+        }
+    }
+
+    // Check rep invariant - O(n), see RepCheck for the checking levels
+    private void checkRep() {
+        if (RepCheck.isOn()) {
+            RepCheck.check(ids.size() == labels.length, "Labels are duplicate");
+            RepCheck.check(outOffsets[labels.length] == outTargets.length, "Out offsets do not cover the edges");
+            RepCheck.check(inOffsets[labels.length] == inSources.length, "In offsets do not cover the edges");
+            for (int v = 0; v < labels.length; v++) {
+                RepCheck.check(labels[v] != null, "Some vertex is null");
+                for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                    RepCheck.check(outWeights[i] > 0, "Invalid value of weight");
+                    RepCheck.check(i == outOffsets[v] || outTargets[i - 1] < outTargets[i], "Targets are not sorted");
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of vertices in this graph
+     */
+    public int vertexCount() {
+        return labels.length;
+    }
+
+    /**
+     * @return number of edges in this graph
+     */
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * Get the id of a vertex.
+     * @param vertex a label
+     * @return the id of vertex in 0..vertexCount()-1, or -1 if vertex is not in this graph
+     */
+    public int id(L vertex) {
+        return ids.get(vertex) - 1;
+    }
+
+    /**
+     * Get the label of a vertex.
+     * @param id id of a vertex in this graph
+     * @return the label of the vertex with the given id
+     */
+    @SuppressWarnings("unchecked")
+    public L label(int id) {
+        return (L) labels[id];
+    }
+
+    /**
+     * @param id id of a vertex in this graph
+     * @return position of the first edge out of the vertex
+     */
+    public int outStart(int id) {
+        return outOffsets[id];
+    }
+
+    /**
+     * @param id id of a vertex in this graph
+     * @return position just after the last edge out of the vertex
+     */
+    public int outEnd(int id) {
+        return outOffsets[id + 1];
+    }
+
+    /**
+     * @param position position of an out edge, in outStart(v)..outEnd(v)-1 for some vertex v
+     * @return id of the target of the edge
+     */
+    public int outTarget(int position) {
+        return outTargets[position];
+    }
+
+    /**
+     * @param position position of an out edge, in outStart(v)..outEnd(v)-1 for some vertex v
+     * @return weight of the edge
+     */
+    public int outWeight(int position) {
+        return outWeights[position];
+    }
+
+    /**
+     * @param id id of a vertex in this graph
+     * @return position of the first edge into the vertex
+     */
+    public int inStart(int id) {
+        return inOffsets[id];
+    }
+
+    /**
+     * @param id id of a vertex in this graph
+     * @return position just after the last edge into the vertex
+     */
+    public int inEnd(int id) {
+        return inOffsets[id + 1];
+    }
+
+    /**
+     * @param position position of an in edge, in inStart(v)..inEnd(v)-1 for some vertex v
+     * @return id of the source of the edge
+     */
+    public int inSource(int position) {
+        return inSources[position];
+    }
+
+    /**
+     * @param position position of an in edge, in inStart(v)..inEnd(v)-1 for some vertex v
+     * @return weight of the edge
+     */
+    public int inWeight(int position) {
+        return inWeights[position];
+    }
+
+    /**
+     * Get the weight of an edge by ids, with a binary search among the targets of source - O(log degree).
+     * @param source id of the source vertex
+     * @param target id of the target vertex
+     * @return the weight of the edge from source to target, or zero if there is no such edge
+     */
+    public int weight(int source, int target) {
+        int position = Arrays.binarySearch(outTargets, outOffsets[source], outOffsets[source + 1], target);
+        return position < 0 ? 0 : outWeights[position];
+    }
+
+    /**
+     * Frozen graphs cannot be modified.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean add(L vertex) {
+        throw new UnsupportedOperationException("frozen graph cannot be modified");
+    }
+
+    /**
+     * Frozen graphs cannot be modified.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public int set(L source, L target, int weight) {
+        throw new UnsupportedOperationException("frozen graph cannot be modified");
+    }
+
+    /**
+     * Frozen graphs cannot be modified.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean remove(L vertex) {
+        throw new UnsupportedOperationException("frozen graph cannot be modified");
+    }
+
+    @Override
+    public Set<L> vertices() {
+        Set<L> result = new HashSet<>();
+        for (int v = 0; v < labels.length; v++) {
+            result.add(label(v));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Map<L, Integer> result = new HashMap<>();
+        forEachSource(target, result::put);
+        return result;
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Map<L, Integer> result = new HashMap<>();
+        forEachTarget(source, result::put);
+        return result;
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        int sourceId = id(source);
+        int targetId = id(target);
+        return sourceId < 0 || targetId < 0 ? 0 : weight(sourceId, targetId);
+    }
+
+    @Override
+    public void forEachTarget(L source, ObjIntConsumer<? super L> action) {
+        int v = id(source);
+        if (v >= 0) {
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                action.accept(label(outTargets[i]), outWeights[i]);
+            }
+        }
+    }
+
+    @Override
+    public void forEachSource(L target, ObjIntConsumer<? super L> action) {
+        int v = id(target);
+        if (v >= 0) {
+            for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                action.accept(label(inSources[i]), inWeights[i]);
+            }
+        }
+    }
+
+    @Override
+    public boolean forEachTargetWhile(L source, ObjIntPredicate<? super L> action) {
+        int v = id(source);
+        if (v >= 0) {
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                if (!action.test(label(outTargets[i]), outWeights[i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean forEachSourceWhile(L target, ObjIntPredicate<? super L> action) {
+        int v = id(target);
+        if (v >= 0) {
+            for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                if (!action.test(label(inSources[i]), inWeights[i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "Graph contains " + labels.length + " vertices and " + outTargets.length + " edges";
+    }
+
+}
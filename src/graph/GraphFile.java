@@ -0,0 +1,382 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Reads and writes graphs with String labels in a compact, versioned binary file format, so that a graph built
+ * once from a large corpus can be loaded again without reading the corpus.
+ *
+ * <p>Format version 2. All fixed-width numbers are big-endian; a varint is an unsigned LEB128 number (7 bits per
+ * byte, least significant group first, high bit set on every byte but the last).
+ * <pre>
+ *   header      magic "WAGF" (4 bytes), version (2 bytes), reserved zero (2 bytes),
+ *               vertex count n (4 bytes), edge count m (4 bytes),
+ *               positions of the string, adjacency, sources and index sections (8 bytes each)
+ *   strings     the UTF-8 bytes of every label, concatenated in vertex id order
+ *   adjacency   for every vertex in id order: its out-degree, then for each edge in increasing target order the
+ *               gap between its target id and the previous target id (the first target id itself) and its
+ *               weight, all as varints
+ *   sources     the transposed adjacency: for every vertex in id order its in-degree, then for each edge in
+ *               increasing source order the source id gap and the weight, as varints
+ *   index       n + 1 string offsets, n + 1 adjacency offsets, then n + 1 sources offsets (8 bytes each),
+ *               relative to the start of their sections; the data of vertex v lies between offsets v and v + 1
+ * </pre>
+ * <p>Vertex ids are assigned in increasing unsigned byte order of the UTF-8 labels, so the string table is sorted
+ * and a label can be found in it by binary search without loading it. With the index, the labels and both edge
+ * lists of any vertex can be read in place, which is what {@link MappedGraph} does.
+ *
+ * <p>Version 1 files have no sources section: their header ends after the index position (40 bytes) and their
+ * index has no sources offsets. read() still loads them.
+ */
+public final class GraphFile {
+
+    /** First four bytes of every graph file, "WAGF". */
+    static final int MAGIC = 0x57414746;
+
+    /** Version of the format written by this class. */
+    static final short VERSION = 2;
+
+    /** Size of the header in bytes. */
+    static final int HEADER_SIZE = 48;
+
+    /** Size of the header of version 1 files, which have no sources section. */
+    private static final int HEADER_SIZE_V1 = 40;
+
+    private GraphFile() {
+        throw new AssertionError("non-instantiable");
+    }
+
+    /**
+     * Write a graph to a file, replacing the file if it exists.
+     * @param graph graph to write, must not be modified during the write
+     * @param file file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Graph<String> graph, File file) throws IOException {
+        CsrGraph<String> frozen = CsrGraph.freeze(graph);
+        int n = frozen.vertexCount();
+        byte[][] labels = new byte[n][];
+        Integer[] order = new Integer[n];
+        for (int v = 0; v < n; v++) {
+            labels[v] = frozen.label(v).getBytes(StandardCharsets.UTF_8);
+            order[v] = v;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(labels[a], labels[b]));
+        int[] newId = new int[n];
+        for (int id = 0; id < n; id++) {
+            newId[order[id]] = id;
+        }
+
+        long[] stringOffsets = new long[n + 1];
+        long[] adjacencyOffsets = new long[n + 1];
+        long[] sourcesOffsets = new long[n + 1];
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CountingOutput out = new CountingOutput(Channels.newOutputStream(channel));
+            out.write(new byte[HEADER_SIZE]);
+            long stringsPosition = out.count;
+            for (int id = 0; id < n; id++) {
+                out.write(labels[order[id]]);
+                stringOffsets[id + 1] = out.count - stringsPosition;
+            }
+            long adjacencyPosition = out.count;
+            writeAdjacency(out, order, newId, frozen::outStart, frozen::outEnd, frozen::outTarget, frozen::outWeight,
+                    adjacencyOffsets);
+            long sourcesPosition = out.count;
+            writeAdjacency(out, order, newId, frozen::inStart, frozen::inEnd, frozen::inSource, frozen::inWeight,
+                    sourcesOffsets);
+            long indexPosition = out.count;
+            for (long offset : stringOffsets) {
+                out.writeLong(offset);
+            }
+            for (long offset : adjacencyOffsets) {
+                out.writeLong(offset);
+            }
+            for (long offset : sourcesOffsets) {
+                out.writeLong(offset);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(n).putInt(frozen.edgeCount());
+            header.putLong(stringsPosition).putLong(adjacencyPosition).putLong(sourcesPosition)
+                  .putLong(indexPosition).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    /**
+     * Write the edge lists of every vertex of a frozen graph, in new id order, to the adjacency or sources section.
+     * @param out output positioned at the start of the section
+     * @param order order[id] is the frozen graph id of the vertex with new id id
+     * @param newId inverse of order
+     * @param start first position of the edges of a frozen graph vertex
+     * @param end position after the last edge of a frozen graph vertex
+     * @param neighbour frozen graph id of the other end of the edge at a position
+     * @param weight weight of the edge at a position
+     * @param offsets receives the offset of the end of the edges of each new id, relative to the section
+     */
+    private static void writeAdjacency(CountingOutput out, Integer[] order, int[] newId,
+                                       IntUnaryOperator start, IntUnaryOperator end,
+                                       IntUnaryOperator neighbour, IntUnaryOperator weight,
+                                       long[] offsets) throws IOException {
+        long sectionPosition = out.count;
+        long[] edges = new long[0];
+        for (int id = 0; id < order.length; id++) {
+            int v = order[id];
+            int degree = end.applyAsInt(v) - start.applyAsInt(v);
+            if (edges.length < degree) {
+                edges = new long[Math.max(degree, edges.length * 2)];
+            }
+            for (int i = 0; i < degree; i++) {
+                int position = start.applyAsInt(v) + i;
+                edges[i] = ((long) newId[neighbour.applyAsInt(position)] << 32) | weight.applyAsInt(position);
+            }
+            Arrays.sort(edges, 0, degree);
+            out.writeVarint(degree);
+            int previous = 0;
+            for (int i = 0; i < degree; i++) {
+                int other = (int) (edges[i] >>> 32);
+                out.writeVarint(other - previous);
+                out.writeVarint((int) edges[i]);
+                previous = other;
+            }
+            offsets[id + 1] = out.count - sectionPosition;
+        }
+    }
+
+    /**
+     * Load a graph written by write().
+     * The file is memory-mapped and decoded straight into the arrays of a frozen graph. Everything that
+     * MappedGraph relies on is checked on the way: labels must be in strictly increasing byte order, and the targets
+     * of each vertex strictly increasing, so a corrupt or hand-made file fails here instead of giving wrong answers.
+     * @param file graph file of at most Integer.MAX_VALUE bytes, of version 1 or 2
+     * @return a frozen graph with the vertices and edges of the written graph
+     * @throws IOException if the file cannot be read or mapped, or is not a well-formed graph file of a supported
+     *         version
+     */
+    public static CsrGraph<String> read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("graph file too large to load on the heap: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Header header = Header.read(buffer, channel.size());
+            int n = header.vertexCount;
+            int stringsPosition = (int) header.stringsPosition;
+            int adjacencyPosition = (int) header.adjacencyPosition;
+            int indexPosition = (int) header.indexPosition;
+
+            Object[] labels = new Object[n];
+            int[] outOffsets = new int[n + 1];
+            int[] outTargets = new int[header.edgeCount];
+            int[] outWeights = new int[header.edgeCount];
+            byte[] bytes = new byte[0];
+            byte[] previousBytes = new byte[0];
+            int previousLength = 0;
+            ByteBuffer adjacency = buffer.duplicate();
+            adjacency.position(adjacencyPosition);
+            for (int v = 0; v < n; v++) {
+                long start = buffer.getLong(indexPosition + 8 * v);
+                long end = buffer.getLong(indexPosition + 8 * (v + 1));
+                if (start < 0 || end < start || stringsPosition + end > adjacencyPosition) {
+                    throw new IOException("corrupt string table in graph file " + file);
+                }
+                int length = (int) (end - start);
+                if (bytes.length < length) {
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                }
+                buffer.get((int) (stringsPosition + start), bytes, 0, length);
+                if (v > 0 && Arrays.compareUnsigned(previousBytes, 0, previousLength, bytes, 0, length) >= 0) {
+                    throw new IOException("unsorted or duplicate labels in graph file " + file);
+                }
+                labels[v] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                byte[] swap = previousBytes;
+                previousBytes = bytes;
+                previousLength = length;
+                bytes = swap;
+
+                int degree = readVarint(adjacency);
+                if (degree < 0 || degree > header.edgeCount - outOffsets[v]) {
+                    throw new IOException("corrupt adjacency in graph file " + file);
+                }
+                outOffsets[v + 1] = outOffsets[v] + degree;
+                int target = 0;
+                for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                    int gap = readVarint(adjacency);
+                    // targets are strictly increasing: only the first gap may be zero
+                    if (gap < 0 || (gap == 0 && i > outOffsets[v])) {
+                        throw new IOException("unsorted or duplicate targets in graph file " + file);
+                    }
+                    target += gap;
+                    outTargets[i] = target;
+                    outWeights[i] = readVarint(adjacency);
+                    if (target < 0 || target >= n || outWeights[i] <= 0) {
+                        throw new IOException("corrupt adjacency in graph file " + file);
+                    }
+                }
+            }
+            if (outOffsets[n] != header.edgeCount || adjacency.position() > header.adjacencyEnd()) {
+                throw new IOException("corrupt adjacency in graph file " + file);
+            }
+            return new CsrGraph<>(labels, outOffsets, outTargets, outWeights);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("truncated graph file " + file, e);
+        }
+    }
+
+    /**
+     * Read an unsigned LEB128 varint of at most 32 bits.
+     * @param buffer buffer positioned at the varint; its position is moved past it
+     * @return the value of the varint
+     * @throws IOException if the varint is longer than 5 bytes
+     */
+    static int readVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint in graph file");
+    }
+
+    /**
+     * Immutable.
+     * The header of a graph file.
+     */
+    static final class Header {
+        final short version;
+        final int vertexCount;
+        final int edgeCount;
+        final long stringsPosition;
+        final long adjacencyPosition;
+        /** Position of the sources section, or -1 in a version 1 file. */
+        final long sourcesPosition;
+        final long indexPosition;
+
+        private Header(short version, int vertexCount, int edgeCount, long stringsPosition,
+                       long adjacencyPosition, long sourcesPosition, long indexPosition) {
+            this.version = version;
+            this.vertexCount = vertexCount;
+            this.edgeCount = edgeCount;
+            this.stringsPosition = stringsPosition;
+            this.adjacencyPosition = adjacencyPosition;
+            this.sourcesPosition = sourcesPosition;
+            this.indexPosition = indexPosition;
+        }
+
+        /**
+         * Read and validate the header at the start of a buffer.
+         * @param buffer buffer holding at least the header of a graph file, or the whole file if it is shorter
+         * @param fileSize size of the whole file
+         * @return the header
+         * @throws IOException if the buffer does not start with a valid header of a supported version
+         */
+        static Header read(ByteBuffer buffer, long fileSize) throws IOException {
+            if (fileSize < HEADER_SIZE_V1 || buffer.getInt(0) != MAGIC) {
+                throw new IOException("not a graph file");
+            }
+            short version = buffer.getShort(4);
+            Header header;
+            if (version == 1) {
+                header = new Header(version, buffer.getInt(8), buffer.getInt(12),
+                        buffer.getLong(16), buffer.getLong(24), -1, buffer.getLong(32));
+            } else if (version == VERSION && fileSize >= HEADER_SIZE) {
+                header = new Header(version, buffer.getInt(8), buffer.getInt(12),
+                        buffer.getLong(16), buffer.getLong(24), buffer.getLong(32), buffer.getLong(40));
+            } else {
+                throw new IOException("unsupported graph file version " + version);
+            }
+            long indexEnd = header.indexPosition + header.sections() * 8L * (header.vertexCount + 1L);
+            if (header.vertexCount < 0 || header.edgeCount < 0
+                    || header.stringsPosition != (version == 1 ? HEADER_SIZE_V1 : HEADER_SIZE)
+                    || header.adjacencyPosition < header.stringsPosition
+                    || (version > 1 && header.sourcesPosition < header.adjacencyPosition)
+                    || header.indexPosition < header.adjacencyEnd() || indexEnd != fileSize) {
+                throw new IOException("corrupt graph file header");
+            }
+            return header;
+        }
+
+        /**
+         * @return true if the file has a sources section
+         */
+        boolean hasSources() {
+            return sourcesPosition >= 0;
+        }
+
+        /**
+         * @return number of sections with offsets in the index
+         */
+        int sections() {
+            return hasSources() ? 3 : 2;
+        }
+
+        /**
+         * @return position just after the adjacency section
+         */
+        long adjacencyEnd() {
+            return hasSources() ? sourcesPosition : indexPosition;
+        }
+    }
+
+    /**
+     * Mutable.
+     * A buffered output stream that counts the bytes written and writes varints and longs.
+     */
+    private static final class CountingOutput {
+        private final OutputStream out;
+        private long count = 0;
+
+        CountingOutput(OutputStream out) {
+            this.out = new BufferedOutputStream(out, 1 << 16);
+        }
+
+        void write(byte[] bytes) throws IOException {
+            out.write(bytes);
+            count += bytes.length;
+        }
+
+        void writeVarint(int value) throws IOException {
+            while ((value & ~0x7f) != 0) {
+                out.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+                count++;
+            }
+            out.write(value);
+            count++;
+        }
+
+        void writeLong(long value) throws IOException {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (value >>> shift));
+            }
+            count += 8;
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+}
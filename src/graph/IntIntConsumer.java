@@ -0,0 +1,20 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * An operation on an edge given by the id of the vertex at its other end and its weight, so that algorithms over
+ * vertex ids never box either int.
+ */
+@FunctionalInterface
+public interface IntIntConsumer {
+
+    /**
+     * Perform this operation on an edge.
+     * @param id id of the vertex at the other end of the edge
+     * @param weight weight of the edge
+     */
+    void accept(int id, int weight);
+
+}
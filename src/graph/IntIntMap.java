@@ -0,0 +1,234 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * Mutable.
+ * An open-addressed hash map from nonnegative int keys to nonzero int values, without boxing either.
+ * It is ObjIntMap for vertex ids: a value of zero stands for "no entry", as an absent edge has weight zero.
+ * Collisions are resolved by linear probing and removal shifts later entries back, so there are no tombstones.
+ */
+final class IntIntMap {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private int[] keys = new int[MIN_CAPACITY];
+    private int[] values = new int[MIN_CAPACITY];
+    private int size = 0;
+
+    // Abstraction function:
+    //   Represents the map {keys[i] - 1 -> values[i] | keys[i] != 0}
+    // Representation invariant:
+    //   keys.length == values.length is a power of two and at least MIN_CAPACITY
+    //   size is the number of nonzero keys, and size < keys.length * 3 / 4
+    //   values[i] != 0 iff keys[i] != 0
+    //   each key is reachable by probing forward from its home slot without crossing an empty slot
+    // Safety from rep exposure:
+    //   Fields are private and only ints are returned
+
+    /**
+     * Get the value for a key.
+     * @param key a key
+     * @return the value mapped to key, or zero if there is none
+     */
+    int get(int key) {
+        int slot = find(key);
+        return slot < 0 ? 0 : values[slot];
+    }
+
+    /**
+     * @param key a key
+     * @return true if this map has an entry for key
+     */
+    boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Add or replace an entry. Putting zero removes the entry.
+     * @param key a nonnegative key
+     * @param value value for key
+     * @return the previous value for key, or zero if there was none
+     */
+    int put(int key, int value) {
+        if (value == 0) {
+            return remove(key);
+        }
+        int stored = key + 1;
+        int mask = keys.length - 1;
+        int slot = home(stored, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == stored) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = stored;
+        values[slot] = value;
+        size++;
+        if (size * 4 >= keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        return 0;
+    }
+
+    /**
+     * Add to the value of a key with a single probe for an existing key. A sum of zero removes the entry.
+     * @param key a nonnegative key
+     * @param delta amount to add to the value of key, which is zero if there is no entry
+     * @return the new value for key
+     * @throws ArithmeticException if the sum overflows an int, in which case this map is unchanged
+     */
+    int add(int key, int delta) {
+        int stored = key + 1;
+        int mask = keys.length - 1;
+        for (int slot = home(stored, mask); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == stored) {
+                int sum = Math.addExact(values[slot], delta);
+                if (sum == 0) {
+                    remove(key);
+                } else {
+                    values[slot] = sum;
+                }
+                return sum;
+            }
+        }
+        if (delta != 0) {
+            put(key, delta);
+        }
+        return delta;
+    }
+
+    /**
+     * Remove the entry for a key, if any.
+     * @param key a key
+     * @return the removed value, or zero if there was no entry for key
+     */
+    int remove(int key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return 0;
+        }
+        int previous = values[slot];
+        int mask = keys.length - 1;
+        // shift back every following entry of the probe run that may not stay behind the hole
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != 0) {
+            int nextHome = home(keys[next], mask);
+            if (((next - nextHome) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = 0;
+        values[hole] = 0;
+        size--;
+        return previous;
+    }
+
+    /**
+     * @return number of entries in this map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Call action on every entry of this map, in no particular order. The map must not be modified meanwhile.
+     * @param action called with the key and value of each entry
+     */
+    void forEach(IntIntConsumer action) {
+        int[] currentKeys = keys;
+        int[] currentValues = values;
+        for (int i = 0; i < currentKeys.length; i++) {
+            if (currentKeys[i] != 0) {
+                action.accept(currentKeys[i] - 1, currentValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Call action on entries of this map, in no particular order, until it returns false. The map must not be
+     * modified meanwhile.
+     * @param action called with the key and value of each entry visited
+     * @return true if every entry was visited
+     */
+    boolean forEachWhile(IntIntPredicate action) {
+        int[] currentKeys = keys;
+        int[] currentValues = values;
+        for (int i = 0; i < currentKeys.length; i++) {
+            if (currentKeys[i] != 0 && !action.test(currentKeys[i] - 1, currentValues[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the slot holding a key.
+     * @param key a key
+     * @return index of the slot holding key, or -1 if key is not in this map
+     */
+    private int find(int key) {
+        if (key < 0) {
+            return -1;
+        }
+        int stored = key + 1;
+        int mask = keys.length - 1;
+        int slot = home(stored, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == stored) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Rehash all entries into tables of the given capacity.
+     * @param capacity new power-of-two capacity
+     */
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = home(oldKeys[i], mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Get the first slot to probe for a stored key, spreading its bits so that runs of ids do not cluster.
+     * @param stored a key plus one
+     * @param mask table length minus one
+     * @return home slot of the key
+     */
+    private static int home(int stored, int mask) {
+        int hash = stored * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("{");
+        forEach((key, value) -> result.append(result.length() > 1 ? ", " : "").append(key).append('=').append(value));
+        return result.append('}').toString();
+    }
+
+}
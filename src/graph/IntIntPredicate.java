@@ -0,0 +1,21 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * A test of an edge given by the id of the vertex at its other end and its weight, which also tells a visit of
+ * edges whether to go on, so that algorithms over vertex ids never box either int.
+ */
+@FunctionalInterface
+public interface IntIntPredicate {
+
+    /**
+     * Perform this operation on an edge.
+     * @param id id of the vertex at the other end of the edge
+     * @param weight weight of the edge
+     * @return true to go on visiting edges, false to stop
+     */
+    boolean test(int id, int weight);
+
+}
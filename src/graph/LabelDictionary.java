@@ -0,0 +1,127 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Mutable.
+ * A dictionary between vertex labels and dense int ids, so that a graph hashes a label once when it crosses the
+ * Graph API and works on ids everywhere else.
+ *
+ * <p>Ids are assigned from 0 up. The id of a released label is reused by the next new label, so ids stay below
+ * the largest number of labels the dictionary ever held at once, and can index arrays.
+ *
+ * @param <L> type of labels, must be immutable
+ */
+final class LabelDictionary<L> {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private final ObjIntMap<L> ids = new ObjIntMap<>();
+    private Object[] labels = new Object[MIN_CAPACITY];
+    private int[] freeIds = new int[MIN_CAPACITY];
+    private int freeCount = 0;
+    private int idLimit = 0;
+
+    // Abstraction function:
+    //   Represents the bijection {labels[id] <-> id | 0 <= id < idLimit, labels[id] != null}
+    // Representation invariant:
+    //   ids.get(labels[id]) == id + 1 for every id with labels[id] != null (zero means "no label"),
+    //   and ids has no other entries
+    //   freeIds[0..freeCount-1] are the distinct ids below idLimit with labels[id] == null
+    //   idLimit <= labels.length
+    // Safety from rep exposure:
+    //   Fields are private, labels are immutable and only ids, labels and new sets are returned
+
+    /**
+     * Get the id of a label.
+     * @param label a label
+     * @return the id of label, or -1 if it has none
+     */
+    int id(Object label) {
+        return ids.get(label) - 1;
+    }
+
+    /**
+     * Get the id of a label, giving it one if it has none.
+     * @param label a non-null label
+     * @return the id of label
+     */
+    int intern(L label) {
+        int id = ids.get(label) - 1;
+        if (id >= 0) {
+            return id;
+        }
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            if (idLimit == labels.length) {
+                labels = Arrays.copyOf(labels, labels.length * 2);
+            }
+            id = idLimit++;
+        }
+        labels[id] = label;
+        ids.put(label, id + 1);
+        return id;
+    }
+
+    /**
+     * Get the label of an id.
+     * @param id an id in use
+     * @return the label with that id
+     */
+    @SuppressWarnings("unchecked")
+    L label(int id) {
+        return (L) labels[id];
+    }
+
+    /**
+     * Remove a label and free its id for reuse.
+     * @param id an id in use
+     */
+    void release(int id) {
+        ids.remove(labels[id]);
+        labels[id] = null;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    /**
+     * @return number of labels in this dictionary
+     */
+    int size() {
+        return ids.size();
+    }
+
+    /**
+     * @return a bound on the ids in use: every id is in 0..idLimit()-1
+     */
+    int idLimit() {
+        return idLimit;
+    }
+
+    /**
+     * @return a new set with the labels of this dictionary
+     */
+    Set<L> labels() {
+        Set<L> result = new HashSet<>();
+        for (int id = 0; id < idLimit; id++) {
+            if (labels[id] != null) {
+                result.add(label(id));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "LabelDictionary of " + size() + " labels";
+    }
+
+}
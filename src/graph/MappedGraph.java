@@ -0,0 +1,407 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * An immutable implementation of Graph over a memory-mapped graph file written by {@link GraphFile}.
+ *
+ * <p>Nothing is decoded when the graph is opened: labels and edges stay in the file and are read in place by every
+ * observer, so the graph takes a constant amount of heap whatever its size, and processes that map the same file
+ * share one copy of it in the operating system page cache. Files larger than 2 GB are mapped in several chunks.
+ *
+ * <p>The price is that every observer decodes what it returns. Finding a vertex is a binary search over the sorted
+ * string table - O(log n) label comparisons - and weight() scans the targets of its source. The id observers let
+ * algorithms avoid repeated label lookups.
+ *
+ * <p>Every mutator throws UnsupportedOperationException. The file must not be modified while it is mapped.
+ * open() only checks the header, so a file that did not come from GraphFile.write() should be checked once by
+ * loading it with GraphFile.read(), which rejects unsorted labels and targets.
+ */
+public final class MappedGraph implements Graph<String> {
+
+    /** Size of each mapped chunk of the file. */
+    private static final long DEFAULT_CHUNK_SIZE = 1L << 30;
+
+    private final ByteBuffer[] chunks;
+    private final int chunkShift;
+    private final long chunkMask;
+    private final int vertexCount;
+    private final int edgeCount;
+    private final long stringsPosition;
+    private final long adjacencyPosition;
+    private final long sourcesPosition;
+    private final long indexPosition;
+
+    // Abstraction function:
+    //   Represents the graph stored in the file made of the bytes of chunks[0], chunks[1], ... in order, as
+    //   described by GraphFile, where the file byte at position p is chunks[p >>> chunkShift].get(p & chunkMask)
+    // Representation invariant:
+    //   every chunk but the last has 1 << chunkShift bytes, chunkMask == (1 << chunkShift) - 1
+    //   the positions and counts are those of a valid version 2 header of the file
+    // Safety from rep exposure:
+    //   All fields are private final, the buffers are read-only and never returned, and observers return
+    //   new Strings and collections
+    // Thread safety argument:
+    //   The buffers are only read with absolute get methods, which never change the state of a buffer, and the
+    //   file is not modified while mapped, so any number of threads may observe this graph at once
+
+    /**
+     * Map a graph file.
+     * @param file graph file written by GraphFile.write()
+     * @return a graph with the vertices and edges stored in the file
+     * @throws IOException if the file cannot be read or mapped, or is not a graph file of version 2 or later
+     */
+    public static MappedGraph open(File file) throws IOException {
+        return open(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Map a graph file in chunks of a given size.
+     * @param file graph file written by GraphFile.write()
+     * @param chunkSize size of every mapped chunk but the last, a power of two
+     * @return a graph with the vertices and edges stored in the file
+     * @throws IOException if the file cannot be read or mapped, or is not a graph file of version 2 or later
+     */
+    static MappedGraph open(File file, long chunkSize) throws IOException {
+        if (Long.bitCount(chunkSize) != 1 || chunkSize > DEFAULT_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunk size must be a power of two, at most 1 GB: " + chunkSize);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer headerBytes = ByteBuffer.allocate((int) Math.min(size, GraphFile.HEADER_SIZE));
+            while (headerBytes.hasRemaining() && channel.read(headerBytes, headerBytes.position()) >= 0) {
+                // read() advances the position
+            }
+            GraphFile.Header header = GraphFile.Header.read(headerBytes, size);
+            if (!header.hasSources()) {
+                throw new IOException("graph file version " + header.version + " cannot be mapped, rewrite it: "
+                        + file);
+            }
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((size + chunkSize - 1) / chunkSize)];
+            for (int c = 0; c < chunks.length; c++) {
+                long start = c * chunkSize;
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkSize, size - start));
+            }
+            return new MappedGraph(chunks, Long.numberOfTrailingZeros(chunkSize), header);
+        }
+    }
+
+    private MappedGraph(ByteBuffer[] chunks, int chunkShift, GraphFile.Header header) {
+        this.chunks = chunks;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        this.vertexCount = header.vertexCount;
+        this.edgeCount = header.edgeCount;
+        this.stringsPosition = header.stringsPosition;
+        this.adjacencyPosition = header.adjacencyPosition;
+        this.sourcesPosition = header.sourcesPosition;
+        this.indexPosition = header.indexPosition;
+        checkRep();
+    }
+
+    // Check rep invariant - O(number of chunks), plus O(n) label comparisons at the FULL level,
+    // see RepCheck for the checking levels
+    private void checkRep() {
+        if (RepCheck.isOn()) {
+            long size = 0;
+            for (int c = 0; c < chunks.length; c++) {
+                RepCheck.check(c == chunks.length - 1 || chunks[c].capacity() == chunkMask + 1,
+                        "Chunk has the wrong size");
+                size += chunks[c].capacity();
+            }
+            RepCheck.check(indexPosition + 24L * (vertexCount + 1L) == size, "Index does not end the file");
+            if (RepCheck.LEVEL == RepCheck.Level.FULL) {
+                for (int v = 1; v < vertexCount; v++) {
+                    RepCheck.check(compareLabel(v, label(v - 1).getBytes(StandardCharsets.UTF_8)) > 0,
+                            "Labels are not sorted");
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of vertices in this graph
+     */
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * @return number of edges in this graph
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Get the id of a vertex, with a binary search of the string table - O(log n) label comparisons.
+     * @param vertex a label
+     * @return the id of vertex in 0..vertexCount()-1, or -1 if vertex is not in this graph
+     */
+    public int id(String vertex) {
+        byte[] bytes = vertex.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = vertexCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareLabel(middle, bytes);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the label of a vertex.
+     * @param id id of a vertex in this graph
+     * @return the label of the vertex with the given id
+     */
+    public String label(int id) {
+        long start = stringsPosition + offset(0, id);
+        byte[] bytes = new byte[(int) (stringsPosition + offset(0, id + 1) - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = byteAt(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the weight of an edge by ids, scanning the targets of source until target - O(degree).
+     * @param source id of the source vertex
+     * @param target id of the target vertex
+     * @return the weight of the edge from source to target, or zero if there is no such edge
+     */
+    public int weight(int source, int target) {
+        long[] position = { adjacencyPosition + offset(1, source) };
+        int degree = readVarint(position);
+        int neighbour = 0;
+        for (int i = 0; i < degree; i++) {
+            neighbour += readVarint(position);
+            int weight = readVarint(position);
+            if (neighbour >= target) {
+                return neighbour == target ? weight : 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Call an action on every edge out of a vertex, in increasing target id order.
+     * @param source id of a vertex in this graph
+     * @param action called with the id of the target and the weight of each edge
+     */
+    public void forEachTarget(int source, IntIntConsumer action) {
+        forEachEdge(adjacencyPosition + offset(1, source), action);
+    }
+
+    /**
+     * Call an action on every edge into a vertex, in increasing source id order.
+     * @param target id of a vertex in this graph
+     * @param action called with the id of the source and the weight of each edge
+     */
+    public void forEachSource(int target, IntIntConsumer action) {
+        forEachEdge(sourcesPosition + offset(2, target), action);
+    }
+
+    /**
+     * Mapped graphs cannot be modified.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean add(String vertex) {
+        throw new UnsupportedOperationException("mapped graph cannot be modified");
+    }
+
+    /**
+     * Mapped graphs cannot be modified.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public int set(String source, String target, int weight) {
+        throw new UnsupportedOperationException("mapped graph cannot be modified");
+    }
+
+    /**
+     * Mapped graphs cannot be modified.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean remove(String vertex) {
+        throw new UnsupportedOperationException("mapped graph cannot be modified");
+    }
+
+    @Override
+    public Set<String> vertices() {
+        Set<String> result = new HashSet<>();
+        for (int v = 0; v < vertexCount; v++) {
+            result.add(label(v));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Integer> sources(String target) {
+        Map<String, Integer> result = new HashMap<>();
+        forEachSource(target, result::put);
+        return result;
+    }
+
+    @Override
+    public Map<String, Integer> targets(String source) {
+        Map<String, Integer> result = new HashMap<>();
+        forEachTarget(source, result::put);
+        return result;
+    }
+
+    @Override
+    public int weight(String source, String target) {
+        int sourceId = id(source);
+        int targetId = sourceId < 0 ? -1 : id(target);
+        return targetId < 0 ? 0 : weight(sourceId, targetId);
+    }
+
+    @Override
+    public void forEachTarget(String source, ObjIntConsumer<? super String> action) {
+        int v = id(source);
+        if (v >= 0) {
+            forEachTarget(v, (target, weight) -> action.accept(label(target), weight));
+        }
+    }
+
+    @Override
+    public void forEachSource(String target, ObjIntConsumer<? super String> action) {
+        int v = id(target);
+        if (v >= 0) {
+            forEachSource(v, (source, weight) -> action.accept(label(source), weight));
+        }
+    }
+
+    @Override
+    public boolean forEachTargetWhile(String source, ObjIntPredicate<? super String> action) {
+        int v = id(source);
+        return v < 0 || forEachEdgeWhile(adjacencyPosition + offset(1, v),
+                (target, weight) -> action.test(label(target), weight));
+    }
+
+    @Override
+    public boolean forEachSourceWhile(String target, ObjIntPredicate<? super String> action) {
+        int v = id(target);
+        return v < 0 || forEachEdgeWhile(sourcesPosition + offset(2, v),
+                (source, weight) -> action.test(label(source), weight));
+    }
+
+    @Override
+    public String toString() {
+        return "Graph contains " + vertexCount + " vertices and " + edgeCount + " edges";
+    }
+
+    /**
+     * Decode the edge list at a position of the adjacency or sources section.
+     */
+    private void forEachEdge(long start, IntIntConsumer action) {
+        long[] position = { start };
+        int degree = readVarint(position);
+        int neighbour = 0;
+        for (int i = 0; i < degree; i++) {
+            neighbour += readVarint(position);
+            action.accept(neighbour, readVarint(position));
+        }
+    }
+
+    /**
+     * Decode the edge list at a position of the adjacency or sources section until action returns false; the
+     * rest of the list is not decoded.
+     * @return true if every edge was visited
+     */
+    private boolean forEachEdgeWhile(long start, IntIntPredicate action) {
+        long[] position = { start };
+        int degree = readVarint(position);
+        int neighbour = 0;
+        for (int i = 0; i < degree; i++) {
+            neighbour += readVarint(position);
+            if (!action.test(neighbour, readVarint(position))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compare the label of a vertex with a label in unsigned UTF-8 byte order, without decoding the label.
+     * @return negative, zero or positive if the label of vertex id is before, equal to or after bytes
+     */
+    private int compareLabel(int id, byte[] bytes) {
+        long start = stringsPosition + offset(0, id);
+        long length = stringsPosition + offset(0, id + 1) - start;
+        for (int i = 0; i < length && i < bytes.length; i++) {
+            int comparison = Byte.toUnsignedInt(byteAt(start + i)) - Byte.toUnsignedInt(bytes[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Long.compare(length, bytes.length);
+    }
+
+    /**
+     * @param section 0 for strings, 1 for adjacency, 2 for sources
+     * @param id vertex id in 0..vertexCount()
+     * @return offset of vertex id in the section
+     */
+    private long offset(int section, int id) {
+        return longAt(indexPosition + 8L * ((long) section * (vertexCount + 1) + id));
+    }
+
+    private byte byteAt(long position) {
+        return chunks[(int) (position >>> chunkShift)].get((int) (position & chunkMask));
+    }
+
+    private long longAt(long position) {
+        int inChunk = (int) (position & chunkMask);
+        ByteBuffer chunk = chunks[(int) (position >>> chunkShift)];
+        if (inChunk + Long.BYTES <= chunk.capacity()) {
+            return chunk.getLong(inChunk);
+        }
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = value << 8 | Byte.toUnsignedInt(byteAt(position + i));
+        }
+        return value;
+    }
+
+    /**
+     * Read an unsigned LEB128 varint of at most 32 bits.
+     * @param position position[0] is the position of the varint, moved past it
+     * @return the value of the varint
+     * @throws IllegalStateException if the varint is longer than 5 bytes, which only happens in a corrupt file
+     */
+    private int readVarint(long[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = byteAt(position[0]++);
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("malformed varint in graph file");
+    }
+
+}
@@ -0,0 +1,175 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mutable.
+ * An open-addressed hash map from non-null keys to nonzero int values, without boxing the values.
+ * A value of zero stands for "no entry", which matches edge weights: an absent edge has weight zero.
+ * Collisions are resolved by linear probing and removal shifts later entries back, so there are no tombstones.
+ *
+ * @param <K> type of keys, must be immutable
+ */
+final class ObjIntMap<K> {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private Object[] keys = new Object[MIN_CAPACITY];
+    private int[] values = new int[MIN_CAPACITY];
+    private int size = 0;
+
+    // Abstraction function:
+    //   Represents the map {keys[i] -> values[i] | keys[i] != null}
+    // Representation invariant:
+    //   keys.length == values.length is a power of two and at least MIN_CAPACITY
+    //   size is the number of non-null keys, and size < keys.length * 3 / 4
+    //   values[i] != 0 iff keys[i] != null
+    //   each key is reachable by probing forward from its home slot without crossing an empty slot
+    // Safety from rep exposure:
+    //   Fields are private, keys are immutable and never returned
+
+    /**
+     * Get the value for a key.
+     * @param key a key
+     * @return the value mapped to key, or zero if there is none
+     */
+    int get(Object key) {
+        int slot = find(key);
+        return slot < 0 ? 0 : values[slot];
+    }
+
+    /**
+     * Add or replace an entry. Putting zero removes the entry.
+     * @param key a non-null key
+     * @param value value for key
+     * @return the previous value for key, or zero if there was none
+     */
+    int put(K key, int value) {
+        if (value == 0) {
+            return remove(key);
+        }
+        int mask = keys.length - 1;
+        int slot = home(key, mask);
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (size * 4 >= keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        return 0;
+    }
+
+    /**
+     * Remove the entry for a key, if any.
+     * @param key a key
+     * @return the removed value, or zero if there was no entry for key
+     */
+    int remove(Object key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return 0;
+        }
+        int previous = values[slot];
+        int mask = keys.length - 1;
+        // shift back every following entry of the probe run that may not stay behind the hole
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != null) {
+            int nextHome = home(keys[next], mask);
+            if (((next - nextHome) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = null;
+        values[hole] = 0;
+        size--;
+        return previous;
+    }
+
+    /**
+     * @return number of entries in this map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Find the slot holding a key.
+     * @param key a key
+     * @return index of the slot holding key, or -1 if key is not in this map
+     */
+    private int find(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        int slot = home(key, mask);
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Rehash all entries into tables of the given capacity.
+     * @param capacity new power-of-two capacity
+     */
+    private void resize(int capacity) {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new Object[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = home(oldKeys[i], mask);
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Get the first slot to probe for a key, spreading the bits of its hash code.
+     * @param key a non-null key
+     * @param mask table length minus one
+     * @return home slot of key
+     */
+    private static int home(Object key, int mask) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    @Override
+    public String toString() {
+        Map<Object, Integer> entries = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                entries.put(keys[i], values[i]);
+            }
+        }
+        return entries.toString();
+    }
+
+}
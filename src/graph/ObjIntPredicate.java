@@ -0,0 +1,23 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * A test of an edge given by the label of the vertex at its other end and its weight, which also tells a visit of
+ * edges whether to go on, without boxing the weight.
+ *
+ * @param <T> type of vertex labels
+ */
+@FunctionalInterface
+public interface ObjIntPredicate<T> {
+
+    /**
+     * Perform this operation on an edge.
+     * @param label label of the vertex at the other end of the edge
+     * @param weight weight of the edge
+     * @return true to go on visiting edges, false to stop
+     */
+    boolean test(T label, int weight);
+
+}
@@ -0,0 +1,78 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Locale;
+
+/**
+ * How much of the rep invariant the Graph implementations in this package check.
+ *
+ * <p>The level is chosen once per JVM with the system property {@code graph.checkRep}:
+ * <ul><li> {@code off}: no checking at all, every check returns immediately
+ *     <li> {@code incremental}: after each operation check only the vertices and edges it touched,
+ *          at constant cost per operation
+ *     <li> {@code full}: incremental checking, plus a check of the whole rep every
+ *          {@code graph.checkRep.interval} operations (default 1024) on each graph </ul>
+ * <p>If the property is not set, the level is incremental when assertions are enabled (-ea) and off otherwise.
+ * A failed check throws AssertionError, the same as a failed assert.
+ */
+final class RepCheck {
+
+    /** Levels of rep invariant checking. */
+    enum Level { OFF, INCREMENTAL, FULL }
+
+    /** Level of checking for this JVM. */
+    static final Level LEVEL = readLevel();
+
+    /** Number of operations between two full checks when the level is FULL. */
+    static final int FULL_CHECK_INTERVAL = Math.max(1, Integer.getInteger("graph.checkRep.interval", 1024));
+
+    private RepCheck() {
+        throw new AssertionError("non-instantiable");
+    }
+
+    /**
+     * Read the checking level from the system property.
+     * @return the level named by graph.checkRep, or the default level if it is not set
+     * @throws IllegalArgumentException if the property does not name a level
+     */
+    private static Level readLevel() {
+        String property = System.getProperty("graph.checkRep");
+        if (property == null) {
+            boolean assertionsEnabled = false;
+            assert assertionsEnabled = true;
+            return assertionsEnabled ? Level.INCREMENTAL : Level.OFF;
+        }
+        return Level.valueOf(property.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @return true if any checking is enabled
+     */
+    static boolean isOn() {
+        return LEVEL != Level.OFF;
+    }
+
+    /**
+     * Tell whether a graph should check its whole rep after an operation.
+     * @param operationCount number of operations the graph has performed so far, including this one
+     * @return true if the level is FULL and operationCount is a multiple of the interval
+     */
+    static boolean isFullCheckDue(int operationCount) {
+        return LEVEL == Level.FULL && operationCount % FULL_CHECK_INTERVAL == 0;
+    }
+
+    /**
+     * Fail if a part of the rep invariant does not hold.
+     * @param condition part of the rep invariant
+     * @param message description of the violated invariant
+     * @throws AssertionError if condition is false
+     */
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import graph.CsrGraph;
+import graph.Graph;
+
+/**
+ * PageRank over the edge weights of a graph, by power iteration.
+ *
+ * <p>The rank is the stationary distribution of a random walk that, with probability damping, follows an edge out
+ * of the current vertex chosen with probability proportional to its weight, and otherwise jumps to a uniformly
+ * random vertex. A walk at a vertex without out edges always jumps. Ranks are positive and sum to 1.
+ *
+ * <p>Each iteration pulls the rank of every vertex from its sources, through the in edges of a frozen graph, so
+ * the vertices are independent and are computed in parallel on the common fork-join pool, and no two threads
+ * write the same element. A graph that is not a CsrGraph is frozen first.
+ */
+public final class PageRank {
+
+    /** Default probability of following an edge rather than jumping. */
+    public static final double DEFAULT_DAMPING = 0.85;
+
+    /** Default bound on the L1 distance between the ranks of two iterations at which iteration stops. */
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+
+    /** Default maximum number of iterations. */
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    private PageRank() {
+        throw new AssertionError("non-instantiable");
+    }
+
+    /**
+     * Rank the vertices of a graph with the default damping, tolerance and maximum number of iterations.
+     *
+     * @param <L> type of vertex labels in the graph
+     * @param graph graph to rank, must not be modified meanwhile
+     * @return map from every vertex of graph to its rank
+     */
+    public static <L> Map<L, Double> of(Graph<L> graph) {
+        return of(graph, DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * Rank the vertices of a graph.
+     *
+     * @param <L> type of vertex labels in the graph
+     * @param graph graph to rank, must not be modified meanwhile
+     * @param damping probability of following an edge, in [0, 1)
+     * @param tolerance iteration stops once the ranks move by less than tolerance in L1 distance, nonnegative
+     * @param maxIterations maximum number of iterations, positive
+     * @return map from every vertex of graph to its rank
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public static <L> Map<L, Double> of(Graph<L> graph, double damping, double tolerance, int maxIterations) {
+        CsrGraph<L> frozen = CsrGraph.freeze(graph);
+        double[] rank = ranks(frozen, damping, tolerance, maxIterations);
+        Map<L, Double> result = new HashMap<>();
+        for (int v = 0; v < rank.length; v++) {
+            result.put(frozen.label(v), rank[v]);
+        }
+        return result;
+    }
+
+    /**
+     * Rank the vertices of a frozen graph - O(E) per iteration, in parallel.
+     *
+     * @param graph graph to rank
+     * @param damping probability of following an edge, in [0, 1)
+     * @param tolerance iteration stops once the ranks move by less than tolerance in L1 distance, nonnegative
+     * @param maxIterations maximum number of iterations, positive
+     * @return array whose element v is the rank of vertex v
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public static double[] ranks(CsrGraph<?> graph, double damping, double tolerance, int maxIterations) {
+        if (!(damping >= 0 && damping < 1) || !(tolerance >= 0) || maxIterations <= 0) {
+            throw new IllegalArgumentException("invalid damping, tolerance or iterations: "
+                    + damping + ", " + tolerance + ", " + maxIterations);
+        }
+        int n = graph.vertexCount();
+        long[] outWeight = new long[n];
+        IntStream.range(0, n).parallel().forEach(u -> {
+            long sum = 0;
+            for (int i = graph.outStart(u); i < graph.outEnd(u); i++) {
+                sum += graph.outWeight(i);
+            }
+            outWeight[u] = sum;
+        });
+        double[] rank = new double[n];
+        double[] next = new double[n];
+        double[] share = new double[n];
+        Arrays.fill(rank, 1.0 / n);
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            double[] current = rank;
+            // share[u] is the rank u sends along each unit of edge weight
+            IntStream.range(0, n).parallel()
+                    .forEach(u -> share[u] = outWeight[u] == 0 ? 0 : current[u] / outWeight[u]);
+            double dangling = IntStream.range(0, n).parallel().filter(u -> outWeight[u] == 0)
+                    .mapToDouble(u -> current[u]).sum();
+            double jump = (1 - damping) / n + damping * dangling / n;
+            double[] updated = next;
+            IntStream.range(0, n).parallel().forEach(v -> {
+                double pulled = 0;
+                for (int i = graph.inStart(v); i < graph.inEnd(v); i++) {
+                    pulled += share[graph.inSource(i)] * graph.inWeight(i);
+                }
+                updated[v] = jump + damping * pulled;
+            });
+            double change = IntStream.range(0, n).parallel()
+                    .mapToDouble(v -> Math.abs(updated[v] - current[v])).sum();
+            next = rank;
+            rank = updated;
+            if (change < tolerance) {
+                break;
+            }
+        }
+        return rank;
+    }
+
+}
@@ -0,0 +1,253 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntToLongFunction;
+import java.util.function.ToLongFunction;
+
+import graph.CsrGraph;
+import graph.Graph;
+
+/**
+ * Shortest paths over the edge weights of a graph: Dijkstra's algorithm, and A* for a single target when an
+ * estimate of the remaining distance is known. The length of a path is the sum of the weights of its edges.
+ *
+ * <p>Every search works on the vertex ids of a frozen graph; a graph that is not a CsrGraph is frozen first, which
+ * costs O(V + E), so callers running many searches on one graph should freeze it once and pass the CsrGraph.
+ * A single search is sequential, but searches on the same frozen graph share nothing and may run in parallel.
+ */
+public final class ShortestPaths {
+
+    /** Distance of a vertex that cannot be reached. */
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private ShortestPaths() {
+        throw new AssertionError("non-instantiable");
+    }
+
+    /**
+     * Find the distances from a vertex to every vertex it can reach - O((V + E) log V).
+     *
+     * @param <L> type of vertex labels in the graph
+     * @param graph graph to search, must not be modified during the search
+     * @param source vertex to start from
+     * @return map from each vertex reachable from source, source included, to the length of a shortest path to
+     *         it; empty if source is not in graph
+     */
+    public static <L> Map<L, Long> distances(Graph<L> graph, L source) {
+        CsrGraph<L> frozen = CsrGraph.freeze(graph);
+        int sourceId = frozen.id(source);
+        Map<L, Long> result = new HashMap<>();
+        if (sourceId < 0) {
+            return result;
+        }
+        long[] distance = distances(frozen, sourceId);
+        for (int v = 0; v < distance.length; v++) {
+            if (distance[v] != UNREACHABLE) {
+                result.put(frozen.label(v), distance[v]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the distances from a vertex to every vertex of a frozen graph - O((V + E) log V).
+     *
+     * @param graph graph to search
+     * @param source id of the vertex to start from
+     * @return array whose element v is the length of a shortest path from source to v, or UNREACHABLE
+     */
+    public static long[] distances(CsrGraph<?> graph, int source) {
+        long[] distance = new long[graph.vertexCount()];
+        search(graph, source, -1, v -> 0, distance, new int[graph.vertexCount()]);
+        return distance;
+    }
+
+    /**
+     * Find a shortest path between two vertices with Dijkstra's algorithm, stopping as soon as the target is
+     * settled.
+     *
+     * @param <L> type of vertex labels in the graph
+     * @param graph graph to search, must not be modified during the search
+     * @param source first vertex of the path
+     * @param target last vertex of the path
+     * @return the vertices of a shortest path from source to target in order, both included; empty if there is
+     *         no path or either vertex is not in graph
+     */
+    public static <L> List<L> path(Graph<L> graph, L source, L target) {
+        return path(graph, source, target, vertex -> 0);
+    }
+
+    /**
+     * Find a shortest path between two vertices with A*, which settles vertices in increasing order of their
+     * distance from source plus the estimated distance to target, and so visits fewer vertices than Dijkstra's
+     * algorithm the closer the estimate is.
+     *
+     * @param <L> type of vertex labels in the graph
+     * @param graph graph to search, must not be modified during the search
+     * @param source first vertex of the path
+     * @param target last vertex of the path
+     * @param estimate estimated distance from a vertex to target; must be nonnegative, zero at target, and
+     *                 consistent: estimate(u) <= weight(u, v) + estimate(v) for every edge u -> v
+     * @return the vertices of a shortest path from source to target in order, both included; empty if there is
+     *         no path or either vertex is not in graph
+     */
+    public static <L> List<L> path(Graph<L> graph, L source, L target, ToLongFunction<? super L> estimate) {
+        CsrGraph<L> frozen = CsrGraph.freeze(graph);
+        int sourceId = frozen.id(source);
+        int targetId = frozen.id(target);
+        if (sourceId < 0 || targetId < 0) {
+            return Collections.emptyList();
+        }
+        int[] previous = new int[frozen.vertexCount()];
+        long[] distance = new long[frozen.vertexCount()];
+        search(frozen, sourceId, targetId, v -> estimate.applyAsLong(frozen.label(v)), distance, previous);
+        if (distance[targetId] == UNREACHABLE) {
+            return Collections.emptyList();
+        }
+        List<L> path = new ArrayList<>();
+        for (int v = targetId; v != -1; v = previous[v]) {
+            path.add(frozen.label(v));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Run A* (Dijkstra's algorithm when estimate is zero) from source until target is settled, or until every
+     * reachable vertex is settled if target is -1.
+     * @param graph graph to search
+     * @param source id of the first vertex
+     * @param target id of the vertex to stop at, or -1
+     * @param estimate consistent estimate of the distance from a vertex id to target
+     * @param distance receives, for every settled vertex, its distance from source; UNREACHABLE for the vertices
+     *                 never reached (other vertices hold an upper bound)
+     * @param previous receives, for every reached vertex, the vertex before it on a shortest path, -1 for source
+     */
+    private static void search(CsrGraph<?> graph, int source, int target, IntToLongFunction estimate,
+                               long[] distance, int[] previous) {
+        Arrays.fill(distance, UNREACHABLE);
+        IdHeap open = new IdHeap(graph.vertexCount());
+        distance[source] = 0;
+        previous[source] = -1;
+        open.insertOrDecrease(source, estimate.applyAsLong(source));
+        while (!open.isEmpty()) {
+            int u = open.removeMin();
+            if (u == target) {
+                return;
+            }
+            for (int i = graph.outStart(u); i < graph.outEnd(u); i++) {
+                int v = graph.outTarget(i);
+                long candidate = distance[u] + graph.outWeight(i);
+                if (candidate < distance[v]) {
+                    distance[v] = candidate;
+                    previous[v] = u;
+                    open.insertOrDecrease(v, candidate + estimate.applyAsLong(v));
+                }
+            }
+        }
+    }
+
+    /**
+     * Mutable.
+     * A binary min-heap of vertex ids keyed by long priorities, with an index of the position of each id so that
+     * the priority of an id in the heap can be decreased in O(log n).
+     */
+    private static final class IdHeap {
+        private final int[] heap;
+        private final long[] keys;
+        private final int[] positions;
+        private int size = 0;
+
+        // Abstraction function:
+        //   Represents the set of ids heap[0..size-1], the priority of id v being keys[v]
+        // Representation invariant:
+        //   keys[heap[(i - 1) / 2]] <= keys[heap[i]] for 0 < i < size
+        //   positions[heap[i]] == i for i < size; positions[v] == -1 for every other id v
+        // Safety from rep exposure:
+        //   All fields are private and only ids are returned
+
+        IdHeap(int capacity) {
+            heap = new int[capacity];
+            keys = new long[capacity];
+            positions = new int[capacity];
+            Arrays.fill(positions, -1);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Add an id with a priority, or lower the priority of an id already in the heap.
+         * @param id an id below the capacity
+         * @param key its priority, at most its current priority if id is in the heap
+         */
+        void insertOrDecrease(int id, long key) {
+            keys[id] = key;
+            if (positions[id] < 0) {
+                heap[size] = id;
+                positions[id] = size;
+                size++;
+            }
+            siftUp(positions[id]);
+        }
+
+        /**
+         * @return the id of least priority, which is removed; the heap must not be empty
+         */
+        int removeMin() {
+            int min = heap[0];
+            positions[min] = -1;
+            size--;
+            if (size > 0) {
+                heap[0] = heap[size];
+                positions[heap[0]] = 0;
+                siftDown(0);
+            }
+            return min;
+        }
+
+        private void siftUp(int i) {
+            int id = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (keys[heap[parent]] <= keys[id]) {
+                    break;
+                }
+                move(heap[parent], i);
+                i = parent;
+            }
+            move(id, i);
+        }
+
+        private void siftDown(int i) {
+            int id = heap[i];
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                    child++;
+                }
+                if (keys[id] <= keys[heap[child]]) {
+                    break;
+                }
+                move(heap[child], i);
+                i = child;
+            }
+            move(id, i);
+        }
+
+        private void move(int id, int position) {
+            heap[position] = id;
+            positions[id] = position;
+        }
+    }
+
+}
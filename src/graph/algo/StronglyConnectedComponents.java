@@ -0,0 +1,113 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import graph.CsrGraph;
+import graph.Graph;
+
+/**
+ * The strongly connected components of a graph, found with Tarjan's algorithm in O(V + E).
+ *
+ * <p>The depth-first search keeps its own stack of (vertex, next edge position) frames instead of recursing, so
+ * graphs with paths of millions of vertices do not overflow the thread stack. It works on the vertex ids of a
+ * frozen graph; a graph that is not a CsrGraph is frozen first. Tarjan's algorithm is inherently sequential, but
+ * it touches each edge once, so it takes about as long as a single pass over the edges.
+ */
+public final class StronglyConnectedComponents {
+
+    private StronglyConnectedComponents() {
+        throw new AssertionError("non-instantiable");
+    }
+
+    /**
+     * Find the strongly connected components of a graph.
+     *
+     * @param <L> type of vertex labels in the graph
+     * @param graph graph to search, must not be modified during the search
+     * @return the components, each a new set of vertices, in reverse topological order of the condensation:
+     *         every edge between two components goes from a later component to an earlier one
+     */
+    public static <L> List<Set<L>> of(Graph<L> graph) {
+        CsrGraph<L> frozen = CsrGraph.freeze(graph);
+        int[] component = componentIds(frozen);
+        List<Set<L>> components = new ArrayList<>();
+        for (int v = 0; v < component.length; v++) {
+            while (components.size() <= component[v]) {
+                components.add(new HashSet<>());
+            }
+            components.get(component[v]).add(frozen.label(v));
+        }
+        return components;
+    }
+
+    /**
+     * Find the strongly connected components of a frozen graph.
+     *
+     * @param graph graph to search
+     * @return array whose element v is the index of the component of vertex v; components are numbered from 0 in
+     *         reverse topological order of the condensation, so every edge u -> v has component[u] >= component[v]
+     */
+    public static int[] componentIds(CsrGraph<?> graph) {
+        int n = graph.vertexCount();
+        int[] component = new int[n];
+        Arrays.fill(component, -1);
+        // order[v] is the depth-first visit number of v plus one, zero if v is unvisited
+        int[] order = new int[n];
+        int[] lowLink = new int[n];
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] frameVertex = new int[n];
+        int[] frameEdge = new int[n];
+        int visited = 0;
+        int components = 0;
+        for (int root = 0; root < n; root++) {
+            if (order[root] != 0) {
+                continue;
+            }
+            int depth = 0;
+            frameVertex[0] = root;
+            frameEdge[0] = graph.outStart(root);
+            order[root] = lowLink[root] = ++visited;
+            stack[stackSize++] = root;
+            while (depth >= 0) {
+                int u = frameVertex[depth];
+                if (frameEdge[depth] < graph.outEnd(u)) {
+                    int v = graph.outTarget(frameEdge[depth]++);
+                    if (order[v] == 0) {
+                        depth++;
+                        frameVertex[depth] = v;
+                        frameEdge[depth] = graph.outStart(v);
+                        order[v] = lowLink[v] = ++visited;
+                        stack[stackSize++] = v;
+                    } else if (component[v] < 0) {
+                        // v is still on the stack, so it is in the component of some vertex on the search path
+                        lowLink[u] = Math.min(lowLink[u], order[v]);
+                    }
+                    continue;
+                }
+                if (lowLink[u] == order[u]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        component[w] = components;
+                    } while (w != u);
+                    components++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = frameVertex[depth];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[u]);
+                }
+            }
+        }
+        return component;
+    }
+
+}
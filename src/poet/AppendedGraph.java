@@ -0,0 +1,250 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+import graph.CsrGraph;
+import graph.Graph;
+import graph.MappedGraph;
+import graph.ObjIntPredicate;
+
+/**
+ * Mutable and thread safe for one writer and any number of readers.
+ * A word affinity graph that grows: a frozen or mapped base graph, plus the edge weights added since it was built.
+ *
+ * <p>Added weights are kept in hash maps of their own, by source and by target, so adding a bigram costs the same
+ * however large the base graph is, and the neighbours of a word that gained no edges are read straight from the
+ * base graph. Weights can only grow: set() and remove() throw UnsupportedOperationException, and so does
+ * addToWeight() with a negative delta. Once the added edges are many, freezing this graph folds them into a new
+ * base; see addedEdgeCount().
+ *
+ * <p>Readers never lock and may run during a write: they see every write that completed before they started, and
+ * an edge being added may be seen from its source before its target.
+ */
+class AppendedGraph implements Graph<String> {
+
+    private final Graph<String> base;
+    private final ToIntFunction<String> baseIds;
+    private final int baseVertexCount;
+    private final int baseEdgeCount;
+    private final Map<String, Map<String, Integer>> addedTargets = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Integer>> addedSources = new ConcurrentHashMap<>();
+    private final Set<String> addedVertices = ConcurrentHashMap.newKeySet();
+    private int addedEdgeCount = 0;
+    private int newEdgeCount = 0;
+
+    // Abstraction function:
+    //   Represents the graph with vertices base.vertices() + addedVertices and, for every pair (s, t), an edge of
+    //   weight base.weight(s, t) + addedTargets.get(s).get(t) (a missing entry counting as 0), if positive
+    // Representation invariant:
+    //   addedTargets.get(s).get(t) == addedSources.get(t).get(s) > 0 for every added edge, once written
+    //   addedVertices holds no vertex of base, and holds both ends of every added edge that is not in base
+    //   addedEdgeCount is the number of added edges; newEdgeCount the number of them that are not in base
+    //   base weights plus added weights are at most Integer.MAX_VALUE
+    // Safety from rep exposure:
+    //   All fields are private final or ints, base is immutable, and observers return new maps and sets
+    // Thread safety argument:
+    //   Writers are serialized by the lock of this graph. The maps and set are concurrent, so readers never see
+    //   them in an inconsistent state; an added weight is one Integer replaced atomically.
+
+    /**
+     * Create a graph that grows from a base graph, without copying it.
+     * @param base frozen (CsrGraph) or mapped (MappedGraph) word affinity graph
+     */
+    AppendedGraph(Graph<String> base) {
+        this.base = base;
+        if (base instanceof MappedGraph) {
+            MappedGraph mapped = (MappedGraph) base;
+            this.baseIds = mapped::id;
+            this.baseVertexCount = mapped.vertexCount();
+            this.baseEdgeCount = mapped.edgeCount();
+        } else {
+            CsrGraph<String> frozen = (CsrGraph<String>) base;
+            this.baseIds = frozen::id;
+            this.baseVertexCount = frozen.vertexCount();
+            this.baseEdgeCount = frozen.edgeCount();
+        }
+    }
+
+    /**
+     * @return number of edges of the base graph
+     */
+    int baseEdgeCount() {
+        return baseEdgeCount;
+    }
+
+    /**
+     * @return number of edges whose weight grew since the base graph was built, whether or not they are in it
+     */
+    synchronized int addedEdgeCount() {
+        return addedEdgeCount;
+    }
+
+    @Override
+    public synchronized boolean add(String vertex) {
+        if (baseIds.applyAsInt(vertex) >= 0) {
+            return false;
+        }
+        return addedVertices.add(vertex);
+    }
+
+    /**
+     * Appended graphs only grow.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public int set(String source, String target, int weight) {
+        throw new UnsupportedOperationException("appended graph can only grow");
+    }
+
+    /**
+     * Add to the weight of an edge, in time independent of the size of the base graph.
+     * @throws UnsupportedOperationException if delta is negative
+     * @throws IllegalArgumentException if the new weight would be more than Integer.MAX_VALUE
+     */
+    @Override
+    public synchronized int addToWeight(String source, String target, int delta) {
+        if (delta < 0) {
+            throw new UnsupportedOperationException("appended graph can only grow");
+        }
+        int baseWeight = base.weight(source, target);
+        int added = added(addedTargets, source, target);
+        if ((long) baseWeight + added + delta > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("weight of edge " + source + " -> " + target + " overflows");
+        }
+        if (delta == 0) {
+            return baseWeight + added;
+        }
+        if (added == 0) {
+            addedEdgeCount++;
+            if (baseWeight == 0) {
+                newEdgeCount++;
+                add(source);
+                add(target);
+            }
+        }
+        addedTargets.computeIfAbsent(source, s -> new ConcurrentHashMap<>()).put(target, added + delta);
+        addedSources.computeIfAbsent(target, t -> new ConcurrentHashMap<>()).put(source, added + delta);
+        return baseWeight + added + delta;
+    }
+
+    /**
+     * Appended graphs only grow.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean remove(String vertex) {
+        throw new UnsupportedOperationException("appended graph can only grow");
+    }
+
+    @Override
+    public Set<String> vertices() {
+        Set<String> vertices = new HashSet<>(base.vertices());
+        vertices.addAll(addedVertices);
+        return vertices;
+    }
+
+    @Override
+    public Map<String, Integer> sources(String target) {
+        return merged(base.sources(target), addedSources.get(target));
+    }
+
+    @Override
+    public Map<String, Integer> targets(String source) {
+        return merged(base.targets(source), addedTargets.get(source));
+    }
+
+    @Override
+    public int weight(String source, String target) {
+        return base.weight(source, target) + added(addedTargets, source, target);
+    }
+
+    @Override
+    public void forEachTarget(String source, ObjIntConsumer<? super String> action) {
+        forEachWhile(source, addedTargets.get(source), (target, weight) -> {
+            action.accept(target, weight);
+            return true;
+        }, true);
+    }
+
+    @Override
+    public void forEachSource(String target, ObjIntConsumer<? super String> action) {
+        forEachWhile(target, addedSources.get(target), (source, weight) -> {
+            action.accept(source, weight);
+            return true;
+        }, false);
+    }
+
+    @Override
+    public boolean forEachTargetWhile(String source, ObjIntPredicate<? super String> action) {
+        return forEachWhile(source, addedTargets.get(source), action, true);
+    }
+
+    @Override
+    public boolean forEachSourceWhile(String target, ObjIntPredicate<? super String> action) {
+        return forEachWhile(target, addedSources.get(target), action, false);
+    }
+
+    /**
+     * Visit the neighbours of a vertex, those of the base graph with their added weight then the new ones, until
+     * action returns false.
+     * @param vertex a label
+     * @param added added weights of the edges of vertex, or null if it has none
+     * @param action called at most once with each neighbour and total edge weight
+     * @param out true to visit targets, false to visit sources
+     * @return true if every neighbour was visited
+     */
+    private boolean forEachWhile(String vertex, Map<String, Integer> added, ObjIntPredicate<? super String> action,
+                                 boolean out) {
+        if (added == null) {
+            return out ? base.forEachTargetWhile(vertex, action) : base.forEachSourceWhile(vertex, action);
+        }
+        ObjIntPredicate<String> withAdded = (neighbour, weight) ->
+                action.test(neighbour, weight + added.getOrDefault(neighbour, 0));
+        if (!(out ? base.forEachTargetWhile(vertex, withAdded) : base.forEachSourceWhile(vertex, withAdded))) {
+            return false;
+        }
+        for (Map.Entry<String, Integer> edge : added.entrySet()) {
+            String neighbour = edge.getKey();
+            int baseWeight = out ? base.weight(vertex, neighbour) : base.weight(neighbour, vertex);
+            if (baseWeight == 0 && !action.test(neighbour, edge.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a new map with the base weights plus the added ones
+     */
+    private static Map<String, Integer> merged(Map<String, Integer> base, Map<String, Integer> added) {
+        Map<String, Integer> result = new HashMap<>(base);
+        if (added != null) {
+            added.forEach((neighbour, weight) -> result.merge(neighbour, weight, Integer::sum));
+        }
+        return result;
+    }
+
+    /**
+     * @return the weight added to the edge from source to target, or zero
+     */
+    private static int added(Map<String, Map<String, Integer>> addedTargets, String source, String target) {
+        Map<String, Integer> targets = addedTargets.get(source);
+        return targets == null ? 0 : targets.getOrDefault(target, 0);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "Graph contains " + (baseVertexCount + addedVertices.size()) + " vertices and "
+                + (baseEdgeCount + newEdgeCount) + " edges";
+    }
+
+}
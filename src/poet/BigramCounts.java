@@ -0,0 +1,128 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.Arrays;
+
+/**
+ * Mutable.
+ * Counts of adjacent pairs of word ids (bigrams), in an open-addressed table of primitive longs and ints.
+ */
+final class BigramCounts {
+
+    /**
+     * Receives the entries of a BigramCounts.
+     */
+    interface Visitor {
+        /**
+         * @param from id of the first word of the bigram
+         * @param to id of the second word of the bigram
+         * @param count number of times the bigram was counted, positive
+         */
+        void accept(int from, int to, int count);
+    }
+
+    private static final long EMPTY = -1L;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys = new long[MIN_CAPACITY];
+    private int[] counts = new int[MIN_CAPACITY];
+    private int size = 0;
+
+    // Abstraction function:
+    //   Represents the counts {(keys[i] >>> 32, keys[i] & 0xffffffff) -> counts[i] | keys[i] != EMPTY}
+    // Representation invariant:
+    //   keys.length == counts.length is a power of two and at least twice size
+    //   counts[i] > 0 iff keys[i] != EMPTY
+    //   each key is reachable by probing forward from its home slot without crossing an empty slot
+    // Safety from rep exposure:
+    //   All fields are private and never returned
+
+    /**
+     * Create empty counts.
+     */
+    BigramCounts() {
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Add to the count of a bigram.
+     * @param from id of the first word, nonnegative
+     * @param to id of the second word, nonnegative
+     * @param delta positive amount to add
+     * @return the new count of the bigram
+     * @throws ArithmeticException if the new count would be more than Integer.MAX_VALUE, in which case the count
+     *         is unchanged
+     */
+    int add(int from, int to, int delta) {
+        long key = ((long) from << 32) | to;
+        int mask = keys.length - 1;
+        int slot = home(key, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                counts[slot] = Math.addExact(counts[slot], delta);
+                return counts[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        size++;
+        if (size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return delta;
+    }
+
+    /**
+     * @return number of distinct bigrams counted
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Call visitor on every bigram, in no particular order.
+     * @param visitor called with each bigram and its count
+     */
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.accept((int) (keys[i] >>> 32), (int) keys[i], counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Rehash all entries into tables of the given capacity.
+     * @param capacity new power-of-two capacity
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = home(oldKeys[i], mask);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /**
+     * @return first slot to probe for key in a table of length mask + 1
+     */
+    private static int home(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+}
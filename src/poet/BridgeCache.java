@@ -0,0 +1,185 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+
+/**
+ * Mutable and thread safe.
+ * A size-bounded cache from a pair of lower case words (w1, w2) to what is known about the bridges between them:
+ * the best bridge word ("" if none) or a bridge sampler.
+ * The cache is split into segments by key hash; each segment is an access-ordered map that evicts its least
+ * recently used entry when full and is locked independently, so threads working on different pairs rarely wait
+ * for each other.
+ *
+ * <p>Values are computed without holding any lock. A value whose computation started before an invalidation may
+ * have been computed from the state the invalidation was for, so it is returned but not cached.
+ *
+ * @param <V> type of the cached values, must be immutable
+ */
+class BridgeCache<V> {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final List<Segment> segments;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder totalLoadTimeNanos = new LongAdder();
+    private volatile long generation = 0;
+
+    // Abstraction function:
+    //   Represents the union of the segment maps, keyed by "w1 w2" (words never contain whitespace),
+    //   together with the counters reported by stats()
+    // Representation invariant:
+    //   each key is in the segment chosen by its hash, and each segment holds at most its capacity entries
+    //   generation is the number of invalidations so far
+    // Safety from rep exposure:
+    //   All fields are private final or a long, keys are immutable Strings and values are immutable
+    // Thread safety argument:
+    //   Each segment is guarded by its own lock. generation only changes while every segment lock is held, so a
+    //   thread holding one segment lock sees it constant; get() reads it under the lock of its segment before
+    //   loading and only caches the loaded value, under the same lock, if it has not changed since.
+
+    /**
+     * Create an empty cache.
+     * @param maximumSize maximum number of pairs in the cache, must be positive
+     */
+    BridgeCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximum size must be positive: " + maximumSize);
+        }
+        int segmentCount = Math.min(SEGMENT_COUNT, maximumSize);
+        segments = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            int capacity = maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0);
+            segments.add(new Segment(capacity));
+        }
+    }
+
+    /**
+     * Get the value for a pair of words, computing it with loader if the pair is not cached.
+     * @param fromLC lower case first word
+     * @param toLC lower case second word
+     * @param loader computes the value for a pair of words, never null
+     * @return the value for the pair of words
+     */
+    V get(String fromLC, String toLC, BiFunction<String, String, V> loader) {
+        String key = fromLC + " " + toLC;
+        Segment segment = segmentFor(key);
+        V value;
+        long loadGeneration;
+        synchronized (segment) {
+            value = segment.get(key);
+            loadGeneration = generation;
+        }
+        if (value != null) {
+            hitCount.increment();
+            return value;
+        }
+        missCount.increment();
+        long start = System.nanoTime();
+        value = loader.apply(fromLC, toLC);
+        totalLoadTimeNanos.add(System.nanoTime() - start);
+        synchronized (segment) {
+            if (generation == loadGeneration) {
+                segment.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Remove every pair from the cache, including those being computed now. The counters are kept.
+     */
+    void invalidateAll() {
+        withAllSegmentsLocked(0, () -> {
+            for (Segment segment : segments) {
+                segment.clear();
+            }
+        });
+    }
+
+    /**
+     * Remove the pairs of words that match a condition from the cache - O(size of the cache). Pairs being
+     * computed now are not cached, whether they match or not. The counters are kept.
+     * @param stale called with the lower case words of each cached pair; true removes the pair
+     */
+    void invalidateIf(BiPredicate<String, String> stale) {
+        withAllSegmentsLocked(0, () -> {
+            for (Segment segment : segments) {
+                segment.keySet().removeIf(key -> {
+                    int space = key.indexOf(' ');
+                    return stale.test(key.substring(0, space), key.substring(space + 1));
+                });
+            }
+        });
+    }
+
+    /**
+     * Run an invalidation while holding the locks of every segment from first on, in order, and start a new
+     * generation.
+     * @param first index of the first segment to lock
+     * @param invalidation removes pairs from the segments
+     */
+    private void withAllSegmentsLocked(int first, Runnable invalidation) {
+        if (first == segments.size()) {
+            invalidation.run();
+            generation++;
+            return;
+        }
+        synchronized (segments.get(first)) {
+            withAllSegmentsLocked(first + 1, invalidation);
+        }
+    }
+
+    /**
+     * @return a snapshot of the counters of this cache
+     */
+    BridgeCacheStats stats() {
+        return new BridgeCacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), totalLoadTimeNanos.sum());
+    }
+
+    /**
+     * @param key a cache key
+     * @return the segment that holds key
+     */
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return segments.get((hash >>> 16) % segments.size());
+    }
+
+    /**
+     * An access-ordered map that evicts its least recently used entry beyond its capacity.
+     * Guarded by its own lock.
+     */
+    private final class Segment extends LinkedHashMap<String, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+            if (size() > capacity) {
+                evictionCount.increment();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
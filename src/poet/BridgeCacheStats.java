@@ -0,0 +1,94 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+/**
+ * Immutable.
+ * A snapshot of the counters of a GraphPoet bridge word cache.
+ */
+public final class BridgeCacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long totalLoadTimeNanos;
+
+    // Abstraction function:
+    //   Represents the cache counters at the time the snapshot was taken
+    // Representation invariant:
+    //   all counters are nonnegative
+    // Safety from rep exposure:
+    //   All fields are private final primitives
+
+    /**
+     * Create a snapshot of cache counters.
+     * @param hitCount number of lookups answered by the cache
+     * @param missCount number of lookups that had to find the bridge in the graph
+     * @param evictionCount number of entries removed to respect the maximum size
+     * @param totalLoadTimeNanos total time spent finding bridges on misses, in nanoseconds
+     */
+    BridgeCacheStats(long hitCount, long missCount, long evictionCount, long totalLoadTimeNanos) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.totalLoadTimeNanos = totalLoadTimeNanos;
+        checkRep();
+    }
+
+    // Check rep invariant
+    private void checkRep() {
+        assert hitCount >= 0 && missCount >= 0 && evictionCount >= 0 && totalLoadTimeNanos >= 0
+                : "Negative counter";
+    }
+
+    /**
+     * @return number of lookups answered by the cache
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return number of lookups that had to find the bridge in the graph
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * @return number of entries removed to respect the maximum size
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return total time spent finding bridges on misses, in nanoseconds
+     */
+    public long totalLoadTimeNanos() {
+        return totalLoadTimeNanos;
+    }
+
+    /**
+     * @return fraction of lookups answered by the cache, or 1 if there were no lookups
+     */
+    public double hitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * @return average time spent finding a bridge on a miss, in nanoseconds, or 0 if there were no misses
+     */
+    public double averageLoadPenaltyNanos() {
+        return missCount == 0 ? 0.0 : (double) totalLoadTimeNanos / missCount;
+    }
+
+    @Override
+    public String toString() {
+        return "Bridge cache: " + hitCount + " hits, " + missCount + " misses, " + evictionCount + " evictions, "
+                + totalLoadTimeNanos + " ns loading";
+    }
+
+}
@@ -0,0 +1,334 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.Arrays;
+
+import graph.CsrGraph;
+
+/**
+ * Mutable.
+ * An index from a pair of words (w1, w2) to the best bridge word b between them, the one that maximizes
+ * weight(w1, b) + weight(b, w2) in a frozen word affinity graph. Ties go to the lexicographically smallest bridge,
+ * as in every other bridge search of GraphPoet, so the result does not depend on vertex ids. With a word
+ * importance ranking, the best bridge is the one of highest score instead, ties going to the more important
+ * bridge, then to the smallest word; see WordImportance.isBetter().
+ *
+ * <p>The index is either complete, built eagerly from every two-edge path of the graph, or lazy, filled as pairs
+ * are looked up. It never uses more memory than a budget: an eager build that would exceed the budget is
+ * abandoned and the index becomes lazy, and a lazy index that is full computes further pairs on demand without
+ * remembering them. The budget covers everything the index allocates besides a minimal table: the importance of
+ * every vertex, the per-vertex scratch arrays of an eager build, and the old and new tables while they are
+ * resized; it does not cover the frozen graph, which the index shares.
+ *
+ * <p>Thread-safe once it has been safely published after buildEagerly(): a complete index is never modified again
+ * and is read without locking, and a lazy index searches the graph without locking and only locks to read and
+ * fill its tables.
+ */
+class BridgeIndex {
+
+    /** Result of a lookup for a pair of words without a bridge. */
+    static final long NO_BRIDGE = -1L << 32;
+
+    private static final long EMPTY = -1L;
+    private static final int BYTES_PER_SLOT = 2 * Long.BYTES;
+    private static final int MIN_CAPACITY = 16;
+    /** Bytes per vertex of the scratch arrays of buildEagerly(): the best bridge to it and a touched list. */
+    private static final int SCRATCH_BYTES_PER_VERTEX = Long.BYTES + Integer.BYTES;
+
+    private final CsrGraph<String> graph;
+    private final WordImportance ranking;
+    private final double[] importance;
+    private final long memoryBudgetBytes;
+    private final int maxCapacity;
+    private long[] keys;
+    private long[] values;
+    private int size = 0;
+    private boolean complete = false;
+
+    // Abstraction function:
+    //   Represents the map {pair(keys[i]) -> bridge(values[i]) | keys[i] != EMPTY} where pair(k) is the pair of
+    //   vertex ids (k >>> 32, k & 0xffffffff) and bridge(v) is the bridge id (v >> 32) and the two-edge path
+    //   weight (v & 0xffffffff, unsigned: the sum of two positive ints is below 2^32), or no bridge if
+    //   v == NO_BRIDGE. If complete, every pair missing from the map
+    //   has no bridge.
+    // Representation invariant:
+    //   keys.length == values.length is a power of two, at most maxCapacity, and size <= keys.length / 2
+    //   maxCapacity is MIN_CAPACITY, or the importance array, the scratch arrays of an eager build and the tables
+    //   of capacity maxCapacity / 2 and maxCapacity together take at most memoryBudgetBytes
+    //   each value is the best bridge of its pair in graph, by weight if ranking is null, otherwise by ranking
+    //   importance is null iff ranking is; otherwise importance[v] is the importance of vertex v in ranking
+    //   each key is reachable by probing forward from its home slot without crossing an empty slot
+    // Safety from rep exposure:
+    //   All fields are private, graph and ranking are immutable and the arrays are never returned
+    // Thread safety argument:
+    //   buildEagerly() runs before the index is shared. Afterwards, if complete, no field is ever written again.
+    //   Otherwise the tables and size are only read and written while holding the lock of this index; searches
+    //   only read the immutable graph, and a pair searched by two threads at once is inserted only once.
+
+    /**
+     * Create an empty, lazy index over a frozen graph.
+     * @param graph frozen word affinity graph
+     * @param memoryBudgetBytes maximum number of bytes used by this index
+     * @param ranking ranking of the bridges, or null to rank them by weight only
+     */
+    BridgeIndex(CsrGraph<String> graph, long memoryBudgetBytes, WordImportance ranking) {
+        this.graph = graph;
+        this.ranking = ranking;
+        if (ranking == null) {
+            this.importance = null;
+        } else {
+            this.importance = new double[graph.vertexCount()];
+            for (int v = 0; v < importance.length; v++) {
+                importance[v] = ranking.importance(graph.label(v));
+            }
+        }
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        long vertexBytes = (long) graph.vertexCount()
+                * (SCRATCH_BYTES_PER_VERTEX + (importance == null ? 0 : Double.BYTES));
+        // growing to capacity c holds the tables of capacity c / 2 and c at once: 3 / 2 * c slots
+        long tableBudget = (memoryBudgetBytes - vertexBytes) * 2 / 3;
+        this.maxCapacity = Integer.highestOneBit((int) Math.min(1 << 30,
+                Math.max(MIN_CAPACITY, tableBudget / BYTES_PER_SLOT)));
+        allocate(Math.min(MIN_CAPACITY, maxCapacity));
+    }
+
+    /**
+     * Try to fill this index with the best bridge of every pair of words joined by a two-edge path.
+     * If that would exceed the memory budget the index is cleared and stays lazy.
+     * @return true if the index is now complete
+     */
+    boolean buildEagerly() {
+        long[] best = new long[graph.vertexCount()];
+        int[] touched = new int[graph.vertexCount()];
+        for (int from = 0; from < graph.vertexCount(); from++) {
+            int touchedCount = 0;
+            for (int i = graph.outStart(from); i < graph.outEnd(from); i++) {
+                int bridge = graph.outTarget(i);
+                int weightIn = graph.outWeight(i);
+                for (int j = graph.outStart(bridge); j < graph.outEnd(bridge); j++) {
+                    int to = graph.outTarget(j);
+                    long pathWeight = (long) weightIn + graph.outWeight(j);
+                    if (best[to] == 0) {
+                        touched[touchedCount++] = to;
+                        best[to] = pack(bridge, pathWeight);
+                    } else if (isBetter(bridge, pathWeight, best[to])) {
+                        best[to] = pack(bridge, pathWeight);
+                    }
+                }
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                int to = touched[t];
+                if (!insert(key(from, to), best[to])) {
+                    allocate(Math.min(MIN_CAPACITY, maxCapacity));
+                    return false;
+                }
+                best[to] = 0;
+            }
+        }
+        complete = true;
+        return true;
+    }
+
+    /**
+     * Find the best bridge between two words.
+     * @param from id of the first word in graph
+     * @param to id of the second word in graph
+     * @return a value v such that bridgeOf(v) is the id of the best bridge and weightOf(v) the weight of its
+     *         two-edge path, or NO_BRIDGE if there is no two-edge path from the first word to the second
+     */
+    long lookup(int from, int to) {
+        long key = key(from, to);
+        if (complete) {
+            long value = find(key);
+            return value == EMPTY ? NO_BRIDGE : value;
+        }
+        synchronized (this) {
+            long value = find(key);
+            if (value != EMPTY) {
+                return value;
+            }
+        }
+        long value = search(from, to);
+        synchronized (this) {
+            if (find(key) == EMPTY) {
+                insert(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Probe the tables for a key.
+     * @param key pair of word ids
+     * @return the value of key, or EMPTY if key is not in the index
+     */
+    private long find(long key) {
+        int mask = keys.length - 1;
+        for (int slot = home(key, mask); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * @return the frozen graph whose vertex ids this index holds
+     */
+    CsrGraph<String> graph() {
+        return graph;
+    }
+
+    /**
+     * @return the maximum number of bytes used by this index, as given when it was created
+     */
+    long memoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+    /**
+     * @return true if every pair with a bridge is in the index
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return number of pairs in the index
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param value result of lookup() other than NO_BRIDGE
+     * @return id of the bridge word
+     */
+    static int bridgeOf(long value) {
+        return (int) (value >> 32);
+    }
+
+    /**
+     * @param value result of lookup() other than NO_BRIDGE
+     * @return weight of the two-edge path through the bridge word
+     */
+    static long weightOf(long value) {
+        return value & 0xffffffffL;
+    }
+
+    /**
+     * Search the targets of a word for the best bridge to another word.
+     * @param from id of the first word
+     * @param to id of the second word
+     * @return best bridge as returned by lookup()
+     */
+    private long search(int from, int to) {
+        long result = NO_BRIDGE;
+        for (int i = graph.outStart(from); i < graph.outEnd(from); i++) {
+            int bridge = graph.outTarget(i);
+            int weightOut = graph.weight(bridge, to);
+            if (weightOut > 0) {
+                long pathWeight = (long) graph.outWeight(i) + weightOut;
+                if (result == NO_BRIDGE || isBetter(bridge, pathWeight, result)) {
+                    result = pack(bridge, pathWeight);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compare a bridge with the best bridge found so far.
+     * @param bridge id of the bridge word
+     * @param pathWeight weight of the two-edge path through it
+     * @param best best bridge so far, as returned by lookup(), other than NO_BRIDGE
+     * @return true if the bridge ranks strictly above best
+     */
+    private boolean isBetter(int bridge, long pathWeight, long best) {
+        int bestBridge = bridgeOf(best);
+        if (ranking == null) {
+            return WordImportance.isBetter(pathWeight, 0, graph.label(bridge),
+                    weightOf(best), 0, graph.label(bestBridge));
+        }
+        return WordImportance.isBetter(ranking.score(pathWeight, importance[bridge]), importance[bridge],
+                graph.label(bridge), ranking.score(weightOf(best), importance[bestBridge]), importance[bestBridge],
+                graph.label(bestBridge));
+    }
+
+    /**
+     * Insert a key that is not in the index yet, growing the tables within the budget.
+     * @param key pair of word ids
+     * @param value best bridge of the pair
+     * @return false if the tables are full and the key was not inserted
+     */
+    private boolean insert(long key, long value) {
+        if ((size + 1) * 2 > keys.length) {
+            if (keys.length >= maxCapacity) {
+                return false;
+            }
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = home(key, mask);
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * Rehash all entries into tables of the given capacity.
+     * @param capacity new power-of-two capacity
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Replace the tables with empty ones of the given capacity.
+     * @param capacity power-of-two capacity
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * @return key of the pair of word ids (from, to)
+     */
+    private static long key(int from, int to) {
+        return ((long) from << 32) | (to & 0xffffffffL);
+    }
+
+    /**
+     * @param bridge id of a bridge word
+     * @param weight weight of its two-edge path, positive and below 2^32
+     * @return value for the bridge word and the weight of its two-edge path
+     */
+    private static long pack(int bridge, long weight) {
+        return ((long) bridge << 32) | weight;
+    }
+
+    /**
+     * @return first slot to probe for key in tables of length mask + 1
+     */
+    private static int home(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+}
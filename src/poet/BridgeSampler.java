@@ -0,0 +1,130 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import graph.Graph;
+
+/**
+ * Immutable.
+ * Draws a bridge word between a pair of words (w1, w2) at random, each bridge b with probability proportional to
+ * its two-edge path weight weight(w1, b) + weight(b, w2).
+ *
+ * <p>The sampler is an alias table (Vose's method): building it visits the targets of w1 once and takes O(d)
+ * time for d bridges, and every draw afterwards takes O(1) time, one random column and one biased coin,
+ * without looking at the graph again.
+ */
+final class BridgeSampler {
+
+    /** Sampler of a pair of words without bridges. */
+    static final BridgeSampler NONE = new BridgeSampler(new String[0], new double[0], new int[0]);
+
+    private final String[] bridges;
+    private final double[] keep;
+    private final int[] alias;
+
+    // Abstraction function:
+    //   Represents the distribution where bridges[i] has probability (keep[i] + sum of (1 - keep[j]) over every j
+    //   with alias[j] == i and j != i) / bridges.length
+    // Representation invariant:
+    //   bridges, keep and alias have the same length; 0 <= keep[i] <= 1 and 0 <= alias[i] < bridges.length
+    // Safety from rep exposure:
+    //   All fields are private final, arrays are never returned and Strings are immutable
+
+    private BridgeSampler(String[] bridges, double[] keep, int[] alias) {
+        this.bridges = bridges;
+        this.keep = keep;
+        this.alias = alias;
+    }
+
+    /**
+     * Build the sampler of a pair of words.
+     * @param graph word affinity graph, not modified while the sampler is built
+     * @param from lower case first word
+     * @param to lower case second word
+     * @return a sampler of the bridges between from and to
+     */
+    static BridgeSampler of(Graph<String> graph, String from, String to) {
+        List<String> bridgeList = new ArrayList<>();
+        long[][] weights = { new long[8] };
+        graph.forEachTarget(from, (bridge, weightIn) -> {
+            int weightOut = graph.weight(bridge, to);
+            if (weightOut > 0) {
+                if (bridgeList.size() == weights[0].length) {
+                    weights[0] = Arrays.copyOf(weights[0], 2 * weights[0].length);
+                }
+                weights[0][bridgeList.size()] = (long) weightIn + weightOut;
+                bridgeList.add(bridge);
+            }
+        });
+        int n = bridgeList.size();
+        if (n == 0) {
+            return NONE;
+        }
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += weights[0][i];
+        }
+        // scale the probabilities so that their mean is 1, then pair every column below 1 with one above
+        double[] keep = new double[n];
+        int[] alias = new int[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            keep[i] = weights[0][i] * n / total;
+            alias[i] = i;
+            if (keep[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int lower = small[--smallCount];
+            int upper = large[--largeCount];
+            alias[lower] = upper;
+            keep[upper] -= 1 - keep[lower];
+            if (keep[upper] < 1) {
+                small[smallCount++] = upper;
+            } else {
+                large[largeCount++] = upper;
+            }
+        }
+        // whatever is left is 1 up to rounding
+        for (int i = 0; i < largeCount; i++) {
+            keep[large[i]] = 1;
+        }
+        for (int i = 0; i < smallCount; i++) {
+            keep[small[i]] = 1;
+        }
+        return new BridgeSampler(bridgeList.toArray(new String[0]), keep, alias);
+    }
+
+    /**
+     * @return number of bridges this sampler draws from
+     */
+    int size() {
+        return bridges.length;
+    }
+
+    /**
+     * Draw a bridge.
+     * @param random source of randomness
+     * @return a bridge drawn with probability proportional to its two-edge path weight, or "" if there is none
+     */
+    String sample(Random random) {
+        if (bridges.length == 0) {
+            return "";
+        }
+        int column = random.nextInt(bridges.length);
+        return random.nextDouble() < keep[column] ? bridges[column] : bridges[alias[column]];
+    }
+
+}
@@ -0,0 +1,123 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Splits a corpus file, or text appended to one, into words while streaming it through fixed-size buffers, so memory use does not depend
+ * on the size of the file. Words are maximal runs of non-whitespace characters, where whitespace is defined by
+ * {@link Character#isWhitespace(char)} (the same delimiters as {@link java.util.Scanner}), and are found with a
+ * plain character loop rather than a regular expression. Malformed input is replaced, as a Reader would do.
+ */
+final class CorpusTokenizer {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private CorpusTokenizer() {
+        throw new AssertionError("non-instantiable");
+    }
+
+    /**
+     * Call action on every word of a corpus file, in order.
+     * @param corpus text file to read
+     * @param charset encoding of corpus
+     * @param action called with each word, in its original case
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    static void forEachWord(File corpus, Charset charset, Consumer<String> action) throws IOException {
+        try (FileChannel channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ)) {
+            forEachWord(channel, charset, action);
+        }
+    }
+
+    /**
+     * Call action on every word read from a channel until its end, in order.
+     * @param channel channel to read from its current position; not closed
+     * @param charset encoding of the text
+     * @param action called with each word, in its original case
+     * @throws IOException if the channel cannot be read
+     */
+    static void forEachWord(ReadableByteChannel channel, Charset charset, Consumer<String> action)
+            throws IOException {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        StringBuilder word = new StringBuilder();
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            endOfInput = channel.read(bytes) < 0;
+            bytes.flip();
+            CoderResult result;
+            do {
+                result = decoder.decode(bytes, chars, endOfInput);
+                drain(chars, word, action);
+            } while (result.isOverflow());
+            bytes.compact();
+        }
+        CoderResult result;
+        do {
+            result = decoder.flush(chars);
+            drain(chars, word, action);
+        } while (result.isOverflow());
+        if (word.length() > 0) {
+            action.accept(word.toString());
+        }
+    }
+
+    /**
+     * Call action on every word of a stream of text, in order.
+     * @param text text to read until its end; not closed
+     * @param action called with each word, in its original case
+     * @throws IOException if the text cannot be read
+     */
+    static void forEachWord(Reader text, Consumer<String> action) throws IOException {
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        StringBuilder word = new StringBuilder();
+        while (text.read(chars) >= 0) {
+            drain(chars, word, action);
+        }
+        drain(chars, word, action);
+        if (word.length() > 0) {
+            action.accept(word.toString());
+        }
+    }
+
+    /**
+     * Split the decoded characters into words, carrying an unfinished word over to the next buffer.
+     * @param chars decoded characters, in write mode; empty in write mode afterwards
+     * @param word characters of the word in progress
+     * @param action called with each word completed in chars
+     */
+    private static void drain(CharBuffer chars, StringBuilder word, Consumer<String> action) {
+        chars.flip();
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if (Character.isWhitespace(c)) {
+                if (word.length() > 0) {
+                    action.accept(word.toString());
+                    word.setLength(0);
+                }
+            } else {
+                word.append(c);
+            }
+        }
+        chars.clear();
+    }
+
+}
@@ -4,8 +4,25 @@
 package poet;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+import graph.CsrGraph;
 import graph.Graph;
+import graph.GraphBuilder;
+import graph.GraphFile;
+import graph.MappedGraph;
 
 /**
  * A graph-based poetry generator.
@@ -30,7 +47,8 @@ import graph.Graph;
  * insert a bridge word between every adjacent pair of words in the input.
  * The bridge word between input words "w1" and "w2" will be some "b" such that
  * w1 -> b -> w2 is a two-edge-long path with maximum-weight weight among all
- * the two-edge-long paths from w1 to w2 in the affinity graph.
+ * the two-edge-long paths from w1 to w2 in the affinity graph; if several
+ * paths tie, b is the smallest of their middle words in String order.
  * If there are no such paths, no bridge word is inserted.
  * In the output poem, input words retain their original case, while bridge
  * words are lower case. The whitespace between every word in the poem is a
@@ -51,7 +69,19 @@ import graph.Graph;
  */
 public class GraphPoet {
     
-    private final Graph<String> graph = Graph.empty();
+    /** Number of pairs of words whose bridge samplers are cached unless cacheSamplers() says otherwise. */
+    private static final int DEFAULT_SAMPLER_CACHE_SIZE = 10_000;
+    
+    /** Smallest number of appended edges worth folding into a new frozen graph. */
+    private static final int MIN_COMPACTION_EDGES = 1 << 16;
+    
+    private volatile Graph<String> graph;
+    private volatile BridgeIndex bridgeIndex = null;
+    private volatile BridgeCache<String> bridgeCache = null;
+    private volatile BridgeCache<BridgeSampler> samplerCache = new BridgeCache<>(DEFAULT_SAMPLER_CACHE_SIZE);
+    private volatile WordImportance importance = null;
+    private final Object appendLock = new Object();
+    private String lastWord;
     
     // Abstraction function:
     //  GraphPoet consists of a Graph<String> such that vertices are case-insensitive words and edge weights are
@@ -60,53 +90,263 @@ public class GraphPoet {
     //   - We assume that Graph ADT preserves its own invariant, this class only returns a string and
     //     does not exposes any rep.
     // Safety from rep exposure:
-    //   - word affinity graph is private and final
+    //   - word affinity graph is private, and frozen once the corpus is loaded, or an immutable mapped graph;
+    //     appending to the corpus replaces it with an AppendedGraph over the frozen graph, which is only ever
+    //     modified by this class, and is frozen again once the appended edges are many
+    //   - affinityGraph() returns the graph itself, not a copy, and only to this package, whose callers must not
+    //     modify it; that may be the mutable AppendedGraph, which rejects set() and remove() but not add()
+    //   - lastWord is the lower case last word of the corpus and its appends, or null if unknown or none
+    //   - the bridge index is private and only holds vertex ids of its own frozen graph
+    //   - the bridge cache is private and only holds Strings; callers only see immutable snapshots of its counters
+    //   - the sampler cache is private and only holds immutable samplers, which never return their tables
+    //   - the word importance is private and immutable; callers only see the importance of one word at a time
+    //   - the bridge index and cache hold bridges chosen under the current word importance, so changing it must
+    //     rebuild the index and invalidate the cache
+    //   - the graph is only modified by appends, which drop the bridge index and invalidate the cached bridges
+    //     and samplers of every pair whose bridges may have changed; bridges and samplers computed while an
+    //     append runs are not cached, since they may come from the graph before it
     //   - vertices are of type String, which is immutable
+    // Thread safety argument:
+    //   - the graph is immutable once frozen or mapped, and each call to poem() has its own BridgeSearch;
+    //     appends are serialized by appendLock, which guards lastWord, and an AppendedGraph allows one writer
+    //     with concurrent readers, so poems generated during an append may or may not see the appended text
+    //   - indexBridges() and rankBridgesByImportance() also hold appendLock, so they freeze or rank a graph
+    //     that no append is writing, and an append cannot drop the bridge index before they replace it
+    //   - the bridge index and caches are thread-safe and published through volatile fields, so poem() and
+    //     poems() may be called from any number of threads at once
+    //   - bridges() makes its own TopBridgeSearch, poem() with maxBridgeWords and bridgePath() their own
+    //     PathSearch, and samplers are immutable once built
+    //   - the word importance is immutable and published through a volatile field; poems generated while
+    //     rankBridgesByImportance() runs may use the old or the new ranking
+    //   - poem() reads the graph, bridge index and importance afresh on every cache miss, after the bridge cache
+    //     has noted its generation, so a bridge loaded from ones that an append or a ranking replaces meanwhile
+    //     is never cached: the replacement invalidates the cache after it and starts a new generation
     
     /**
-     * Create a new poet with the graph from corpus (as described above).
+     * Create a new poet with the graph from a UTF-8 corpus (as described above).
      * 
      * @param corpus text file from which to derive the poet's affinity graph
      * @throws IOException if the corpus file cannot be found or read
      */
     public GraphPoet(File corpus) throws IOException {
+        this(corpus, StandardCharsets.UTF_8);
+    }
 
-        Scanner corpusReader = null;
-        boolean startOfFile = true;
-        String previousWord = "";
-        int previousWeight;
+    /**
+     * Create a new poet with the graph from corpus (as described above).
+     * The corpus is streamed, so memory use depends on the number of distinct words and adjacencies in it,
+     * not on its size.
+     * 
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @param charset encoding of the corpus file
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public GraphPoet(File corpus, Charset charset) throws IOException {
+        AffinityCounter counter = new AffinityCounter(Graph.builder());
+        CorpusTokenizer.forEachWord(corpus, charset, counter);
+        this.graph = counter.builder.build();
+        this.lastWord = counter.previousWord;
+    }
+    
+    /**
+     * Create a new poet with the graph from a UTF-8 corpus (as described above), reading the corpus through
+     * memory-mapped chunks of the file instead of the heap. Suited to corpora of many gigabytes.
+     * 
+     * @param corpus UTF-8 text file from which to derive the poet's affinity graph
+     * @return a poet with the same graph as {@code new GraphPoet(corpus)}
+     * @throws IOException if the corpus file cannot be found, read or mapped
+     */
+    public static GraphPoet fromMappedCorpus(File corpus) throws IOException {
+        return fromMappedCorpus(corpus, MappedCorpus.DEFAULT_CHUNK_SIZE);
+    }
 
-        try {
-            corpusReader = new Scanner(new BufferedReader(new FileReader(corpus)));
-
-            while (corpusReader.hasNext()) {
-                String newWord = corpusReader.next();
-                newWord = newWord.toLowerCase();
-                if (startOfFile && !newWord.equals("")) {
-                    graph.add(newWord);
-                    previousWord = newWord;
+    /**
+     * Create a new poet from a UTF-8 corpus read through memory-mapped chunks of the given size.
+     * 
+     * @param corpus UTF-8 text file from which to derive the poet's affinity graph
+     * @param chunkSize maximum number of bytes mapped at a time, positive and at most Integer.MAX_VALUE
+     * @return a poet with the same graph as {@code new GraphPoet(corpus)}
+     * @throws IOException if the corpus file cannot be found, read or mapped
+     */
+    static GraphPoet fromMappedCorpus(File corpus, long chunkSize) throws IOException {
+        AffinityCounter counter = new AffinityCounter(Graph.builder());
+        WordDictionary dictionary = new WordDictionary();
+        try (FileChannel channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ)) {
+            MappedCorpus.forEachWord(channel, 0, channel.size(), chunkSize, dictionary,
+                    id -> counter.acceptLowerCase(dictionary.word(id)));
+        }
+        return new GraphPoet(counter.builder.build(), counter.previousWord);
+    }
+
+    /**
+     * Create a new poet with the graph from a UTF-8 corpus (as described above), counting separate parts of the
+     * corpus in parallel on the common fork-join pool.
+     * 
+     * @param corpus UTF-8 text file from which to derive the poet's affinity graph
+     * @return a poet with the same graph as {@code new GraphPoet(corpus)}
+     * @throws IOException if the corpus file cannot be found, read or mapped
+     */
+    public static GraphPoet fromCorpusInParallel(File corpus) throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long rangeCount = Math.min(4L * pool.getParallelism(),
+                Math.max(1, corpus.length() / ParallelCorpus.MIN_RANGE_SIZE));
+        return fromCorpusInParallel(corpus, (int) rangeCount, pool);
+    }
+
+    /**
+     * Create a new poet from a UTF-8 corpus cut into the given number of parts, counted in parallel.
+     * 
+     * @param corpus UTF-8 text file from which to derive the poet's affinity graph
+     * @param rangeCount number of parts to cut the corpus into, positive
+     * @param pool pool that counts the parts
+     * @return a poet with the same graph as {@code new GraphPoet(corpus)}
+     * @throws IOException if the corpus file cannot be found, read or mapped
+     */
+    static GraphPoet fromCorpusInParallel(File corpus, int rangeCount, ForkJoinPool pool) throws IOException {
+        String[] lastWord = { null };
+        CsrGraph<String> graph = ParallelCorpus.count(corpus, rangeCount, pool, word -> lastWord[0] = word);
+        return new GraphPoet(graph, lastWord[0]);
+    }
+
+    /**
+     * Create a new poet from a graph snapshot written by {@link #writeSnapshot(File)}, without reading the corpus.
+     * Loading takes time proportional to the size of the graph, not of the corpus it was built from.
+     * 
+     * @param snapshot graph file written by writeSnapshot()
+     * @return a poet with the same graph as the poet that wrote the snapshot
+     * @throws IOException if the snapshot cannot be read, or is not a graph file of a supported version
+     */
+    public static GraphPoet fromSnapshot(File snapshot) throws IOException {
+        return new GraphPoet(GraphFile.read(snapshot), null);
+    }
+
+    /**
+     * Create a new poet over a memory-mapped graph snapshot written by {@link #writeSnapshot(File)}.
+     * The graph is not loaded: it stays off the heap, in the snapshot file, and is read in place as poems need
+     * it, so the poet is ready at once whatever the size of the graph, and processes that map the same snapshot
+     * share one copy of it. Each bridge search decodes edges from the file, so poems are slower than with
+     * fromSnapshot(), and indexBridges() loads a copy of the graph on the heap.
+     * 
+     * @param snapshot graph file written by writeSnapshot(), which must not be modified while the poet is used
+     * @return a poet with the same graph as the poet that wrote the snapshot
+     * @throws IOException if the snapshot cannot be read or mapped, or is not a graph file of a supported version
+     */
+    public static GraphPoet fromMappedSnapshot(File snapshot) throws IOException {
+        return new GraphPoet(MappedGraph.open(snapshot), null);
+    }
+
+    /**
+     * Write the word affinity graph of this poet to a snapshot file, in the format of {@link GraphFile}.
+     * 
+     * @param snapshot file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void writeSnapshot(File snapshot) throws IOException {
+        GraphFile.write(graph, snapshot);
+    }
+
+    /**
+     * Add text to the end of the corpus of this poet, updating the affinity graph in time proportional to the
+     * length of the text, not of the corpus. The bigram made of the last word of the corpus and the first word of
+     * the text is counted, unless this poet was loaded from a snapshot, which does not record the last word.
+     * The text must start at a word boundary: a word split between the corpus and the text counts as two words.
+     * 
+     * <p>Cached bridges and bridge samplers are dropped only for the pairs of words whose bridges the text may
+     * have changed; the bridge index is dropped, and can be rebuilt with indexBridges(). Word importance is not
+     * recomputed. Once the appended edges amount to a quarter of the graph, the graph is frozen again, which keeps
+     * poems fast and costs time proportional to the graph, so on average appends still cost time proportional to
+     * the text; a mapped graph is then loaded on the heap.
+     * 
+     * @param text text to append, read until its end and not closed; words are delimited as in the corpus
+     * @throws IOException if text cannot be read, in which case the words read before the failure are counted
+     */
+    public void appendCorpus(Reader text) throws IOException {
+        synchronized (appendLock) {
+            AppendCounter counter = startAppend();
+            try {
+                CorpusTokenizer.forEachWord(text, counter);
+            } finally {
+                finishAppend(counter);
+            }
+        }
+    }
+    
+    /**
+     * Add the end of a UTF-8 corpus file to the corpus of this poet, as appendCorpus() does, starting at a byte
+     * offset. Meant for corpora that grow: each call passes the offset returned by the previous call, so each part
+     * of the file is counted once.
+     * 
+     * @param corpus UTF-8 text file
+     * @param fromOffset byte offset of the first byte to read, at a character and word boundary
+     * @return the offset of the end of the file, as read
+     * @throws IllegalArgumentException if fromOffset is negative or past the end of the file
+     * @throws IOException if the file cannot be found or read, in which case the words read before the failure
+     *         are counted
+     */
+    public long ingest(Path corpus, long fromOffset) throws IOException {
+        synchronized (appendLock) {
+            try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+                if (fromOffset < 0 || fromOffset > channel.size()) {
+                    throw new IllegalArgumentException("offset " + fromOffset + " is not in " + corpus);
                 }
-                else if (!newWord.equals("")) {
-                    graph.add(newWord);
-                    if (graph.sources(newWord).containsKey(previousWord)) {
-                        previousWeight = graph.sources(newWord).get(previousWord);
-                        graph.set(previousWord, newWord, ++previousWeight);
-                        previousWord = newWord;
-                    }
-                    else {
-                        graph.set(previousWord, newWord, 1);
-                        previousWord = newWord;
-                    }
+                channel.position(fromOffset);
+                AppendCounter counter = startAppend();
+                try {
+                    CorpusTokenizer.forEachWord(channel, StandardCharsets.UTF_8, counter);
+                } finally {
+                    finishAppend(counter);
                 }
-                startOfFile = false;
-            }
-        } finally {
-            if (corpusReader != null) {
-                corpusReader.close();
+                return channel.position();
             }
         }
     }
     
+    /**
+     * Make the graph appendable and drop the bridge index, which holds bridges of the graph before the append.
+     * Caller holds appendLock.
+     * @return a counter that adds words to the graph, continuing from the last word of the corpus
+     */
+    private AppendCounter startAppend() {
+        Graph<String> current = graph;
+        AppendedGraph appended = current instanceof AppendedGraph
+                ? (AppendedGraph) current : new AppendedGraph(current);
+        bridgeIndex = null;
+        graph = appended;
+        return new AppendCounter(appended, lastWord);
+    }
+    
+    /**
+     * Invalidate the cached bridges of the pairs whose bridges an append may have changed, remember the last
+     * word, and freeze the graph if it has many appended edges. Caller holds appendLock.
+     * @param counter counter of the append
+     */
+    private void finishAppend(AppendCounter counter) {
+        lastWord = counter.previousWord;
+        // a bridge b between w1 and w2 depends on the edges w1 -> b and b -> w2 only
+        Set<String> sources = counter.sources;
+        Set<String> targets = counter.targets;
+        BridgeCache<String> cache = bridgeCache;
+        if (cache != null) {
+            cache.invalidateIf((from, to) -> sources.contains(from) || targets.contains(to));
+        }
+        samplerCache.invalidateIf((from, to) -> sources.contains(from) || targets.contains(to));
+        AppendedGraph appended = counter.graph;
+        if (appended.addedEdgeCount() >= Math.max(MIN_COMPACTION_EDGES, appended.baseEdgeCount() / 4)) {
+            graph = CsrGraph.freeze(appended);
+        }
+    }
+    
+    /**
+     * Create a new poet from a word affinity graph.
+     * @param graph graph whose vertices are lower case words, not modified by this poet; frozen unless it is
+     *              a mapped graph, which is already immutable
+     * @param lastWord lower case last word of the corpus of graph, or null if unknown or none
+     */
+    private GraphPoet(Graph<String> graph, String lastWord) {
+        this.graph = graph instanceof MappedGraph ? graph : CsrGraph.freeze(graph);
+        this.lastWord = lastWord;
+    }
+    
     /**
      * Generate a poem.
      * 
@@ -114,54 +354,481 @@ public class GraphPoet {
      * @return poem (as described above)
      */
     public String poem(String input) {
+        BridgeSearch bridgeSearch = new BridgeSearch();
+        return poem(input, (fromLC, toLC) -> findBridge(fromLC, toLC, bridgeSearch));
+    }
 
-        String outputPoem = "";
+    /**
+     * Generate a poem with randomly chosen bridge words: between each pair of adjacent words w1, w2 of the input
+     * goes a bridge word b drawn with probability proportional to weight(w1, b) + weight(b, w2), or nothing if
+     * there is no bridge. The bridge words of a pair are gathered in a sampler the first time the pair is seen;
+     * later draws for the pair take constant time. See cacheSamplers().
+     * 
+     * @param input string from which to create the poem
+     * @param random source of randomness
+     * @return poem (as described above, with random bridge words)
+     */
+    public String poem(String input, Random random) {
+        return poem(input, (fromLC, toLC) -> sampler(fromLC, toLC).sample(random));
+    }
 
-        List<String> inputAsList = new ArrayList<>(Arrays.asList(input.split(" ")));
-        inputAsList.removeAll(new HashSet<>(Arrays.asList("")));
+    /**
+     * Generate a poem with bridges of up to maxBridgeWords words: between each pair of adjacent words w1, w2 of
+     * the input go the inner words of the maximum-weight path w1 -> b1 -> ... -> bj -> w2 with 1 <= j <=
+     * maxBridgeWords, where the weight of a path is the sum of the weights of its edges. Paths of equal weight
+     * go to the one with fewer bridge words, so poem(input, 1) equals poem(input) unless bridges are ranked by
+     * importance, which only applies to single bridge words, or a pair of words has more edges than the search
+     * of bridgePath() visits. See bridgePath().
+     *
+     * @param input string from which to create the poem
+     * @param maxBridgeWords maximum number of bridge words between two adjacent words, must be positive
+     * @return poem (as described above, with bridges of up to maxBridgeWords words)
+     * @throws IllegalArgumentException if maxBridgeWords is not positive
+     */
+    public String poem(String input, int maxBridgeWords) {
+        PathSearch pathSearch = new PathSearch(graph, maxBridgeWords,
+                PathSearch.DEFAULT_EDGE_BUDGET, PathSearch.DEFAULT_BEAM_WIDTH);
+        return poem(input, (fromLC, toLC) -> String.join(" ", pathSearch.search(fromLC, toLC)));
+    }
 
-        String previousWord = "";
+    /**
+     * Find the bridge words of the maximum-weight path of 2 to maxBridgeWords + 1 edges between two words, the
+     * bridge poem(input, maxBridgeWords) puts between them. A path may go through a word more than once.
+     *
+     * <p>The search is bounded so that its latency stays predictable on words with very many neighbours: it works
+     * from both ends at once, only extends the heaviest partial paths of each length, and stops extending paths
+     * after visiting a fixed number of edges (100,000). The best one-word bridge is found as long as the targets
+     * of w1 and the sources of w2 are no more than that together, but a longer path may be missed on such words.
+     *
+     * @param w1 first word, case-insensitive
+     * @param w2 second word, case-insensitive
+     * @param maxBridgeWords maximum number of bridge words, must be positive
+     * @return the lower case bridge words between w1 and w2 in order, or an empty list if there are none
+     * @throws IllegalArgumentException if maxBridgeWords is not positive
+     */
+    public List<String> bridgePath(String w1, String w2, int maxBridgeWords) {
+        return new PathSearch(graph, maxBridgeWords, PathSearch.DEFAULT_EDGE_BUDGET, PathSearch.DEFAULT_BEAM_WIDTH)
+                .search(w1.toLowerCase(), w2.toLowerCase());
+    }
 
-        for (String currentWord : inputAsList) {
+    /**
+     * Generate a poem with the given choice of bridge words.
+     * @param input string from which to create the poem
+     * @param bridges gives the bridge word between two lower case words, "" for none
+     * @return input with the bridge word inserted between each pair of adjacent words
+     */
+    private String poem(String input, BinaryOperator<String> bridges) {
+        // input words plus bridge words; bridges are rarely longer than the words around them
+        StringBuilder outputPoem = new StringBuilder(input.length() + input.length() / 2);
+        String previousWordLC = null;
 
-            if (inputAsList.indexOf(currentWord) == 0) {
-                outputPoem += currentWord;
+        int length = input.length();
+        int wordStart = 0;
+        while (wordStart < length) {
+            while (wordStart < length && Character.isWhitespace(input.charAt(wordStart))) {
+                wordStart++;
+            }
+            int wordEnd = wordStart;
+            while (wordEnd < length && !Character.isWhitespace(input.charAt(wordEnd))) {
+                wordEnd++;
+            }
+            if (wordEnd == wordStart) {
+                break;
             }
+            String currentWordLC = input.substring(wordStart, wordEnd).toLowerCase();
+            if (previousWordLC != null) {
+                String maxBridgeWord = bridges.apply(previousWordLC, currentWordLC);
+                outputPoem.append(' ');
+                if (!maxBridgeWord.isEmpty()) {
+                    outputPoem.append(maxBridgeWord).append(' ');
+                }
+            }
+            outputPoem.append(input, wordStart, wordEnd);
+            previousWordLC = currentWordLC;
+            wordStart = wordEnd;
+        }
+        return outputPoem.toString();
+    }
 
-            else {
-                String previousWordLC = previousWord.toLowerCase();
-                String currentWordLC = currentWord.toLowerCase();
-
-                boolean pwInGraph = graph.vertices().contains(previousWordLC);
-                boolean cwInGraph = graph.vertices().contains(currentWordLC);
-
-                Set<String> targetsOfpw = graph.targets(previousWordLC).keySet();
-                Set<String> sourcesOfcw = graph.sources(currentWordLC).keySet();
-
-                String maxBridgeWord = "";
-                int maxWeightBridge = 0;
-
-                for (String currentBridgeWord : targetsOfpw) {
-                    int currentWeights = 0;
-                    if (pwInGraph && cwInGraph && sourcesOfcw.contains(currentBridgeWord)) {
-                        currentWeights = graph.sources(currentBridgeWord).get(previousWordLC) +
-                                graph.targets(currentBridgeWord).get(currentWordLC);
-                        if (currentWeights > maxWeightBridge) {
-                            maxWeightBridge = currentWeights;
-                            maxBridgeWord = currentBridgeWord;
-                        }
-                    }
+    /**
+     * Find the best bridge words between two words, the words b with the largest weight(w1, b) + weight(b, w2).
+     * The first of them is the bridge poem() puts between the words. Only the best k candidates are kept while
+     * searching, so this takes O(k) memory however many bridges the words have.
+     * 
+     * @param w1 first word, case-insensitive
+     * @param w2 second word, case-insensitive
+     * @param k maximum number of bridge words, must be positive
+     * @return the lower case bridge words between w1 and w2, at most k of them, best first; between words of equal
+     *         weight, the one poem() would choose first
+     * @throws IllegalArgumentException if k is not positive
+     */
+    public List<String> bridges(String w1, String w2, int k) {
+        return new TopBridgeSearch(graph, importance, k).search(w1.toLowerCase(), w2.toLowerCase());
+    }
+
+    /**
+     * Draw a bridge word between two words, b with probability proportional to weight(w1, b) + weight(b, w2).
+     * 
+     * @param w1 first word, case-insensitive
+     * @param w2 second word, case-insensitive
+     * @param random source of randomness
+     * @return a lower case bridge word between w1 and w2, or "" if there is none
+     */
+    public String sampleBridge(String w1, String w2, Random random) {
+        return sampler(w1.toLowerCase(), w2.toLowerCase()).sample(random);
+    }
+
+    /**
+     * Keep the bridge samplers of at most maximumSize pairs of words, evicting the least recently used pair when
+     * full. Replaces the current samplers; by default, the samplers of 10000 pairs are kept.
+     * 
+     * @param maximumSize maximum number of pairs of words whose samplers are kept, must be positive
+     * @throws IllegalArgumentException if maximumSize is not positive
+     */
+    public void cacheSamplers(int maximumSize) {
+        samplerCache = new BridgeCache<>(maximumSize);
+    }
+
+    /**
+     * Get the bridge sampler of two words, building it if it is not cached.
+     * @param fromLC lower case first word
+     * @param toLC lower case second word
+     * @return the sampler of the bridges between the words
+     */
+    private BridgeSampler sampler(String fromLC, String toLC) {
+        return samplerCache.get(fromLC, toLC, (from, to) -> BridgeSampler.of(graph, from, to));
+    }
+
+    /**
+     * Generate a poem for each of a list of inputs, in parallel on the common fork-join pool.
+     * 
+     * @param inputs strings from which to create poems
+     * @return the poems, in the same order as inputs: element i is {@code poem(inputs.get(i))}
+     */
+    public List<String> poems(List<String> inputs) {
+        return poems(inputs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generate a poem for each of a list of inputs, in parallel on an executor.
+     * The inputs are cut into a few batches per available processor, so that each task is worth scheduling.
+     * 
+     * @param inputs strings from which to create poems
+     * @param executor executor that runs the batches; the calling thread waits for all of them
+     * @return the poems, in the same order as inputs: element i is {@code poem(inputs.get(i))}
+     */
+    public List<String> poems(List<String> inputs, Executor executor) {
+        String[] inputArray = inputs.toArray(new String[0]);
+        String[] outputs = new String[inputArray.length];
+        int batchCount = Math.min(inputArray.length, 4 * Runtime.getRuntime().availableProcessors());
+        CompletableFuture<?>[] batches = new CompletableFuture<?>[batchCount];
+        for (int b = 0; b < batchCount; b++) {
+            int start = (int) ((long) inputArray.length * b / batchCount);
+            int end = (int) ((long) inputArray.length * (b + 1) / batchCount);
+            batches[b] = CompletableFuture.runAsync(() -> {
+                for (int i = start; i < end; i++) {
+                    outputs[i] = poem(inputArray[i]);
                 }
-                if (maxWeightBridge != 0) {
-                    outputPoem += " " + maxBridgeWord + " " + currentWord;
+            }, executor);
+        }
+        try {
+            CompletableFuture.allOf(batches).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+        return Arrays.asList(outputs);
+    }
+
+    /**
+     * Generate a poem for each of a stream of inputs, in parallel.
+     * 
+     * @param inputs strings from which to create poems
+     * @return a parallel stream of the poems; if inputs is ordered, the poems are in the order of their inputs
+     */
+    public Stream<String> poems(Stream<String> inputs) {
+        return inputs.parallel().map(this::poem);
+    }
+
+    /**
+     * Index the best bridge word of pairs of words, so that finding the bridge between a pair of words that is
+     * already indexed is a single hash probe instead of a search of the graph.
+     * The index never uses more than the given memory, counting its tables, the arrays it needs per word and the
+     * transient copies made while it grows, but not the frozen graph it reads; pairs that do not fit are searched
+     * on demand. Waits for an append in progress, and holds off appends while building.
+     * 
+     * @param eager if true, index every pair of words joined by a two-edge path now; otherwise index pairs as
+     *              poems ask for them
+     * @param memoryBudgetBytes maximum number of bytes used by the index
+     * @return true if the index now holds every pair of words (an eager build that fit the budget)
+     */
+    public boolean indexBridges(boolean eager, long memoryBudgetBytes) {
+        synchronized (appendLock) {
+            BridgeIndex index = new BridgeIndex(CsrGraph.freeze(graph), memoryBudgetBytes, importance);
+            boolean complete = eager && index.buildEagerly();
+            bridgeIndex = index;
+            return complete;
+        }
+    }
+
+    /**
+     * Rank bridge words by their importance in the affinity graph as well as by weight. The importance of a word
+     * is its weighted PageRank, computed in parallel over every core, scaled so that the average importance is 1.
+     * A bridge b between w1 and w2 then scores (weight(w1, b) + weight(b, w2)) * importance(b)^exponent: with
+     * exponent 0 bridges still go by weight and importance only breaks ties, which otherwise go to the smallest
+     * word; larger exponents favour important words over heavier paths.
+     * 
+     * <p>poem() and bridges() use the ranking; an existing bridge index is rebuilt and cached bridges are
+     * dropped. Multi-word bridges and sampled bridges still go by weight only. Like indexBridges(), waits for an
+     * append in progress, and holds off appends while ranking.
+     * 
+     * @param exponent influence of importance on the score of a bridge, finite and nonnegative
+     * @throws IllegalArgumentException if exponent is negative or not finite
+     */
+    public void rankBridgesByImportance(double exponent) {
+        synchronized (appendLock) {
+            importance = WordImportance.of(graph, exponent);
+            BridgeIndex index = bridgeIndex;
+            if (index != null) {
+                BridgeIndex ranked = new BridgeIndex(index.graph(), index.memoryBudgetBytes(), importance);
+                if (index.isComplete()) {
+                    ranked.buildEagerly();
                 }
-                else {
-                    outputPoem += " " + currentWord;
+                bridgeIndex = ranked;
+            }
+            BridgeCache<String> cache = bridgeCache;
+            if (cache != null) {
+                cache.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Get the importance of a word, as computed by rankBridgesByImportance().
+     * 
+     * @param word a word, case-insensitive
+     * @return the importance of word, 1 being the average; 0 if word is not in the affinity graph or bridges are
+     *         not ranked by importance
+     */
+    public double importance(String word) {
+        WordImportance ranking = importance;
+        return ranking == null ? 0 : ranking.importance(word.toLowerCase());
+    }
+
+    /**
+     * Cache the bridge words found by poems, keeping at most maximumSize pairs of words and evicting the least
+     * recently used pair when full. Replaces any previous cache and its counters.
+     * 
+     * @param maximumSize maximum number of pairs of words in the cache, must be positive
+     * @throws IllegalArgumentException if maximumSize is not positive
+     */
+    public void cacheBridges(int maximumSize) {
+        bridgeCache = new BridgeCache<>(maximumSize);
+    }
+
+    /**
+     * Get the counters of the bridge word cache.
+     * 
+     * @return hits, misses, evictions and load time of the cache since cacheBridges() was last called;
+     *         all zero if there is no cache
+     */
+    public BridgeCacheStats bridgeCacheStats() {
+        BridgeCache<String> cache = bridgeCache;
+        return cache == null ? new BridgeCacheStats(0, 0, 0, 0) : cache.stats();
+    }
+
+    /**
+     * Find the bridge word between two words, through the cache if there is one.
+     * @param fromLC lower case first word
+     * @param toLC lower case second word
+     * @param bridgeSearch search to use when the pair is not indexed
+     * @return the maximum-weight bridge word between the words, or "" if there is none
+     */
+    private String findBridge(String fromLC, String toLC, BridgeSearch bridgeSearch) {
+        BridgeCache<String> cache = bridgeCache;
+        if (cache != null) {
+            return cache.get(fromLC, toLC, (from, to) -> loadBridge(from, to, bridgeSearch));
+        }
+        return loadBridge(fromLC, toLC, bridgeSearch);
+    }
+
+    /**
+     * Find the bridge word between two words in the bridge index or in the graph, whichever is current, under
+     * the current word importance. Reading them here rather than when a poem starts matters: a poem that runs
+     * while an append or a ranking changes them must not load, and cache, bridges of what they were before.
+     * @param fromLC lower case first word
+     * @param toLC lower case second word
+     * @param bridgeSearch search to use when the pair is not indexed
+     * @return the maximum-weight bridge word between the words, or "" if there is none
+     */
+    private String loadBridge(String fromLC, String toLC, BridgeSearch bridgeSearch) {
+        BridgeIndex index = bridgeIndex;
+        if (index != null) {
+            CsrGraph<String> frozen = index.graph();
+            int from = frozen.id(fromLC);
+            int to = frozen.id(toLC);
+            if (from < 0 || to < 0) {
+                return "";
+            }
+            long bridge = index.lookup(from, to);
+            return bridge == BridgeIndex.NO_BRIDGE ? "" : frozen.label(BridgeIndex.bridgeOf(bridge));
+        }
+        bridgeSearch.search(graph, importance, fromLC, toLC);
+        return bridgeSearch.bestBridge;
+    }
+
+    /**
+     * Mutable.
+     * Counts the adjacencies of a stream of words into a word affinity graph builder, one word at a time.
+     */
+    private static final class AffinityCounter implements Consumer<String> {
+
+        private final GraphBuilder<String> builder;
+        private String previousWord = null;
+
+        /**
+         * Create a counter that adds to a graph builder.
+         * @param builder builder that receives the words and adjacency counts
+         */
+        AffinityCounter(GraphBuilder<String> builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public void accept(String word) {
+            acceptLowerCase(word.toLowerCase());
+        }
+
+        /**
+         * Count the next word of the stream.
+         * @param newWord next word, already in lower case
+         */
+        void acceptLowerCase(String newWord) {
+            if (previousWord == null) {
+                builder.addVertex(newWord);
+            }
+            else {
+                builder.addEdge(previousWord, newWord, 1);
+            }
+            previousWord = newWord;
+        }
+
+    }
+
+    /**
+     * Mutable.
+     * Counts the adjacencies of a stream of appended words into an appended graph, and records which words
+     * gained edges.
+     */
+    private static final class AppendCounter implements Consumer<String> {
+
+        private final AppendedGraph graph;
+        private final Set<String> sources = new HashSet<>();
+        private final Set<String> targets = new HashSet<>();
+        private String previousWord;
+
+        /**
+         * Create a counter that adds to an appended graph.
+         * @param graph graph that receives the words and adjacency counts
+         * @param previousWord lower case word before the first appended word, or null if none
+         */
+        AppendCounter(AppendedGraph graph, String previousWord) {
+            this.graph = graph;
+            this.previousWord = previousWord;
+        }
+
+        @Override
+        public void accept(String word) {
+            String newWord = word.toLowerCase();
+            if (previousWord == null) {
+                graph.add(newWord);
+            } else {
+                graph.addToWeight(previousWord, newWord, 1);
+                sources.add(previousWord);
+                targets.add(newWord);
+            }
+            previousWord = newWord;
+        }
+
+    }
+
+    /**
+     * Mutable.
+     * Finds the maximum-weight bridge word between two words by visiting the targets of the first word, without
+     * copying adjacency maps or boxing weights. One search object is reused for every pair of words in a poem,
+     * each search over the graph and ranking current at the time. With a word importance ranking, it finds the
+     * bridge of highest score instead. Ties go to the smallest word, as in BridgeIndex, so the bridge does not
+     * depend on the order the graph visits targets in.
+     */
+    private static final class BridgeSearch implements ObjIntConsumer<String> {
+
+        private Graph<String> graph = null;
+        private WordImportance ranking = null;
+        private String to = "";
+        private String bestBridge = "";
+        private long bestWeight = 0;
+        private double bestScore = 0;
+        private double bestImportance = 0;
+
+        /**
+         * Find the bridge word b maximizing weight(from, b) + weight(b, to), or the best bridge of the ranking.
+         * Afterwards bestBridge and bestWeight hold the result, or "" and 0 if there is no bridge.
+         * @param graph word affinity graph to search
+         * @param ranking ranking of the bridges, or null to rank them by weight only
+         * @param from lower case first word
+         * @param to lower case second word
+         */
+        void search(Graph<String> graph, WordImportance ranking, String from, String to) {
+            this.graph = graph;
+            this.ranking = ranking;
+            this.to = to;
+            this.bestBridge = "";
+            this.bestWeight = 0;
+            this.bestScore = 0;
+            this.bestImportance = 0;
+            graph.forEachTarget(from, this);
+        }
+
+        @Override
+        public void accept(String bridge, int weightIn) {
+            int weightOut = graph.weight(bridge, to);
+            if (weightOut <= 0) {
+                return;
+            }
+            long weight = (long) weightIn + weightOut;
+            if (ranking == null) {
+                if (bestBridge.isEmpty() || WordImportance.isBetter(weight, 0, bridge, bestWeight, 0, bestBridge)) {
+                    bestWeight = weight;
+                    bestBridge = bridge;
                 }
+                return;
+            }
+            double importance = ranking.importance(bridge);
+            double score = ranking.score(weight, importance);
+            if (bestBridge.isEmpty()
+                    || WordImportance.isBetter(score, importance, bridge, bestScore, bestImportance, bestBridge)) {
+                bestWeight = weight;
+                bestBridge = bridge;
+                bestScore = score;
+                bestImportance = importance;
             }
-            previousWord = currentWord;
         }
-        return outputPoem;
+
+    }
+
+    /**
+     * Get the word affinity graph of this poet, not a copy, which callers must not modify. It is frozen or mapped,
+     * and so immutable, until the corpus is appended to; after appendCorpus() it is an AppendedGraph that later
+     * appends keep growing, and that readers may observe during an append.
+     * @return the word affinity graph of this poet
+     */
+    Graph<String> affinityGraph() {
+        return graph;
     }
 
     @Override
@@ -0,0 +1,98 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Splits a UTF-8 corpus file into words by memory-mapping it in chunks and scanning the mapped bytes, so the
+ * corpus never has to fit in the heap. Each word is looked up in a WordDictionary straight from its bytes; no
+ * String is built per word. Words are delimited as by CorpusTokenizer: ASCII whitespace bytes end a word, and a
+ * word with non-ASCII bytes is decoded and split on any {@link Character#isWhitespace(char) whitespace}.
+ */
+final class MappedCorpus {
+
+    /** Default number of bytes mapped at a time. */
+    static final long DEFAULT_CHUNK_SIZE = 1L << 28;
+
+    private MappedCorpus() {
+        throw new AssertionError("non-instantiable");
+    }
+
+    /**
+     * Call action with the id of every word in a byte range of a corpus file, in order.
+     * A word that starts before the range or ends after it is cut at the range boundary.
+     * @param channel open channel of a UTF-8 corpus file
+     * @param start offset of the first byte of the range
+     * @param end offset just after the last byte of the range, at most the size of the file
+     * @param chunkSize maximum number of bytes mapped at a time, positive and at most Integer.MAX_VALUE
+     * @param dictionary receives the lower case words of the range
+     * @param action called with the dictionary id of each word
+     * @throws IOException if the file cannot be mapped
+     */
+    static void forEachWord(FileChannel channel, long start, long end, long chunkSize,
+                            WordDictionary dictionary, IntConsumer action) throws IOException {
+        byte[] word = new byte[64];
+        int length = 0;
+        boolean ascii = true;
+        for (long chunkStart = start; chunkStart < end; chunkStart += chunkSize) {
+            int chunkLength = (int) Math.min(chunkSize, end - chunkStart);
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkLength);
+            for (int i = 0; i < chunkLength; i++) {
+                byte b = chunk.get(i);
+                if (isAsciiWhitespace(b)) {
+                    if (length > 0) {
+                        emit(word, length, ascii, dictionary, action);
+                        length = 0;
+                        ascii = true;
+                    }
+                } else {
+                    if (length == word.length) {
+                        word = Arrays.copyOf(word, length * 2);
+                    }
+                    word[length++] = b;
+                    ascii &= b >= 0;
+                }
+            }
+        }
+        if (length > 0) {
+            emit(word, length, ascii, dictionary, action);
+        }
+    }
+
+    /**
+     * Look up a word and pass its id to action. A word with non-ASCII bytes is decoded, split on Unicode
+     * whitespace and lower-cased with {@link String#toLowerCase()} first.
+     */
+    private static void emit(byte[] word, int length, boolean ascii, WordDictionary dictionary, IntConsumer action) {
+        if (ascii) {
+            action.accept(dictionary.idOf(word, 0, length));
+            return;
+        }
+        String text = new String(word, 0, length, StandardCharsets.UTF_8);
+        int wordStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean boundary = i == text.length() || Character.isWhitespace(text.charAt(i));
+            if (boundary && wordStart >= 0) {
+                action.accept(dictionary.idOf(text.substring(wordStart, i).toLowerCase()));
+                wordStart = -1;
+            } else if (!boundary && wordStart < 0) {
+                wordStart = i;
+            }
+        }
+    }
+
+    /**
+     * @return true if b is an ASCII character for which {@link Character#isWhitespace(char)} is true
+     */
+    static boolean isAsciiWhitespace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+    }
+
+}
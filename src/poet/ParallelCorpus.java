@@ -0,0 +1,210 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+import graph.CsrGraph;
+import graph.Graph;
+import graph.GraphBuilder;
+
+/**
+ * Builds the word affinity graph of a UTF-8 corpus file in parallel.
+ *
+ * <p>The file is cut into byte ranges whose boundaries are moved forward to the next ASCII whitespace byte, so no
+ * word is split between two ranges. Each range is tokenized from memory-mapped bytes by a fork-join task with its
+ * own WordDictionary and BigramCounts. The partial counts are then merged by word, and the bigram made of the last
+ * word of each range and the first word of the next non-empty range is added back. The result has exactly the
+ * vertices and edge weights that the sequential GraphPoet constructor produces.
+ */
+final class ParallelCorpus {
+
+    /** Smallest range worth a task of its own, in bytes. */
+    static final long MIN_RANGE_SIZE = 1L << 20;
+
+    private ParallelCorpus() {
+        throw new AssertionError("non-instantiable");
+    }
+
+    /**
+     * Count the word affinity graph of a corpus.
+     * @param corpus UTF-8 text file
+     * @param rangeCount number of ranges to cut the corpus into, positive
+     * @param pool pool that runs one task per range
+     * @param lastWord called with the last word of the corpus, in lower case, unless the corpus has no words
+     * @return a new frozen graph with the words of corpus as vertices and their adjacency counts as weights
+     * @throws IOException if the corpus file cannot be found, read or mapped
+     * @throws IllegalArgumentException if some bigram occurs more than Integer.MAX_VALUE times
+     */
+    static CsrGraph<String> count(File corpus, int rangeCount, ForkJoinPool pool, Consumer<String> lastWord)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<RangeTask> tasks = new ArrayList<>();
+            long start = 0;
+            for (int i = 1; i <= rangeCount && start < size; i++) {
+                long end = i == rangeCount ? size : alignToWhitespace(channel, size * i / rangeCount, size);
+                if (end > start) {
+                    tasks.add(new RangeTask(channel, start, end));
+                    start = end;
+                }
+            }
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+            List<RangeCounts> partials = new ArrayList<>();
+            for (RangeTask task : tasks) {
+                partials.add(task.join());
+            }
+            return merge(partials, lastWord);
+        } catch (RuntimeException e) {
+            // fork-join may rethrow a copy of the task's exception with the original as its cause
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                }
+                if (cause instanceof IllegalArgumentException && cause.getCause() == null) {
+                    throw (IllegalArgumentException) cause;
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Find the first ASCII whitespace byte at or after a position.
+     * @param channel open channel of the corpus
+     * @param position offset to start from
+     * @param size size of the file
+     * @return offset of the first whitespace byte at or after position, or size if there is none
+     * @throws IOException if the file cannot be read
+     */
+    private static long alignToWhitespace(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (MappedCorpus.isAsciiWhitespace(buffer.get(i))) {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Merge the counts of consecutive ranges into one graph, adding the bigrams across range boundaries.
+     * The counts of every range go to one graph builder, which adds up the counts of bigrams seen in several
+     * ranges when it builds the graph.
+     * @param partials counts of the ranges, in file order
+     * @param lastWord called with the last word of the last non-empty range, if any
+     * @return a new frozen graph of the whole corpus
+     */
+    private static CsrGraph<String> merge(List<RangeCounts> partials, Consumer<String> lastWord) {
+        GraphBuilder<String> builder = Graph.builder();
+        String previousLast = null;
+        for (RangeCounts partial : partials) {
+            WordDictionary dictionary = partial.dictionary;
+            for (int id = 0; id < dictionary.size(); id++) {
+                builder.addVertex(dictionary.word(id));
+            }
+            partial.counts.forEach((from, to, count) -> {
+                String source = dictionary.word(from);
+                String target = dictionary.word(to);
+                builder.addEdge(source, target, count);
+            });
+            if (partial.firstWord >= 0) {
+                String first = dictionary.word(partial.firstWord);
+                if (previousLast != null) {
+                    builder.addEdge(previousLast, first, 1);
+                }
+                previousLast = dictionary.word(partial.lastWord);
+            }
+        }
+        if (previousLast != null) {
+            lastWord.accept(previousLast);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Mutable.
+     * Words and bigram counts of one byte range of the corpus.
+     */
+    private static final class RangeCounts {
+        private final WordDictionary dictionary = new WordDictionary();
+        private final BigramCounts counts = new BigramCounts();
+        private int firstWord = -1;
+        private int lastWord = -1;
+    }
+
+    /**
+     * Counts the bigrams of one byte range of the corpus.
+     */
+    private static final class RangeTask extends RecursiveTask<RangeCounts> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final long start;
+        private final long end;
+
+        /**
+         * Create a task for the range [start, end) of the corpus.
+         */
+        RangeTask(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected RangeCounts compute() {
+            RangeCounts result = new RangeCounts();
+            try {
+                MappedCorpus.forEachWord(channel, start, end, MappedCorpus.DEFAULT_CHUNK_SIZE, result.dictionary,
+                        id -> {
+                            if (result.lastWord < 0) {
+                                result.firstWord = id;
+                            } else {
+                                count(result, result.lastWord, id);
+                            }
+                            result.lastWord = id;
+                        });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return result;
+        }
+
+        /**
+         * Count one more occurrence of a bigram.
+         * @throws IllegalArgumentException if the bigram has already been counted Integer.MAX_VALUE times
+         */
+        private static void count(RangeCounts result, int from, int to) {
+            try {
+                result.counts.add(from, to, 1);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("weight of edge " + result.dictionary.word(from) + " -> "
+                        + result.dictionary.word(to) + " overflows");
+            }
+        }
+
+    }
+
+}
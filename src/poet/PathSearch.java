@@ -0,0 +1,206 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+import graph.Graph;
+import graph.ObjIntPredicate;
+
+/**
+ * Mutable.
+ * Finds the maximum-weight walk of 2 to k + 1 edges from a word w1 to a word w2, whose inner words are the bridge
+ * words between them. The weight of a walk is the sum of the weights of its edges; for k = 1 this is the two-edge
+ * bridge of GraphPoet.poem(), found the same way, ties included. Like that bridge, a walk may repeat words.
+ *
+ * <p>The search is bidirectional and bounded. Forward layers hold the best walks of h edges out of w1, found by
+ * expanding targets; backward layers hold the best walks of h edges into w2, found by expanding sources. Walks of
+ * up to k + 1 edges are joined where a forward and a backward layer share a word. Layers are built one depth at a
+ * time, forward then backward. Each layer past the first is only expanded from its beamWidth heaviest words, and
+ * the search visits at most edgeBudget edges in all: once the budget is spent, the visit of the neighbours of the
+ * word being expanded stops and no other word is expanded, so hub words like "the" cannot make a search take time
+ * that grows with their degree. The best two-edge bridge is found whenever the targets of w1 and the sources of
+ * w2 fit in the budget together.
+ */
+class PathSearch {
+
+    /** Default maximum number of edges a search visits. */
+    static final int DEFAULT_EDGE_BUDGET = 100_000;
+
+    /** Default maximum number of words of a layer that are expanded to build the next layer. */
+    static final int DEFAULT_BEAM_WIDTH = 256;
+
+    private final Graph<String> graph;
+    private final int maxBridgeWords;
+    private final int edgeBudget;
+    private final int beamWidth;
+    private int edgesVisited = 0;
+
+    // Abstraction function:
+    //   Represents a search for bridge walks of at most maxBridgeWords inner words over graph, limited to
+    //   edgeBudget visited edges and beamWidth expanded words per layer, that has visited edgesVisited edges
+    //   during the current call to search()
+    // Representation invariant:
+    //   maxBridgeWords, edgeBudget and beamWidth are positive; 0 <= edgesVisited <= edgeBudget
+    // Safety from rep exposure:
+    //   All fields are private, graph is never modified through this search and results are new lists
+
+    /**
+     * Create a search over a word affinity graph.
+     * @param graph graph to search, must not be modified while the search is used
+     * @param maxBridgeWords maximum number of bridge words between two words, positive
+     * @param edgeBudget maximum number of edges visited by one search, positive
+     * @param beamWidth maximum number of words of a layer that are expanded, positive
+     */
+    PathSearch(Graph<String> graph, int maxBridgeWords, int edgeBudget, int beamWidth) {
+        if (maxBridgeWords <= 0 || edgeBudget <= 0 || beamWidth <= 0) {
+            throw new IllegalArgumentException("bridge words, edge budget and beam width must be positive: "
+                    + maxBridgeWords + ", " + edgeBudget + ", " + beamWidth);
+        }
+        this.graph = graph;
+        this.maxBridgeWords = maxBridgeWords;
+        this.edgeBudget = edgeBudget;
+        this.beamWidth = beamWidth;
+    }
+
+    /**
+     * Find the bridge words of the maximum-weight walk from one word to another. Between walks of equal weight
+     * the one with fewer edges wins, then the one whose middle word is smallest, which for two-edge walks is the
+     * tie-break of GraphPoet.poem().
+     * @param from lower case first word
+     * @param to lower case second word
+     * @return the inner words of the walk in order, or an empty list if there is no walk of 2 to
+     *         maxBridgeWords + 1 edges within the budget
+     */
+    List<String> search(String from, String to) {
+        edgesVisited = 0;
+        int maxEdges = maxBridgeWords + 1;
+        int forwardDepth = (maxEdges + 1) / 2;
+        int backwardDepth = maxEdges - forwardDepth;
+        List<Map<String, Step>> forward = firstLayer(from);
+        List<Map<String, Step>> backward = firstLayer(to);
+        for (int h = 1; h <= forwardDepth; h++) {
+            expand(forward, graph::forEachTargetWhile);
+            if (h <= backwardDepth) {
+                expand(backward, graph::forEachSourceWhile);
+            }
+        }
+
+        long bestWeight = 0;
+        String meeting = null;
+        int meetingForward = 0;
+        int meetingBackward = 0;
+        for (int edges = 2; edges <= maxEdges; edges++) {
+            for (int f = Math.max(0, edges - backwardDepth); f <= Math.min(forwardDepth, edges); f++) {
+                Map<String, Step> backwardLayer = backward.get(edges - f);
+                for (Map.Entry<String, Step> entry : forward.get(f).entrySet()) {
+                    Step back = backwardLayer.get(entry.getKey());
+                    if (back == null) {
+                        continue;
+                    }
+                    long weight = entry.getValue().weight + back.weight;
+                    if (weight > bestWeight || (weight == bestWeight && meetingForward + meetingBackward == edges
+                            && entry.getKey().compareTo(meeting) < 0)) {
+                        bestWeight = weight;
+                        meeting = entry.getKey();
+                        meetingForward = f;
+                        meetingBackward = edges - f;
+                    }
+                }
+            }
+        }
+        if (meeting == null) {
+            return Collections.emptyList();
+        }
+        List<String> walk = new ArrayList<>();
+        String word = meeting;
+        for (int f = meetingForward; f > 0; f--) {
+            walk.add(word);
+            word = forward.get(f).get(word).previous;
+        }
+        Collections.reverse(walk);
+        word = meeting;
+        for (int b = meetingBackward; b > 0; b--) {
+            word = backward.get(b).get(word).previous;
+            walk.add(word);
+        }
+        // the walk now runs from the word after from to to itself
+        walk.remove(walk.size() - 1);
+        return walk;
+    }
+
+    /**
+     * @param start first word of every walk
+     * @return layers holding only layer 0, the walk of no edges from start
+     */
+    private static List<Map<String, Step>> firstLayer(String start) {
+        List<Map<String, Step>> layers = new ArrayList<>();
+        Map<String, Step> first = new LinkedHashMap<>();
+        first.put(start, new Step(0, null));
+        layers.add(first);
+        return layers;
+    }
+
+    /**
+     * Add the next layer of best walks out of (or into) a word, within what is left of the edge budget.
+     * @param layers layers 0..h-1 of walks out of (or into) a word; layer h, which maps each word reached by a
+     *               walk of h edges to the heaviest such walk found, in the order the words were first reached,
+     *               is appended
+     * @param neighbours visits the targets (or sources) of a word and the weights of the edges, until told to stop
+     */
+    private void expand(List<Map<String, Step>> layers,
+                        BiPredicate<String, ObjIntPredicate<? super String>> neighbours) {
+        Map<String, Step> previous = layers.get(layers.size() - 1);
+        Map<String, Step> next = new LinkedHashMap<>();
+        List<Map.Entry<String, Step>> expanded = new ArrayList<>(previous.entrySet());
+        if (expanded.size() > beamWidth) {
+            expanded.sort((a, b) -> Long.compare(b.getValue().weight, a.getValue().weight));
+            expanded = expanded.subList(0, beamWidth);
+        }
+        for (Map.Entry<String, Step> entry : expanded) {
+            if (edgesVisited >= edgeBudget) {
+                break;
+            }
+            String word = entry.getKey();
+            long weight = entry.getValue().weight;
+            neighbours.test(word, (neighbour, edgeWeight) -> {
+                edgesVisited++;
+                Step step = next.get(neighbour);
+                if (step == null || weight + edgeWeight > step.weight) {
+                    next.put(neighbour, new Step(weight + edgeWeight, word));
+                }
+                return edgesVisited < edgeBudget;
+            });
+        }
+        layers.add(next);
+    }
+
+    /**
+     * @return number of edges visited by the last call to search(), at most edgeBudget
+     */
+    int edgesVisited() {
+        return edgesVisited;
+    }
+
+    /**
+     * Immutable.
+     * The heaviest walk found to a word of a layer: its weight and the word before it (after it, in backward
+     * layers), which is in the previous layer.
+     */
+    private static final class Step {
+        private final long weight;
+        private final String previous;
+
+        Step(long weight, String previous) {
+            this.weight = weight;
+            this.previous = previous;
+        }
+    }
+
+}
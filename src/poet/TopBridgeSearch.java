@@ -0,0 +1,158 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+import graph.Graph;
+
+/**
+ * Mutable.
+ * Finds the k best bridge words between two words, the bridges b with the largest weight(w1, b) + weight(b, w2),
+ * by visiting the targets of the first word. Candidates go through a min-heap of at most k bridges whose root is
+ * the worst bridge kept, so a search takes O(k) memory and O(d log k) time for d targets, however many candidates
+ * there are. Between bridges of equal weight, the smallest word ranks first, as in GraphPoet.poem().
+ * With a word importance ranking, bridges rank by score, then importance, then word instead.
+ */
+class TopBridgeSearch implements ObjIntConsumer<String> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Graph<String> graph;
+    private final WordImportance ranking;
+    private final int k;
+    private String to = "";
+    private String[] bridges;
+    private double[] scores;
+    private double[] importances;
+    private int size = 0;
+
+    // Abstraction function:
+    //   Represents the k best bridges among those visited so far by the current search: the bridges
+    //   bridges[0..size-1] with scores scores[i] and importances importances[i]; without a ranking, the
+    //   score is the two-edge path weight and the importance is 0
+    // Representation invariant:
+    //   0 <= size <= min(k, bridges.length); bridges, scores and importances have the same length
+    //   bridges[0..size-1] is a heap: no entry is worse than its parent, where a is worse than b if b ranks
+    //   above a by WordImportance.isBetter()
+    // Safety from rep exposure:
+    //   All fields are private, graph and ranking are never modified through this search and results are new
+    //   lists
+
+    /**
+     * Create a search over a word affinity graph.
+     * @param graph graph to search, must not be modified while the search is used
+     * @param ranking ranking of the bridges, or null to rank them by weight only
+     * @param k maximum number of bridges to find, positive
+     */
+    TopBridgeSearch(Graph<String> graph, WordImportance ranking, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.graph = graph;
+        this.ranking = ranking;
+        this.k = k;
+        int capacity = Math.min(k, INITIAL_CAPACITY);
+        this.bridges = new String[capacity];
+        this.scores = new double[capacity];
+        this.importances = new double[capacity];
+    }
+
+    /**
+     * Find the k best bridge words between two words.
+     * @param from lower case first word
+     * @param to lower case second word
+     * @return the best bridges, at most k of them, best first; empty if there is no bridge
+     */
+    List<String> search(String from, String to) {
+        this.to = to;
+        this.size = 0;
+        graph.forEachTarget(from, this);
+        String[] sorted = new String[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sorted[i] = bridges[0];
+            removeRoot();
+        }
+        return Arrays.asList(sorted);
+    }
+
+    @Override
+    public void accept(String bridge, int weightIn) {
+        int weightOut = graph.weight(bridge, to);
+        if (weightOut <= 0) {
+            return;
+        }
+        long weight = (long) weightIn + weightOut;
+        double importance = ranking == null ? 0 : ranking.importance(bridge);
+        double score = ranking == null ? weight : ranking.score(weight, importance);
+        if (size < k) {
+            if (size == bridges.length) {
+                int capacity = (int) Math.min(k, 2L * bridges.length);
+                bridges = Arrays.copyOf(bridges, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                importances = Arrays.copyOf(importances, capacity);
+            }
+            set(size, bridge, score, importance);
+            siftUp(size++);
+        } else if (WordImportance.isBetter(score, importance, bridge, scores[0], importances[0], bridges[0])) {
+            set(0, bridge, score, importance);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Remove the worst bridge from the heap.
+     */
+    private void removeRoot() {
+        size--;
+        set(0, bridges[size], scores[size], importances[size]);
+        bridges[size] = null;
+        siftDown(0);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0 && isWorse(i, (i - 1) / 2)) {
+            swap(i, (i - 1) / 2);
+            i = (i - 1) / 2;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && isWorse(child + 1, child)) {
+                child++;
+            }
+            if (!isWorse(child, i)) {
+                return;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    /**
+     * @return true if the bridge at heap position a ranks below the bridge at heap position b
+     */
+    private boolean isWorse(int a, int b) {
+        return WordImportance.isBetter(scores[b], importances[b], bridges[b], scores[a], importances[a], bridges[a]);
+    }
+
+    private void set(int i, String bridge, double score, double importance) {
+        bridges[i] = bridge;
+        scores[i] = score;
+        importances[i] = importance;
+    }
+
+    private void swap(int a, int b) {
+        String bridge = bridges[a];
+        double score = scores[a];
+        double importance = importances[a];
+        set(a, bridges[b], scores[b], importances[b]);
+        set(b, bridge, score, importance);
+    }
+
+}
@@ -0,0 +1,164 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Mutable.
+ * A dictionary of lower case words that numbers them with dense int ids 0..size()-1 and looks them up straight
+ * from UTF-8 bytes. ASCII upper case letters in the looked-up bytes are folded to lower case on the fly, so an
+ * ASCII word is found without building a String; a String is only created when a new word is added.
+ */
+final class WordDictionary {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private byte[][] wordBytes = new byte[MIN_CAPACITY][];
+    private String[] words = new String[MIN_CAPACITY];
+    private int[] hashes = new int[MIN_CAPACITY];
+    private int[] slots = new int[MIN_CAPACITY * 2];
+    private int size = 0;
+
+    // Abstraction function:
+    //   Represents the numbering {words[id] -> id | 0 <= id < size}
+    // Representation invariant:
+    //   wordBytes[id] is the UTF-8 encoding of words[id], hashes[id] == hash(wordBytes[id]), words are distinct
+    //   slots.length is a power of two and at least twice size; each slot is -1 (empty) or an id
+    //   each id appears in exactly one slot, reachable by probing forward from the home slot of its hash
+    // Safety from rep exposure:
+    //   All fields are private, byte arrays are copies made by this class and never returned
+
+    /**
+     * Create an empty dictionary.
+     */
+    WordDictionary() {
+        Arrays.fill(slots, -1);
+    }
+
+    /**
+     * Get the id of a word given as UTF-8 bytes, adding the word if it is new.
+     * ASCII upper case letters are folded to lower case; other bytes must already be lower case.
+     * @param bytes array holding the word
+     * @param offset index of the first byte of the word
+     * @param length number of bytes of the word, positive
+     * @return the id of the lower case word
+     */
+    int idOf(byte[] bytes, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + toLowerAscii(bytes[i]);
+        }
+        int mask = slots.length - 1;
+        int slot = home(hash, mask);
+        while (slots[slot] >= 0) {
+            int id = slots[slot];
+            if (hashes[id] == hash && equalsFolded(wordBytes[id], bytes, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        byte[] lower = new byte[length];
+        for (int i = 0; i < length; i++) {
+            lower[i] = toLowerAscii(bytes[offset + i]);
+        }
+        return add(lower, new String(lower, StandardCharsets.UTF_8), hash, slot);
+    }
+
+    /**
+     * Get the id of a word, adding the word if it is new.
+     * @param lowerCaseWord a non-empty lower case word
+     * @return the id of the word
+     */
+    int idOf(String lowerCaseWord) {
+        byte[] bytes = lowerCaseWord.getBytes(StandardCharsets.UTF_8);
+        return idOf(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param id id of a word in this dictionary
+     * @return the lower case word with the given id
+     */
+    String word(int id) {
+        return words[id];
+    }
+
+    /**
+     * @return number of words in this dictionary
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Add a new word in an empty slot found by idOf().
+     * @return id of the new word
+     */
+    private int add(byte[] lower, String word, int hash, int slot) {
+        int id = size++;
+        if (id == words.length) {
+            int capacity = words.length * 2;
+            wordBytes = Arrays.copyOf(wordBytes, capacity);
+            words = Arrays.copyOf(words, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        wordBytes[id] = lower;
+        words[id] = word;
+        hashes[id] = hash;
+        slots[slot] = id;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Rebuild the slot table with the given capacity.
+     * @param capacity new power-of-two capacity
+     */
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        Arrays.fill(slots, -1);
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = home(hashes[id], mask);
+            while (slots[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+        }
+    }
+
+    /**
+     * @return true if stored equals bytes[offset..offset+length) with ASCII upper case folded to lower case
+     */
+    private static boolean equalsFolded(byte[] stored, byte[] bytes, int offset, int length) {
+        if (stored.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (stored[i] != toLowerAscii(bytes[offset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return b folded to lower case if it is an ASCII upper case letter, otherwise b
+     */
+    static byte toLowerAscii(byte b) {
+        return (b >= 'A' && b <= 'Z') ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    /**
+     * @return first slot to probe for hash in a table of length mask + 1
+     */
+    private static int home(int hash, int mask) {
+        int spread = hash * 0x9E3779B9;
+        return (spread ^ (spread >>> 16)) & mask;
+    }
+
+}
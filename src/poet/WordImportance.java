@@ -0,0 +1,128 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import graph.CsrGraph;
+import graph.Graph;
+import graph.MappedGraph;
+import graph.algo.PageRank;
+
+/**
+ * Immutable.
+ * The importance of every word of a word affinity graph, and the ranking of bridge words it induces.
+ *
+ * <p>The importance of a word is its weighted PageRank times the number of words, so the average importance is 1.
+ * A bridge b of two-edge path weight w scores w * importance(b)^exponent: with exponent 0 the score is the path
+ * weight itself and importance only breaks ties, and larger exponents let important words win over heavier
+ * paths. Between bridges of equal score the more important one wins, and between bridges of equal score and
+ * importance the lexicographically smallest, as without a ranking.
+ */
+class WordImportance {
+
+    private final ToIntFunction<String> ids;
+    private final double[] importance;
+    private final double exponent;
+
+    // Abstraction function:
+    //   Represents the ranking of bridges by score then importance, where the importance of a word w is
+    //   importance[ids(w)], or 0 if ids(w) is -1
+    // Representation invariant:
+    //   ids maps distinct words to distinct ids in 0..importance.length-1, or -1
+    //   importance[i] > 0 for every i; exponent is finite and nonnegative
+    // Safety from rep exposure:
+    //   All fields are private final, the array is never returned, and ids reads an immutable mapped graph or a
+    //   map of its own that is never modified after construction
+
+    private WordImportance(ToIntFunction<String> ids, double[] importance, double exponent) {
+        this.ids = ids;
+        this.importance = importance;
+        this.exponent = exponent;
+    }
+
+    /**
+     * Compute the importance of the words of a graph, with a parallel PageRank. The result keeps no reference to
+     * graph unless it is mapped, so it does not keep a graph alive after a poet replaces it, nor the frozen copy
+     * made while ranking a graph that is not frozen.
+     * @param graph word affinity graph, not modified meanwhile; a graph that is not frozen is copied to the heap
+     *              while ranking
+     * @param exponent influence of importance on the score of a bridge, finite and nonnegative
+     * @return the importance of every word of graph
+     * @throws IllegalArgumentException if exponent is negative or not finite
+     */
+    static WordImportance of(Graph<String> graph, double exponent) {
+        if (!(exponent >= 0) || Double.isInfinite(exponent)) {
+            throw new IllegalArgumentException("exponent must be finite and nonnegative: " + exponent);
+        }
+        CsrGraph<String> frozen = CsrGraph.freeze(graph);
+        double[] rank = PageRank.ranks(frozen, PageRank.DEFAULT_DAMPING, PageRank.DEFAULT_TOLERANCE,
+                PageRank.DEFAULT_MAX_ITERATIONS);
+        int n = rank.length;
+        if (graph instanceof MappedGraph) {
+            // index by the ids of the mapped graph so that the heap copy can be dropped
+            MappedGraph mapped = (MappedGraph) graph;
+            double[] importance = new double[n];
+            for (int v = 0; v < n; v++) {
+                importance[mapped.id(frozen.label(v))] = rank[v] * n;
+            }
+            return new WordImportance(mapped::id, importance, exponent);
+        }
+        Map<String, Integer> ids = new HashMap<>();
+        for (int v = 0; v < n; v++) {
+            rank[v] *= n;
+            ids.put(frozen.label(v), v);
+        }
+        return new WordImportance(word -> ids.getOrDefault(word, -1), rank, exponent);
+    }
+
+    /**
+     * @param word lower case word
+     * @return the importance of word, or 0 if it is not in the graph
+     */
+    double importance(String word) {
+        int id = ids.applyAsInt(word);
+        return id < 0 ? 0 : importance[id];
+    }
+
+    /**
+     * @param pathWeight weight of the two-edge path through a bridge
+     * @param bridgeImportance importance of the bridge
+     * @return score of the bridge
+     */
+    double score(long pathWeight, double bridgeImportance) {
+        return exponent == 0 ? pathWeight : pathWeight * Math.pow(bridgeImportance, exponent);
+    }
+
+    /**
+     * Compare a bridge with the best bridge found so far: the higher score wins, then the higher importance, then
+     * the lexicographically smaller word, so the best bridge does not depend on the order bridges are visited in.
+     * Without a ranking, pass the path weights as scores and 0 as importances.
+     * @param score score of the bridge
+     * @param bridgeImportance importance of the bridge
+     * @param bridge the bridge word
+     * @param bestScore score of the best bridge so far
+     * @param bestImportance importance of the best bridge so far
+     * @param bestBridge the best bridge word so far
+     * @return true if the bridge ranks strictly above the best bridge so far
+     */
+    static boolean isBetter(double score, double bridgeImportance, String bridge,
+                            double bestScore, double bestImportance, String bestBridge) {
+        if (score != bestScore) {
+            return score > bestScore;
+        }
+        if (bridgeImportance != bestImportance) {
+            return bridgeImportance > bestImportance;
+        }
+        return bridge.compareTo(bestBridge) < 0;
+    }
+
+    @Override
+    public String toString() {
+        return "WordImportance of " + importance.length + " words with exponent " + exponent;
+    }
+
+}
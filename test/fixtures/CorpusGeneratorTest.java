@@ -0,0 +1,93 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package fixtures;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for CorpusGenerator.
+ */
+public class CorpusGeneratorTest {
+
+    /*
+     * Testing strategy for CorpusGenerator
+     *
+     * write(), text()
+     *   same seed and stream, twice: same bytes, from two generators, to a stream and to a file
+     *   different stream: different bytes
+     *   different seed: different bytes
+     *   locality: 0, between 0 and 1, 1
+     * vocabularySize(), word()
+     *   words are distinct, non-empty, ASCII letters and digits; the text is made of them
+     */
+
+    private static final long SEED = 6005;
+
+    /**
+     * @return the bytes write() gives for these parameters
+     */
+    private static byte[] bytes(CorpusGenerator generator, long wordCount, long stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.write(out, wordCount, stream);
+        return out.toByteArray();
+    }
+
+    // Covers same seed and stream twice, from two generators, to a stream and to a file.
+    @Test
+    public void testSameSeedAndStreamSameBytes() throws IOException {
+        for (double locality : new double[] { 0, 0.5, 1 }) {
+            byte[] first = bytes(new CorpusGenerator(SEED, 1000, 1.0, locality, 8), 10_000, 3);
+            byte[] second = bytes(new CorpusGenerator(SEED, 1000, 1.0, locality, 8), 10_000, 3);
+            assertArrayEquals(first, second);
+            Path file = Files.createTempFile("corpus", ".txt");
+            try {
+                new CorpusGenerator(SEED, 1000, 1.0, locality, 8).write(file, 10_000, 3);
+                assertArrayEquals(first, Files.readAllBytes(file));
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // Covers different stream, same seed.
+    @Test
+    public void testDifferentStreamDifferentBytes() throws IOException {
+        CorpusGenerator generator = new CorpusGenerator(SEED, 1000, 1.0, 0.5, 8);
+        assertFalse(Arrays.equals(bytes(generator, 10_000, 0), bytes(generator, 10_000, 1)));
+    }
+
+    // Covers different seed, same stream.
+    @Test
+    public void testDifferentSeedDifferentBytes() throws IOException {
+        assertFalse(Arrays.equals(bytes(new CorpusGenerator(SEED, 1000, 1.0, 0.5, 8), 10_000, 0),
+                bytes(new CorpusGenerator(SEED + 1, 1000, 1.0, 0.5, 8), 10_000, 0)));
+    }
+
+    // Covers the vocabulary: distinct words of letters and digits, and the words of the text.
+    @Test
+    public void testVocabulary() {
+        CorpusGenerator generator = new CorpusGenerator(SEED, 1000, 1.0, 0.5, 8);
+        assertEquals(1000, generator.vocabularySize());
+        Set<String> vocabulary = new HashSet<>();
+        for (int rank = 0; rank < generator.vocabularySize(); rank++) {
+            String word = generator.word(rank);
+            assertTrue(word, word.matches("[a-z0-9]+"));
+            assertTrue(word, vocabulary.add(word));
+        }
+        String[] words = generator.text(10_000, 0).split("\\s+");
+        assertEquals(10_000, words.length);
+        assertTrue(vocabulary.containsAll(Arrays.asList(words)));
+    }
+
+}
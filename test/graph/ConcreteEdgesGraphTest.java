@@ -48,6 +48,8 @@ public class ConcreteEdgesGraphTest extends GraphInstanceTest {
      * toString()
      *   vertices : 0, 1, n
      *   edges : 0, 1, n
+     * remove()
+     *   removed vertex has a self loop, incoming and outgoing edges
      */
 
 
@@ -170,5 +172,19 @@ public class ConcreteEdgesGraphTest extends GraphInstanceTest {
         assertEquals(modelString, graph.toString());
     }
 
+    // Covers remove of a vertex with a self loop, incoming and outgoing edges.
+    @Test
+    public void testToStringAfterRemoveVertexWithSelfLoop() {
+        ConcreteEdgesGraph<String> graph = new ConcreteEdgesGraph<>();
+        graph.set(vertex1, vertex1, weight1);
+        graph.set(vertex1, vertex2, weight2);
+        graph.set(vertex2, vertex1, weight1);
+        graph.set(vertex2, vertex3, weight2);
+        assertTrue(graph.remove(vertex1));
+        String modelString = "Graph contains 2 vertices and 1 edges";
+        assertEquals(modelString, graph.toString());
+        assertTrue(graph.sources(vertex2).isEmpty());
+        assertEquals(1, graph.targets(vertex2).size());
+    }
 
 }
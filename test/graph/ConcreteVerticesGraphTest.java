@@ -5,6 +5,8 @@ package graph;
 
 import static org.junit.Assert.*;
 
+import java.util.Map;
+
 import org.junit.Test;
 
 /**
@@ -21,14 +23,14 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
      * Provide a ConcreteVerticesGraph for tests in GraphInstanceTest.
      */
     @Override public Graph<String> emptyInstance() {
-        return new ConcreteVerticesGraph();
+        return new ConcreteVerticesGraph<>();
     }
     
     /*
      * Testing Strategy for Vertex
      *
      * Vertex()
-     *   Constructor of Vertex object. Test with different strings.
+     *   Constructor of Vertex object. Test with different strings and ids.
      *
      * setTarget()
      *   Constructor of target and edge weight. Cases:
@@ -39,10 +41,9 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
      * getName()
      *   returns the name of this Vertex. Try different strings.
      *
-     * getTargets()
-     *   returns the set of targets that vertex points to. Cases:
-     *   1. Try different set sizes or targets.
-     *   2. Try different Strings for target names.
+     * getTargetCount()
+     *   returns the number of targets that vertex points to. Cases:
+     *   1. Try different numbers of targets, after removing one.
      *
      * getWeight()
      *   returns the weights of edge from Vertex to target. Cases:
@@ -52,7 +53,12 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
      * isVertexInTargets()
      *   returns true if target is in vertex targets. Cases
      *   1. Target is in Vertex targets? Yes, no.
-     *   2. Try different String sizes for targets.
+     *   2. Try different target ids.
+     *
+     * setSource(), getSourceWeight(), getSourceCount(), isVertexInSources()
+     *   Mirror of the target methods for incoming edges. Cases:
+     *   1. Source is in Vertex sources? Yes, no.
+     *   2. Test for different weights w = 0, w > 0.
      *
      * toString()
      *   Test Vertex with no targets, 1 target, n targets.
@@ -65,6 +71,10 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
      * toString()
      *   Test with empty graph, 1 Vertex in Graph, N Vertices in Graph
      *   Test with no edges, 1 edge, N, edges
+     *   Test after removing a vertex with incoming and outgoing edges
+     *
+     * add(), set(), remove()
+     *   Test that the id of a removed vertex is reused by a new vertex without keeping old edges
      */
 
 
@@ -72,9 +82,11 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
     private final String vertex2 = "V2";
     private final String vertex3 = "V3";
 
-    private final String target1 = "T1";
-    private final String target2 = "T2";
-    private final String target3 = "T3";
+    // Vertex works on ids; these are the ids of V1 and of three targets
+    private final int vertex1Id = 0;
+    private final int target1 = 1;
+    private final int target2 = 2;
+    private final int target3 = 3;
 
     private final int weight0 = 0;
     private final int weight1 = 1;
@@ -90,35 +102,37 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
     // Covers construct Vertex with different string sizes
     @Test
     public void testVertexConstruct() {
-        Vertex testVertex1 = new Vertex(vertex1);
-        Vertex testVertex2 = new Vertex(vertex2);
-        Vertex testVertex3 = new Vertex(vertex3);
+        Vertex<String> testVertex1 = new Vertex<>(vertex1, 0);
+        Vertex<String> testVertex2 = new Vertex<>(vertex2, 1);
+        Vertex<String> testVertex3 = new Vertex<>(vertex3, 2);
         assertEquals(vertex1, testVertex1.getName());
         assertEquals(vertex2, testVertex2.getName());
         assertEquals(vertex3, testVertex3.getName());
+        assertEquals(2, testVertex3.getId());
     }
 
     // Covers construct edges to different targets. Includes self loop. Includes remove target.
     //
     @Test
     public void testSetTargetVariousTargets() {
-        Vertex testVertex1 = new Vertex(vertex1);
+        Vertex<String> testVertex1 = new Vertex<>(vertex1, vertex1Id);
         testVertex1.setTarget(target1, weight1);
         testVertex1.setTarget(target2, weight2);
         testVertex1.setTarget(target3, weight3);
-        testVertex1.setTarget(vertex1, weight3);
+        testVertex1.setTarget(vertex1Id, weight3);
         assertEquals(weight1, testVertex1.getWeight(target1));
         assertEquals(weight2, testVertex1.getWeight(target2));
         assertEquals(weight3, testVertex1.getWeight(target3));
-        assertEquals(weight3, testVertex1.getWeight(vertex1));
+        assertEquals(weight3, testVertex1.getWeight(vertex1Id));
         testVertex1.setTarget(target1, weight0);
-        assertFalse(testVertex1.getTargets().contains(target1));
+        assertFalse(testVertex1.isVertexInTargets(target1));
+        assertEquals(3, testVertex1.getTargetCount());
     }
 
-    // Convers both true and false returns with different string sizes.
+    // Convers both true and false returns with different ids.
     @Test
     public void testIsVertexInTargets() {
-        Vertex testVertex1 = new Vertex(vertex1);
+        Vertex<String> testVertex1 = new Vertex<>(vertex1, vertex1Id);
         testVertex1.setTarget(target1, weight1);
         testVertex1.setTarget(target2, weight2);
         assertFalse(testVertex1.isVertexInTargets(target3));
@@ -128,10 +142,10 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
     // Covers toString with several targets and a self loop.
     @Test
     public void testToString() {
-        Vertex testVertex1 = new Vertex(vertex1);
+        Vertex<String> testVertex1 = new Vertex<>(vertex1, vertex1Id);
         testVertex1.setTarget(target1, weight1);
         testVertex1.setTarget(target2, weight2);
-        testVertex1.setTarget(vertex1, weight1); // try a self loop.
+        testVertex1.setTarget(vertex1Id, weight1); // try a self loop.
         String testString = "Vertex = V1 has 3 targets";
         assertEquals(testString, testVertex1.toString());
     }
@@ -139,11 +153,26 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
     // Covers toString with no targets.
     @Test
     public void testToStringNoTargets() {
-        Vertex testVertex1 = new Vertex(vertex1);
+        Vertex<String> testVertex1 = new Vertex<>(vertex1, vertex1Id);
         String testString = "Vertex = V1 has 0 targets";
         assertEquals(testString, testVertex1.toString());
     }
 
+    // Covers add, replace and remove of sources with different weights.
+    @Test
+    public void testSetSourceVariousSources() {
+        Vertex<String> testVertex1 = new Vertex<>(vertex1, vertex1Id);
+        testVertex1.setSource(target1, weight1);
+        testVertex1.setSource(target2, weight2);
+        testVertex1.setSource(target2, weight3);
+        assertTrue(testVertex1.isVertexInSources(target1));
+        assertEquals(weight3, testVertex1.getSourceWeight(target2));
+        testVertex1.setSource(target1, weight0);
+        assertFalse(testVertex1.isVertexInSources(target1));
+        assertFalse(testVertex1.isVertexInSources(target3));
+        assertEquals(1, testVertex1.getSourceCount());
+    }
+
     /*
      * Testing ConcreteVerticesGraph
      */
@@ -151,7 +180,7 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
     // Covers number of vertices = 0, number of edges = 0.
     @Test
     public void testToStringEmptyGraph() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         String testString = "Graph contains 0 vertices and 0 edges";
         assertEquals(testString, graph.toString());
     }
@@ -159,7 +188,7 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
     // Covers number of vertices = 1, number of edges = 1.
     @Test
     public void testToStringOneVertexOneEdge() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         graph.set(vertex1, vertex1, weight1);
         String testString = "Graph contains 1 vertices and 1 edges";
         assertEquals(testString, graph.toString());
@@ -168,11 +197,42 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
     // Covers number of vertices = 3, number of edges = 2.
     @Test
     public void testToStringThreeVertexTwoEdge() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         graph.set(vertex1, vertex2, weight1);
         graph.set(vertex2, vertex3, weight2);
         String testString = "Graph contains 3 vertices and 2 edges";
         assertEquals(testString, graph.toString());
     }
-    
+
+    // Covers remove of a vertex with incoming and outgoing edges.
+    @Test
+    public void testToStringAfterRemoveVertex() {
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
+        graph.set(vertex1, vertex2, weight1);
+        graph.set(vertex2, vertex3, weight2);
+        graph.set(vertex3, vertex2, weight3);
+        assertTrue(graph.remove(vertex2));
+        String testString = "Graph contains 2 vertices and 0 edges";
+        assertEquals(testString, graph.toString());
+        assertTrue(graph.targets(vertex1).isEmpty());
+        assertTrue(graph.sources(vertex3).isEmpty());
+    }
+
+    // Covers reuse of the id of a removed vertex, with a self loop.
+    @Test
+    public void testRemovedIdReused() {
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
+        graph.set(vertex1, vertex2, weight1);
+        graph.set(vertex2, vertex2, weight2);
+        graph.set(vertex3, vertex2, weight3);
+        assertTrue(graph.remove(vertex2));
+        assertTrue(graph.add("V4"));
+        assertTrue(graph.sources("V4").isEmpty());
+        assertTrue(graph.targets("V4").isEmpty());
+        assertEquals(0, graph.weight(vertex1, "V4"));
+        graph.set("V4", vertex1, weight2);
+        assertEquals(Map.of("V4", weight2), graph.sources(vertex1));
+        assertEquals("Graph contains 3 vertices and 1 edges", graph.toString());
+    }
+
 }
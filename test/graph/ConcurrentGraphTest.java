@@ -0,0 +1,230 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import fixtures.CorpusGenerator;
+
+/**
+ * Tests for ConcurrentGraph.
+ *
+ * This class runs the GraphInstanceTest tests against ConcurrentGraph, as
+ * well as multi-threaded tests for that particular implementation.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class ConcurrentGraphTest extends GraphInstanceTest {
+
+    /*
+     * Provide a ConcurrentGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new ConcurrentGraph<>();
+    }
+
+    /*
+     * Testing Strategy for ConcurrentGraph
+     *
+     * ConcurrentGraph(int)
+     *   concurrency level: 1, n, zero (rejected)
+     * set() from many threads
+     *   same edge: the previous weights returned form one chain through every weight written
+     *   disjoint edges, with sources and targets sharing stripes: every edge is present afterwards
+     * addToWeight() from many threads
+     *   same edge: no addition is lost
+     * set(), remove() and observers from many threads, on the bigrams of a synthetic corpus
+     *   observers never throw; afterwards targets and sources agree for every vertex
+     * toString()
+     *   Test with empty graph, n vertices and n edges
+     */
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 2000;
+
+    /**
+     * Run tasks on THREADS threads released at the same moment, and wait for all of them.
+     * @return the results of the tasks, in order
+     */
+    private static <T> List<T> runTogether(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // concurrency level 1 and n both give working graphs
+    @Test
+    public void testConcurrencyLevels() {
+        for (int level : new int[] { 1, 1000 }) {
+            Graph<String> graph = new ConcurrentGraph<>(level);
+            assertEquals(0, graph.set("a", "b", 3));
+            assertEquals(3, graph.weight("a", "b"));
+        }
+    }
+
+    // concurrency level zero is rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void testConcurrencyLevelZero() {
+        new ConcurrentGraph<String>(0);
+    }
+
+    // every weight written to one edge is returned as the previous weight exactly once, except the last one
+    @Test
+    public void testConcurrentSetSameEdgeIsAtomic() throws Exception {
+        Graph<String> graph = emptyInstance();
+        List<Callable<Map<Integer, Integer>>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks.add(() -> {
+                Map<Integer, Integer> previousByWritten = new HashMap<>();
+                for (int i = 0; i < ROUNDS; i++) {
+                    int written = 1 + thread * ROUNDS + i;
+                    previousByWritten.put(written, graph.set("a", "b", written));
+                }
+                return previousByWritten;
+            });
+        }
+        Map<Integer, Integer> writtenByPrevious = new HashMap<>();
+        for (Map<Integer, Integer> result : runTogether(tasks)) {
+            for (Map.Entry<Integer, Integer> write : result.entrySet()) {
+                assertNull("two sets replaced the same weight", writtenByPrevious.put(write.getValue(), write.getKey()));
+            }
+        }
+        int length = 0;
+        for (Integer weight = writtenByPrevious.get(0); weight != null; weight = writtenByPrevious.get(weight)) {
+            length++;
+            assertEquals(length == THREADS * ROUNDS, weight == graph.weight("a", "b"));
+        }
+        assertEquals(THREADS * ROUNDS, length);
+        assertEquals(graph.weight("a", "b"), (int) graph.sources("b").get("a"));
+    }
+
+    // concurrent additions to one edge and to edges sharing its source are never lost
+    @Test
+    public void testConcurrentAddToWeightLosesNothing() throws Exception {
+        Graph<String> graph = emptyInstance();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks.add(() -> {
+                for (int i = 0; i < ROUNDS; i++) {
+                    graph.addToWeight("a", "b", 1);
+                    graph.addToWeight("a", "c" + (i % 10), thread + 1);
+                }
+                return null;
+            });
+        }
+        runTogether(tasks);
+        assertEquals(THREADS * ROUNDS, graph.weight("a", "b"));
+        assertEquals(THREADS * ROUNDS, (int) graph.sources("b").get("a"));
+        for (int c = 0; c < 10; c++) {
+            assertEquals(ROUNDS / 10 * THREADS * (THREADS + 1) / 2, graph.weight("a", "c" + c));
+        }
+    }
+
+    // edges set concurrently between many vertices are all present, on both sides
+    @Test
+    public void testConcurrentSetDisjointEdges() throws Exception {
+        Graph<String> graph = new ConcurrentGraph<>(2);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks.add(() -> {
+                for (int i = 0; i < ROUNDS; i++) {
+                    graph.set("s" + thread, "t" + i, i + 1);
+                }
+                return null;
+            });
+        }
+        runTogether(tasks);
+        assertEquals(THREADS + ROUNDS, graph.vertices().size());
+        for (int i = 0; i < ROUNDS; i++) {
+            Map<String, Integer> sources = graph.sources("t" + i);
+            assertEquals(THREADS, sources.size());
+            for (int t = 0; t < THREADS; t++) {
+                assertEquals(i + 1, (int) sources.get("s" + t));
+                assertEquals(i + 1, graph.weight("s" + t, "t" + i));
+            }
+        }
+    }
+
+    // writers setting and removing the bigrams of synthetic text while readers take snapshots; targets and
+    // sources agree afterwards
+    @Test
+    public void testStressSetRemoveAndObservers() throws Exception {
+        Graph<String> graph = emptyInstance();
+        CorpusGenerator generator = new CorpusGenerator(6005, 50, 1.0, 0.5, CorpusGenerator.DEFAULT_FOLLOWERS);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            String[] words = generator.text(ROUNDS + 1, thread).split("\\s+");
+            tasks.add(() -> {
+                for (int i = 0; i < ROUNDS; i++) {
+                    String source = words[i];
+                    String target = words[i + 1];
+                    if (thread % 4 == 0) {
+                        for (String vertex : graph.vertices()) {
+                            graph.targets(vertex).values().forEach(weight -> assertTrue(weight > 0));
+                            graph.forEachSource(vertex, (label, weight) -> assertTrue(weight > 0));
+                        }
+                    } else if (i % 97 == 0) {
+                        graph.remove(source);
+                    } else {
+                        graph.set(source, target, i % 5);
+                    }
+                }
+                return null;
+            });
+        }
+        runTogether(tasks);
+        for (String vertex : graph.vertices()) {
+            for (Map.Entry<String, Integer> edge : graph.targets(vertex).entrySet()) {
+                assertEquals(edge.getValue(), graph.sources(edge.getKey()).get(vertex));
+            }
+            for (Map.Entry<String, Integer> edge : graph.sources(vertex).entrySet()) {
+                assertEquals(edge.getValue(), graph.targets(edge.getKey()).get(vertex));
+            }
+        }
+    }
+
+    // toString with empty graph, n vertices and n edges
+    @Test
+    public void testToString() {
+        Graph<String> graph = emptyInstance();
+        assertEquals("Graph contains 0 vertices and 0 edges", graph.toString());
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 2);
+        graph.add("d");
+        assertEquals("Graph contains 4 vertices and 2 edges", graph.toString());
+    }
+
+}
@@ -0,0 +1,169 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for CsrGraph.
+ *
+ * CsrGraph is immutable, so it cannot run the GraphInstanceTest tests; instead it is compared
+ * with the mutable graph it was frozen from.
+ */
+public class CsrGraphTest {
+
+    /*
+     * Testing strategy for CsrGraph
+     *
+     * freeze()
+     *   source graph: empty, vertices without edges, n edges with self loop
+     *   source graph is already frozen
+     *   labels: Comparable (ids in natural order whatever the insertion order), not Comparable
+     * vertices(), sources(), targets(), weight()
+     *   compare with the source graph; vertex in graph, not in graph
+     * id(), label(), outStart()..inWeight()
+     *   ids are dense and adjacency lists are sorted by neighbour id
+     * forEachTargetWhile(), forEachSourceWhile()
+     *   action stops the visit: never, at the first edge (in neighbour id order); vertex not in graph
+     * add(), set(), remove()
+     *   always throw UnsupportedOperationException
+     * toString()
+     *   vertices: 0, n; edges: 0, n
+     */
+
+    private static final String vertex1 = "V1";
+    private static final String vertex2 = "V2";
+    private static final String vertex3 = "V3";
+    private static final String vertex4 = "V4";
+
+    private static Graph<String> sampleGraph() {
+        Graph<String> graph = new ConcreteVerticesGraph<>();
+        graph.set(vertex1, vertex2, 2);
+        graph.set(vertex1, vertex3, 1);
+        graph.set(vertex3, vertex1, 4);
+        graph.set(vertex2, vertex2, 3);
+        graph.add(vertex4);
+        return graph;
+    }
+
+    // Covers freeze of empty graph, toString with no vertices.
+    @Test
+    public void testFreezeEmpty() {
+        CsrGraph<String> frozen = CsrGraph.freeze(new ConcreteEdgesGraph<String>());
+        assertEquals(Collections.emptySet(), frozen.vertices());
+        assertEquals(Collections.emptyMap(), frozen.targets(vertex1));
+        assertEquals("Graph contains 0 vertices and 0 edges", frozen.toString());
+    }
+
+    // Covers freeze of n edges with self loop and isolated vertex, compared with the source graph.
+    @Test
+    public void testFreezeSameObservers() {
+        Graph<String> graph = sampleGraph();
+        CsrGraph<String> frozen = CsrGraph.freeze(graph);
+        assertEquals(graph.vertices(), frozen.vertices());
+        for (String vertex : graph.vertices()) {
+            assertEquals(graph.targets(vertex), frozen.targets(vertex));
+            assertEquals(graph.sources(vertex), frozen.sources(vertex));
+        }
+        assertEquals(2, frozen.weight(vertex1, vertex2));
+        assertEquals(0, frozen.weight(vertex2, vertex1));
+        assertEquals(0, frozen.weight("missing", vertex1));
+        assertEquals("Graph contains 4 vertices and 4 edges", frozen.toString());
+    }
+
+    // Covers dense ids and adjacency lists sorted by neighbour id.
+    @Test
+    public void testIdsAndSortedAdjacency() {
+        CsrGraph<String> frozen = CsrGraph.freeze(sampleGraph());
+        assertEquals(4, frozen.vertexCount());
+        assertEquals(4, frozen.edgeCount());
+        assertEquals(-1, frozen.id("missing"));
+        for (int v = 0; v < frozen.vertexCount(); v++) {
+            assertEquals(v, frozen.id(frozen.label(v)));
+            for (int i = frozen.outStart(v) + 1; i < frozen.outEnd(v); i++) {
+                assertTrue(frozen.outTarget(i - 1) < frozen.outTarget(i));
+            }
+            for (int i = frozen.inStart(v) + 1; i < frozen.inEnd(v); i++) {
+                assertTrue(frozen.inSource(i - 1) < frozen.inSource(i));
+            }
+        }
+        int v1 = frozen.id(vertex1);
+        assertEquals(4, frozen.weight(frozen.id(vertex3), v1));
+    }
+
+    // Covers Comparable labels: ids in natural order whatever the insertion order.
+    @Test
+    public void testFreezeIdsInLabelOrder() {
+        Graph<String> forward = new ConcreteEdgesGraph<>();
+        Graph<String> backward = new ConcreteVerticesGraph<>();
+        for (int i = 0; i < 100; i++) {
+            forward.set("w" + i, "w" + (i + 1), 1);
+            backward.set("w" + (100 - i), "w" + (99 - i), 1);
+        }
+        CsrGraph<String> first = CsrGraph.freeze(forward);
+        CsrGraph<String> second = CsrGraph.freeze(backward);
+        for (int v = 1; v < first.vertexCount(); v++) {
+            assertTrue(first.label(v - 1).compareTo(first.label(v)) < 0);
+            assertEquals(first.label(v), second.label(v));
+        }
+    }
+
+    // Covers labels that are not Comparable.
+    @Test
+    public void testFreezeNotComparable() {
+        Graph<Object> graph = new ConcreteEdgesGraph<>();
+        Object a = new Object();
+        Object b = new Object();
+        graph.set(a, b, 3);
+        CsrGraph<Object> frozen = CsrGraph.freeze(graph);
+        assertEquals(graph.vertices(), frozen.vertices());
+        assertEquals(3, frozen.weight(a, b));
+    }
+
+    // Covers freeze of a frozen graph.
+    @Test
+    public void testFreezeFrozen() {
+        CsrGraph<String> frozen = CsrGraph.freeze(sampleGraph());
+        assertSame(frozen, CsrGraph.freeze(frozen));
+    }
+
+    // Covers add.
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddThrows() {
+        CsrGraph.freeze(sampleGraph()).add(vertex1);
+    }
+
+    // Covers set.
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSetThrows() {
+        CsrGraph.freeze(sampleGraph()).set(vertex1, vertex2, 0);
+    }
+
+    // Covers remove.
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveThrows() {
+        CsrGraph.freeze(sampleGraph()).remove(vertex4);
+    }
+
+    // Covers forEachTargetWhile() and forEachSourceWhile(): stopped at the first edge, never stopped, vertex
+    // not in graph.
+    @Test
+    public void testForEachWhile() {
+        CsrGraph<String> frozen = CsrGraph.freeze(sampleGraph());
+        List<String> visited = new ArrayList<>();
+        assertFalse(frozen.forEachTargetWhile(vertex1, (target, weight) -> !visited.add(target)));
+        assertFalse(frozen.forEachSourceWhile(vertex2, (source, weight) -> !visited.add(source)));
+        assertEquals(List.of(vertex2, vertex1), visited);
+        assertTrue(frozen.forEachTargetWhile(vertex1, (target, weight) -> visited.add(target)));
+        assertEquals(List.of(vertex2, vertex1, vertex2, vertex3), visited);
+        assertTrue(frozen.forEachSourceWhile("missing", (source, weight) -> false));
+    }
+
+}
@@ -0,0 +1,193 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for GraphBuilder.
+ *
+ * The graphs it builds are compared with mutable graphs given the same vertices and edges one at a time.
+ */
+public class GraphBuilderTest {
+
+    /*
+     * Testing strategy for GraphBuilder
+     *
+     * addVertex(), addEdge(), build()
+     *   vertices: none, only isolated, isolated and with edges; vertex added several times
+     *   edges: none, distinct, repeated (weights add up), self loop, in random order
+     *   number of triples: fewer than the initial capacity, many more (grouped and grown several times)
+     *   weight: positive, zero or negative (rejected), sum overflows (rejected) in build() or while grouping
+     *     in addEdge()
+     *   builder used after build() (rejected), after an overflow (rejected)
+     * addEdges()
+     *   triples: none, many in random order; given as a Collection (room made at once), as another Iterable
+     *   a triple of weight zero (rejected, the triples before it added)
+     */
+
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        for (String vertex : expected.vertices()) {
+            assertEquals(expected.targets(vertex), actual.targets(vertex));
+            assertEquals(expected.sources(vertex), actual.sources(vertex));
+        }
+    }
+
+    // Covers no vertices, no edges.
+    @Test
+    public void testEmpty() {
+        CsrGraph<String> graph = Graph.<String>builder().build();
+        assertEquals(Collections.emptySet(), graph.vertices());
+        assertEquals(0, graph.edgeCount());
+    }
+
+    // Covers isolated vertices added several times, distinct and repeated edges, self loop.
+    @Test
+    public void testRepeatedEdgesAddUp() {
+        CsrGraph<String> graph = Graph.<String>builder()
+                .addVertex("a").addVertex("lonely").addVertex("a")
+                .addEdge("a", "b", 2).addEdge("b", "b", 1).addEdge("a", "b", 3).addEdge("c", "a", 4)
+                .build();
+        Graph<String> expected = Graph.empty();
+        expected.add("lonely");
+        expected.set("a", "b", 5);
+        expected.set("b", "b", 1);
+        expected.set("c", "a", 4);
+        assertSameGraph(expected, graph);
+        assertEquals(3, graph.edgeCount());
+    }
+
+    // Covers many triples in random order, grouped and grown several times.
+    @Test
+    public void testManyTriplesAgainstMutableGraph() {
+        Random random = new Random(6005);
+        GraphBuilder<String> builder = Graph.builder();
+        Graph<String> expected = Graph.empty();
+        for (int i = 0; i < 20_000; i++) {
+            String source = "w" + random.nextInt(300);
+            String target = "w" + random.nextInt(300);
+            int weight = 1 + random.nextInt(5);
+            builder.addEdge(source, target, weight);
+            expected.addToWeight(source, target, weight);
+        }
+        assertSameGraph(expected, builder.build());
+    }
+
+    // Covers weight zero and negative.
+    @Test
+    public void testNonPositiveWeightRejected() {
+        GraphBuilder<String> builder = Graph.builder();
+        for (int weight : new int[] { 0, -1 }) {
+            try {
+                builder.addEdge("a", "b", weight);
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    // Covers weights of one edge adding up past Integer.MAX_VALUE.
+    @Test(expected = IllegalArgumentException.class)
+    public void testOverflowRejected() {
+        Graph.<String>builder().addEdge("a", "b", Integer.MAX_VALUE).addEdge("a", "b", 1).build();
+    }
+
+    // Covers overflow while grouping in addEdge(), then use after an overflow.
+    @Test
+    public void testOverflowWhileGroupingLeavesBuilderUnusable() {
+        GraphBuilder<String> builder = Graph.<String>builder().addEdge("z", "w", Integer.MAX_VALUE);
+        try {
+            for (int i = 0; i < 100; i++) {
+                builder.addEdge("x", "y", 1).addEdge("z", "w", 1);
+            }
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("z -> w"));
+        }
+        try {
+            builder.addVertex("a");
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            builder.build();
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    // Covers use after an overflow found by build().
+    @Test(expected = IllegalStateException.class)
+    public void testUseAfterOverflowInBuildRejected() {
+        GraphBuilder<String> builder = Graph.<String>builder()
+                .addEdge("a", "b", Integer.MAX_VALUE).addEdge("a", "b", 1);
+        try {
+            builder.build();
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        builder.addEdge("c", "d", 1);
+    }
+
+    // Covers addEdges() of no triples, and of many triples as a Collection and as another Iterable.
+    @Test
+    public void testAddEdgesAgainstMutableGraph() {
+        Random random = new Random(6005);
+        List<int[]> triples = new ArrayList<>();
+        Graph<String> expected = Graph.empty();
+        for (int i = 0; i < 20_000; i++) {
+            int[] triple = { random.nextInt(300), random.nextInt(300), 1 + random.nextInt(5) };
+            triples.add(triple);
+            expected.addToWeight("w" + triple[0], "w" + triple[1], triple[2]);
+        }
+        CsrGraph<String> empty = Graph.<String>builder()
+                .addEdges(Collections.<int[]>emptyList(), t -> "w" + t[0], t -> "w" + t[1], t -> t[2])
+                .build();
+        assertEquals(Collections.emptySet(), empty.vertices());
+        assertSameGraph(expected, Graph.<String>builder()
+                .addEdges(triples, t -> "w" + t[0], t -> "w" + t[1], t -> t[2])
+                .build());
+        Iterable<int[]> iterable = triples::iterator;
+        assertSameGraph(expected, Graph.<String>builder()
+                .addEdges(iterable, t -> "w" + t[0], t -> "w" + t[1], t -> t[2])
+                .build());
+    }
+
+    // Covers addEdges() with a triple of weight zero after valid ones.
+    @Test
+    public void testAddEdgesNonPositiveWeightRejected() {
+        GraphBuilder<String> builder = Graph.builder();
+        List<int[]> triples = List.of(new int[] { 0, 1, 2 }, new int[] { 1, 2, 0 }, new int[] { 2, 0, 3 });
+        try {
+            builder.addEdges(triples, t -> "w" + t[0], t -> "w" + t[1], t -> t[2]);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        Graph<String> expected = Graph.empty();
+        expected.set("w0", "w1", 2);
+        assertSameGraph(expected, builder.build());
+    }
+
+    // Covers use after build().
+    @Test(expected = IllegalStateException.class)
+    public void testUseAfterBuildRejected() {
+        GraphBuilder<String> builder = Graph.builder();
+        builder.build();
+        builder.addVertex("a");
+    }
+
+}
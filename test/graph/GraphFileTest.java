@@ -0,0 +1,211 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Test;
+
+/**
+ * Tests for GraphFile.
+ */
+public class GraphFileTest {
+
+    /*
+     * Testing strategy for GraphFile
+     *
+     * write(), read()
+     *   graph: empty, vertices without edges, n edges with self loop
+     *   labels: ASCII, non-ASCII, empty string
+     *   weights and target gaps: one varint byte, several varint bytes
+     *   file: written by write(), bad magic, unsupported version, truncated, labels unsorted or duplicate,
+     *         target gap zero (duplicate target) or negative
+     */
+
+    private static File tempFile() throws IOException {
+        File file = File.createTempFile("graph", ".wagf");
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static CsrGraph<String> roundTrip(Graph<String> graph) throws IOException {
+        File file = tempFile();
+        GraphFile.write(graph, file);
+        return GraphFile.read(file);
+    }
+
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        for (String vertex : expected.vertices()) {
+            assertEquals(expected.targets(vertex), actual.targets(vertex));
+            assertEquals(expected.sources(vertex), actual.sources(vertex));
+        }
+    }
+
+    // Covers empty graph.
+    @Test
+    public void testEmptyGraph() throws IOException {
+        CsrGraph<String> read = roundTrip(Graph.empty());
+        assertEquals(0, read.vertexCount());
+        assertEquals(0, read.edgeCount());
+    }
+
+    // Covers vertices without edges, empty and non-ASCII labels.
+    @Test
+    public void testVerticesWithoutEdges() throws IOException {
+        Graph<String> graph = Graph.empty();
+        graph.add("");
+        graph.add("caf\u00e9");
+        graph.add("\u65e5\u672c");
+        graph.add("zebra");
+        assertSameGraph(graph, roundTrip(graph));
+    }
+
+    // Covers n edges, self loop, multi-byte varint weights and target gaps; ids follow label order.
+    @Test
+    public void testEdgesAndLabelOrder() throws IOException {
+        Graph<String> graph = Graph.empty();
+        for (int i = 0; i < 300; i++) {
+            graph.add("w" + i);
+        }
+        graph.set("w7", "w7", 1);
+        graph.set("w7", "w299", Integer.MAX_VALUE);
+        graph.set("w299", "w0", 128);
+        graph.set("w0", "w7", 300);
+        graph.set("\u00e9t\u00e9", "w0", 2);
+        CsrGraph<String> read = roundTrip(graph);
+        assertSameGraph(graph, read);
+        for (int id = 1; id < read.vertexCount(); id++) {
+            assertTrue(read.label(id - 1).compareTo(read.label(id)) < 0);
+        }
+    }
+
+    // Covers a file that is not a graph file.
+    @Test(expected = IOException.class)
+    public void testBadMagic() throws IOException {
+        File file = tempFile();
+        GraphFile.write(Graph.empty(), file);
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.writeInt(0x12345678);
+        }
+        GraphFile.read(file);
+    }
+
+    // Covers an unsupported version.
+    @Test
+    public void testUnsupportedVersion() throws IOException {
+        File file = tempFile();
+        GraphFile.write(Graph.empty(), file);
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(4);
+            raw.writeShort(GraphFile.VERSION + 1);
+        }
+        try {
+            GraphFile.read(file);
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("version"));
+        }
+    }
+
+    // Covers a truncated file.
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 1);
+        File file = tempFile();
+        GraphFile.write(graph, file);
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(raw.length() - 9);
+        }
+        GraphFile.read(file);
+    }
+
+    /**
+     * Write a version 1 graph file by hand.
+     * @param labels ASCII labels, in file order
+     * @param adjacency for each vertex the bytes of its adjacency: its degree, then the target gap and weight of
+     *                  each edge, as varints
+     * @return the file
+     */
+    private static File handMade(String[] labels, int[][] adjacency) throws IOException {
+        File file = tempFile();
+        int edges = 0;
+        int stringBytes = 0;
+        int adjacencyBytes = 0;
+        for (int v = 0; v < labels.length; v++) {
+            edges += adjacency[v][0];
+            stringBytes += labels[v].length();
+            adjacencyBytes += adjacency[v].length;
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.writeInt(GraphFile.MAGIC);
+            raw.writeShort(1);
+            raw.writeShort(0);
+            raw.writeInt(labels.length);
+            raw.writeInt(edges);
+            raw.writeLong(40);
+            raw.writeLong(40 + stringBytes);
+            raw.writeLong(40 + stringBytes + adjacencyBytes);
+            for (String label : labels) {
+                raw.writeBytes(label);
+            }
+            for (int[] edgeList : adjacency) {
+                for (int value : edgeList) {
+                    raw.write(value);
+                }
+            }
+            long offset = 0;
+            raw.writeLong(offset);
+            for (String label : labels) {
+                raw.writeLong(offset += label.length());
+            }
+            offset = 0;
+            raw.writeLong(offset);
+            for (int[] edgeList : adjacency) {
+                raw.writeLong(offset += edgeList.length);
+            }
+        }
+        return file;
+    }
+
+    // Covers a well-formed hand-made file, the baseline of the corrupt ones below.
+    @Test
+    public void testHandMade() throws IOException {
+        CsrGraph<String> graph = GraphFile.read(handMade(new String[] { "a", "b" }, new int[][] {
+            { 2, 0, 5, 1, 3 }, { 0 } }));
+        assertEquals(5, graph.weight("a", "a"));
+        assertEquals(3, graph.weight("a", "b"));
+    }
+
+    // Covers labels out of order, which MappedGraph.id() could not find by binary search.
+    @Test(expected = IOException.class)
+    public void testUnsortedLabels() throws IOException {
+        GraphFile.read(handMade(new String[] { "b", "a" }, new int[][] { { 0 }, { 0 } }));
+    }
+
+    // Covers a label repeated.
+    @Test(expected = IOException.class)
+    public void testDuplicateLabels() throws IOException {
+        GraphFile.read(handMade(new String[] { "a", "a" }, new int[][] { { 0 }, { 0 } }));
+    }
+
+    // Covers a target gap of zero after the first target, a duplicate edge.
+    @Test(expected = IOException.class)
+    public void testDuplicateTarget() throws IOException {
+        GraphFile.read(handMade(new String[] { "a", "b" }, new int[][] { { 2, 1, 5, 0, 3 }, { 0 } }));
+    }
+
+    // Covers a negative target gap (a varint of 2^32 - 1), which would move back to an earlier target.
+    @Test(expected = IOException.class)
+    public void testNegativeTargetGap() throws IOException {
+        GraphFile.read(handMade(new String[] { "a", "b" }, new int[][] { { 2, 1, 5, 0xff, 0xff, 0xff, 0xff, 0x0f, 3 },
+            { 0 } }));
+    }
+
+}
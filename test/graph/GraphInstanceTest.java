@@ -54,6 +54,24 @@ public abstract class GraphInstanceTest {
      * vertices():
      *   returns a set of all vertices in Graph
      *   Test different graph sizes: 0,1, n
+     * weight():
+     *   returns the weight of an edge. Cases:
+     *      1. Edge is in graph? Source is in graph?
+     *      2. Edge was removed with weight 0
+     * addToWeight():
+     *   returns the new weight and changes the edge like set(). Cases:
+     *      1. Source and target are in graph? Edge is in graph?
+     *      2. Delta: positive, zero, negative down to zero (removes the edge), below zero (rejected),
+     *         past Integer.MAX_VALUE (rejected)
+     * forEachTarget(), forEachSource():
+     *   visit the same entries as targets() and sources(). Cases:
+     *      1. Vertex is in graph?
+     *      2. Visited edges: 0, n
+     * forEachTargetWhile(), forEachSourceWhile():
+     *   visit entries of targets() and sources() until the action returns false. Cases:
+     *      1. Vertex is in graph?
+     *      2. Action stops the visit: never (every entry visited, returns true), at the first edge of n
+     *         (one entry visited, returns false)
      */
 
     private static final String vertex1 = "V1";
@@ -353,4 +371,150 @@ public abstract class GraphInstanceTest {
         assertEquals(3, vertices.size());
     }
 
+    /**
+     * Tests for weight() method
+     */
+
+    // Covers:  source not in Graph, edge in Graph, edge removed.
+    @Test
+    public void testWeight() {
+        Graph<String> testGraph = emptyInstance();
+        assertEquals(0, testGraph.weight(vertex1, vertex2));
+        testGraph.set(vertex1, vertex2, weight2);
+        assertEquals(weight2, testGraph.weight(vertex1, vertex2));
+        assertEquals(0, testGraph.weight(vertex2, vertex1));
+        testGraph.set(vertex1, vertex2, weight0);
+        assertEquals(0, testGraph.weight(vertex1, vertex2));
+    }
+
+    /**
+     * Tests for addToWeight() method
+     */
+
+    // Covers:  vertices not in Graph, positive delta on missing and existing edge, delta = 0.
+    @Test
+    public void testAddToWeightPositive() {
+        Graph<String> testGraph = emptyInstance();
+        assertEquals(weight1, testGraph.addToWeight(vertex1, vertex2, weight1));
+        assertEquals(weight1 + weight2, testGraph.addToWeight(vertex1, vertex2, weight2));
+        assertEquals(weight1 + weight2, testGraph.addToWeight(vertex1, vertex2, weight0));
+        assertEquals(new HashSet<>(Arrays.asList(vertex1, vertex2)), testGraph.vertices());
+        assertEquals(Collections.singletonMap(vertex1, weight1 + weight2), testGraph.sources(vertex2));
+        assertEquals(Collections.singletonMap(vertex2, weight1 + weight2), testGraph.targets(vertex1));
+    }
+
+    // Covers:  negative delta, new weight = 0 removes the edge and keeps the vertices, self loop.
+    @Test
+    public void testAddToWeightNegative() {
+        Graph<String> testGraph = emptyInstance();
+        testGraph.set(vertex1, vertex1, weight2);
+        assertEquals(weight2 - weight1, testGraph.addToWeight(vertex1, vertex1, -weight1));
+        assertEquals(0, testGraph.addToWeight(vertex1, vertex1, weight1 - weight2));
+        assertEquals(0, testGraph.weight(vertex1, vertex1));
+        assertEquals(Collections.emptyMap(), testGraph.sources(vertex1));
+        assertEquals(Collections.singleton(vertex1), testGraph.vertices());
+        assertEquals(0, testGraph.addToWeight(vertex2, vertex3, weight0));
+        assertEquals(Collections.singleton(vertex1), testGraph.vertices());
+    }
+
+    // Covers:  new weight below zero is rejected and leaves the graph unchanged.
+    @Test
+    public void testAddToWeightBelowZero() {
+        Graph<String> testGraph = emptyInstance();
+        testGraph.set(vertex1, vertex2, weight1);
+        try {
+            testGraph.addToWeight(vertex1, vertex2, -weight2);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(weight1, testGraph.weight(vertex1, vertex2));
+        }
+    }
+
+    // Covers:  new weight past Integer.MAX_VALUE is rejected and leaves the graph unchanged.
+    @Test
+    public void testAddToWeightOverflow() {
+        Graph<String> testGraph = emptyInstance();
+        testGraph.set(vertex1, vertex2, Integer.MAX_VALUE - weight1);
+        assertEquals(Integer.MAX_VALUE, testGraph.addToWeight(vertex1, vertex2, weight1));
+        try {
+            testGraph.addToWeight(vertex1, vertex2, weight1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(Integer.MAX_VALUE, testGraph.weight(vertex1, vertex2));
+            assertEquals(Collections.singletonMap(vertex1, Integer.MAX_VALUE), testGraph.sources(vertex2));
+        }
+    }
+
+    /**
+     * Tests for forEachTarget() and forEachSource() methods
+     */
+
+    // Covers:  vertex not in Graph, visited edges = 0.
+    @Test
+    public void testForEachTargetAndSourceMissingVertex() {
+        Graph<String> testGraph = emptyInstance();
+        Map<String, Integer> visited = new HashMap<>();
+        testGraph.forEachTarget(vertex1, visited::put);
+        testGraph.forEachSource(vertex1, visited::put);
+        assertEquals(Collections.emptyMap(), visited);
+    }
+
+    // Covers:  vertex in Graph, visited edges = n, self loop.
+    @Test
+    public void testForEachTargetAndSourceManyEdges() {
+        Graph<String> testGraph = emptyInstance();
+        testGraph.set(vertex1, vertex1, weight1);
+        testGraph.set(vertex1, vertex2, weight2);
+        testGraph.set(vertex3, vertex1, weight2);
+        Map<String, Integer> visitedTargets = new HashMap<>();
+        testGraph.forEachTarget(vertex1, visitedTargets::put);
+        assertEquals(testGraph.targets(vertex1), visitedTargets);
+        Map<String, Integer> visitedSources = new HashMap<>();
+        testGraph.forEachSource(vertex1, visitedSources::put);
+        assertEquals(testGraph.sources(vertex1), visitedSources);
+    }
+
+    // Covers:  vertex not in Graph.
+    @Test
+    public void testForEachTargetAndSourceWhileMissingVertex() {
+        Graph<String> testGraph = emptyInstance();
+        Map<String, Integer> visited = new HashMap<>();
+        assertTrue(testGraph.forEachTargetWhile(vertex1, (target, weight) -> visited.put(target, weight) == null));
+        assertTrue(testGraph.forEachSourceWhile(vertex1, (source, weight) -> visited.put(source, weight) == null));
+        assertEquals(Collections.emptyMap(), visited);
+    }
+
+    // Covers:  vertex in Graph, action never stops, action stops at the first of n edges.
+    @Test
+    public void testForEachTargetAndSourceWhileStops() {
+        Graph<String> testGraph = emptyInstance();
+        testGraph.set(vertex1, vertex1, weight1);
+        testGraph.set(vertex1, vertex2, weight2);
+        testGraph.set(vertex1, vertex3, weight1);
+        testGraph.set(vertex3, vertex1, weight2);
+        Map<String, Integer> visitedTargets = new HashMap<>();
+        assertTrue(testGraph.forEachTargetWhile(vertex1,
+                (target, weight) -> visitedTargets.put(target, weight) == null));
+        assertEquals(testGraph.targets(vertex1), visitedTargets);
+        Map<String, Integer> visitedSources = new HashMap<>();
+        assertTrue(testGraph.forEachSourceWhile(vertex1,
+                (source, weight) -> visitedSources.put(source, weight) == null));
+        assertEquals(testGraph.sources(vertex1), visitedSources);
+
+        Map<String, Integer> firstTarget = new HashMap<>();
+        assertFalse(testGraph.forEachTargetWhile(vertex1, (target, weight) -> {
+            firstTarget.put(target, weight);
+            return false;
+        }));
+        assertEquals(1, firstTarget.size());
+        assertTrue(testGraph.targets(vertex1).entrySet().containsAll(firstTarget.entrySet()));
+        Map<String, Integer> firstSource = new HashMap<>();
+        assertFalse(testGraph.forEachSourceWhile(vertex1, (source, weight) -> {
+            firstSource.put(source, weight);
+            return false;
+        }));
+        assertEquals(1, firstSource.size());
+        assertTrue(testGraph.sources(vertex1).entrySet().containsAll(firstSource.entrySet()));
+    }
+
 }
@@ -0,0 +1,104 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for IntIntMap.
+ */
+public class IntIntMapTest {
+
+    /*
+     * Testing strategy for IntIntMap
+     *
+     * put()
+     *   new key, existing key, key 0, value 0 (removes the key)
+     *   number of entries: 0, 1, n (forces resizing)
+     * add()
+     *   new key, existing key, sum of zero (removes the key), delta of zero on absent key, sum that overflows
+     * get(), containsKey()
+     *   key present, key absent, negative key
+     * remove()
+     *   key present, key absent, key in the middle of a probe run
+     * forEach(), toString()
+     *   number of entries: 0, 1, n
+     */
+
+    // Covers put of new, existing and zero key, get of present, absent and negative key, toString.
+    @Test
+    public void testPutAndGet() {
+        IntIntMap map = new IntIntMap();
+        assertEquals("{}", map.toString());
+        assertEquals(0, map.put(0, 1));
+        assertEquals(1, map.put(0, 3));
+        assertEquals(3, map.get(0));
+        assertEquals(0, map.get(1));
+        assertFalse(map.containsKey(-1));
+        assertEquals(1, map.size());
+        assertEquals("{0=3}", map.toString());
+    }
+
+    // Covers put of value 0, remove of present and absent key.
+    @Test
+    public void testRemove() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        map.put(2, 2);
+        assertEquals(1, map.put(1, 0));
+        assertFalse(map.containsKey(1));
+        assertEquals(2, map.remove(2));
+        assertEquals(0, map.remove(2));
+        assertEquals(0, map.size());
+    }
+
+    // Covers n entries with colliding probe runs, removal in the middle of runs, forEach.
+    @Test
+    public void testManyEntriesAgainstHashMap() {
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> model = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 64, i + 1);
+            model.put(i * 64, i + 1);
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            assertEquals(i + 1, map.remove(i * 64));
+            model.remove(i * 64);
+        }
+        assertEquals(model.size(), map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(model.getOrDefault(i * 64, 0).intValue(), map.get(i * 64));
+        }
+        Map<Integer, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(model, visited);
+    }
+
+    // Covers add to new and existing key, sum of zero, delta of zero on absent key, sum that overflows.
+    @Test
+    public void testAdd() {
+        IntIntMap map = new IntIntMap();
+        assertEquals(2, map.add(7, 2));
+        assertEquals(5, map.add(7, 3));
+        assertEquals(5, map.get(7));
+        assertEquals(0, map.add(7, -5));
+        assertFalse(map.containsKey(7));
+        assertEquals(0, map.add(8, 0));
+        assertFalse(map.containsKey(8));
+        assertEquals(0, map.size());
+        map.put(7, Integer.MAX_VALUE);
+        try {
+            map.add(7, 1);
+            fail("expected ArithmeticException");
+        } catch (ArithmeticException e) {
+            assertEquals(Integer.MAX_VALUE, map.get(7));
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for LabelDictionary.
+ */
+public class LabelDictionaryTest {
+
+    /*
+     * Testing strategy for LabelDictionary
+     *
+     * intern(), id(), label()
+     *   label new, already interned, never interned, null
+     *   number of labels: 0, 1, n (forces growth)
+     * release()
+     *   released id is reused by the next new label; other ids unchanged
+     * size(), idLimit(), labels()
+     *   before and after release
+     */
+
+    // Covers empty dictionary, id of a never interned and of a null label.
+    @Test
+    public void testEmpty() {
+        LabelDictionary<String> dictionary = new LabelDictionary<>();
+        assertEquals(-1, dictionary.id("a"));
+        assertEquals(-1, dictionary.id(null));
+        assertEquals(0, dictionary.size());
+        assertEquals(0, dictionary.idLimit());
+        assertEquals(Collections.emptySet(), dictionary.labels());
+    }
+
+    // Covers n new labels with dense ids, interning again, label().
+    @Test
+    public void testDenseIds() {
+        LabelDictionary<String> dictionary = new LabelDictionary<>();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, dictionary.intern("w" + i));
+        }
+        assertEquals(42, dictionary.intern("w42"));
+        assertEquals(42, dictionary.id("w42"));
+        assertEquals("w99", dictionary.label(99));
+        assertEquals(100, dictionary.size());
+        assertEquals(100, dictionary.idLimit());
+    }
+
+    // Covers release, reuse of the released id, labels() after release.
+    @Test
+    public void testReleaseReusesId() {
+        LabelDictionary<String> dictionary = new LabelDictionary<>();
+        dictionary.intern("a");
+        dictionary.intern("b");
+        dictionary.intern("c");
+        dictionary.release(1);
+        assertEquals(-1, dictionary.id("b"));
+        assertEquals(Set.of("a", "c"), dictionary.labels());
+        assertEquals(2, dictionary.size());
+        assertEquals(1, dictionary.intern("d"));
+        assertEquals(2, dictionary.id("c"));
+        assertEquals("d", dictionary.label(1));
+        assertEquals(3, dictionary.idLimit());
+    }
+
+}
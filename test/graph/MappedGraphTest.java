@@ -0,0 +1,217 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for MappedGraph.
+ *
+ * MappedGraph is immutable, so it cannot run the GraphInstanceTest tests; instead it is compared
+ * with the mutable graph whose file it maps.
+ */
+public class MappedGraphTest {
+
+    /*
+     * Testing strategy for MappedGraph
+     *
+     * open()
+     *   graph: empty, vertices without edges, n edges with self loop
+     *   chunks: one, many (records and index longs cross chunk boundaries)
+     *   file: version 2, version 1, not a graph file
+     * vertices(), sources(), targets(), weight()
+     *   compare with the written graph; vertex in graph, not in graph
+     *   labels: ASCII, non-ASCII, empty string, prefix of another label
+     * id(), label(), weight(int, int), forEachTarget(int, ...), forEachSource(int, ...)
+     *   ids follow label order; neighbours in increasing id order
+     * forEachTargetWhile(), forEachSourceWhile()
+     *   action stops the visit: never, at the first edge (in neighbour id order); vertex not in graph
+     *   CsrGraph.freeze() keeps the ids
+     * add(), set(), remove()
+     *   always throw UnsupportedOperationException
+     * toString()
+     *   vertices: 0, n; edges: 0, n
+     */
+
+    private static File write(Graph<String> graph) throws IOException {
+        File file = File.createTempFile("graph", ".wagf");
+        file.deleteOnExit();
+        GraphFile.write(graph, file);
+        return file;
+    }
+
+    private static Graph<String> sampleGraph() {
+        Graph<String> graph = new ConcreteVerticesGraph<>();
+        graph.set("a", "ab", 2);
+        graph.set("a", "\u00e9t\u00e9", 1);
+        graph.set("\u00e9t\u00e9", "a", 300);
+        graph.set("ab", "ab", 3);
+        graph.add("");
+        return graph;
+    }
+
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        for (String vertex : expected.vertices()) {
+            assertEquals(expected.targets(vertex), actual.targets(vertex));
+            assertEquals(expected.sources(vertex), actual.sources(vertex));
+            for (String other : expected.vertices()) {
+                assertEquals(expected.weight(vertex, other), actual.weight(vertex, other));
+            }
+        }
+    }
+
+    // Covers empty graph, toString with no vertices.
+    @Test
+    public void testEmpty() throws IOException {
+        MappedGraph mapped = MappedGraph.open(write(Graph.empty()));
+        assertEquals(Collections.emptySet(), mapped.vertices());
+        assertEquals(Collections.emptyMap(), mapped.targets("a"));
+        assertEquals(-1, mapped.id("a"));
+        assertEquals("Graph contains 0 vertices and 0 edges", mapped.toString());
+    }
+
+    // Covers n edges with self loop, non-ASCII, empty and prefix labels, vertex not in graph, one chunk.
+    @Test
+    public void testSameObservers() throws IOException {
+        Graph<String> graph = sampleGraph();
+        MappedGraph mapped = MappedGraph.open(write(graph));
+        assertSameGraph(graph, mapped);
+        assertEquals(0, mapped.weight("missing", "a"));
+        assertEquals(0, mapped.weight("a", "missing"));
+        assertEquals(Collections.emptyMap(), mapped.sources("missing"));
+        assertEquals(-1, mapped.id("abc"));
+        assertEquals("Graph contains 4 vertices and 4 edges", mapped.toString());
+    }
+
+    // Covers ids in label order, id observers, neighbours in increasing id order.
+    @Test
+    public void testIds() throws IOException {
+        MappedGraph mapped = MappedGraph.open(write(sampleGraph()));
+        assertEquals(4, mapped.vertexCount());
+        assertEquals(4, mapped.edgeCount());
+        String[] sorted = { "", "a", "ab", "\u00e9t\u00e9" };
+        for (int id = 0; id < sorted.length; id++) {
+            assertEquals(sorted[id], mapped.label(id));
+            assertEquals(id, mapped.id(sorted[id]));
+        }
+        int a = mapped.id("a");
+        int ab = mapped.id("ab");
+        int ete = mapped.id("\u00e9t\u00e9");
+        assertEquals(300, mapped.weight(ete, a));
+        assertEquals(0, mapped.weight(a, a));
+        List<Integer> targets = new ArrayList<>();
+        mapped.forEachTarget(a, (target, weight) -> targets.add(target));
+        assertEquals(List.of(ab, ete), targets);
+        List<Integer> sources = new ArrayList<>();
+        mapped.forEachSource(ab, (source, weight) -> sources.add(source));
+        assertEquals(List.of(a, ab), sources);
+    }
+
+    // Covers CsrGraph.freeze() of a mapped graph, which keeps its ids.
+    @Test
+    public void testFreezeKeepsIds() throws IOException {
+        MappedGraph mapped = MappedGraph.open(write(sampleGraph()));
+        CsrGraph<String> frozen = CsrGraph.freeze(mapped);
+        assertSameGraph(mapped, frozen);
+        for (int id = 0; id < mapped.vertexCount(); id++) {
+            assertEquals(mapped.label(id), frozen.label(id));
+        }
+    }
+
+    // Covers many chunks: tiny chunks split labels, varints and index longs.
+    @Test
+    public void testManyChunks() throws IOException {
+        Random random = new Random(6005);
+        Graph<String> graph = new ConcreteEdgesGraph<>();
+        for (int i = 0; i < 400; i++) {
+            graph.addToWeight("w" + random.nextInt(60), "w" + random.nextInt(60), 1 + random.nextInt(1000));
+        }
+        File file = write(graph);
+        for (long chunkSize : new long[] { 8, 64, 1 << 20 }) {
+            assertSameGraph(graph, MappedGraph.open(file, chunkSize));
+        }
+    }
+
+    // Covers version 1 file: readable by GraphFile.read(), but has no sources section to map.
+    @Test
+    public void testVersion1() throws IOException {
+        File file = File.createTempFile("graph", ".wagf");
+        file.deleteOnExit();
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            // a -> b of weight 3: header, strings "ab", adjacency {1, 1, 3} {0}, string and adjacency offsets
+            raw.writeInt(GraphFile.MAGIC);
+            raw.writeShort(1);
+            raw.writeShort(0);
+            raw.writeInt(2);
+            raw.writeInt(1);
+            raw.writeLong(40);
+            raw.writeLong(42);
+            raw.writeLong(46);
+            raw.writeBytes("ab");
+            raw.write(new byte[] { 1, 1, 3, 0 });
+            for (long offset : new long[] { 0, 1, 2, 0, 3, 4 }) {
+                raw.writeLong(offset);
+            }
+        }
+        assertEquals(3, GraphFile.read(file).weight("a", "b"));
+        try {
+            MappedGraph.open(file);
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("version 1"));
+        }
+    }
+
+    // Covers a file that is not a graph file.
+    @Test(expected = IOException.class)
+    public void testNotAGraphFile() throws IOException {
+        File file = File.createTempFile("graph", ".txt");
+        file.deleteOnExit();
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.writeBytes("Not a graph file, but long enough to hold a header of one.");
+        }
+        MappedGraph.open(file);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddThrows() throws IOException {
+        MappedGraph.open(write(sampleGraph())).add("new");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSetThrows() throws IOException {
+        MappedGraph.open(write(sampleGraph())).set("a", "ab", 5);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveThrows() throws IOException {
+        MappedGraph.open(write(sampleGraph())).remove("a");
+    }
+
+    // Covers forEachTargetWhile() and forEachSourceWhile(): stopped at the first edge, never stopped, vertex
+    // not in graph.
+    @Test
+    public void testForEachWhile() throws IOException {
+        MappedGraph mapped = MappedGraph.open(write(sampleGraph()));
+        List<String> visited = new ArrayList<>();
+        assertFalse(mapped.forEachTargetWhile("a", (target, weight) -> !visited.add(target)));
+        assertFalse(mapped.forEachSourceWhile("ab", (source, weight) -> !visited.add(source)));
+        assertEquals(List.of("ab", "a"), visited);
+        assertTrue(mapped.forEachTargetWhile("a", (target, weight) -> visited.add(target)));
+        assertEquals(List.of("ab", "a", "ab", "\u00e9t\u00e9"), visited);
+        assertTrue(mapped.forEachSourceWhile("missing", (source, weight) -> false));
+    }
+
+}
@@ -0,0 +1,78 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for ObjIntMap.
+ */
+public class ObjIntMapTest {
+
+    /*
+     * Testing strategy for ObjIntMap
+     *
+     * put()
+     *   new key, existing key, value 0 (removes the key)
+     *   number of entries: 0, 1, n (forces resizing)
+     * get()
+     *   key present, key absent, null key
+     * remove()
+     *   key present, key absent, key in the middle of a probe run
+     * toString()
+     *   number of entries: 0, 1
+     */
+
+    // Covers put of new and existing key, get of present and absent key.
+    @Test
+    public void testPutAndGet() {
+        ObjIntMap<String> map = new ObjIntMap<>();
+        assertEquals(0, map.put("a", 1));
+        assertEquals(1, map.put("a", 3));
+        assertEquals(3, map.get("a"));
+        assertEquals(0, map.get("b"));
+        assertEquals(0, map.get(null));
+        assertEquals(1, map.size());
+        assertEquals("{a=3}", map.toString());
+    }
+
+    // Covers put of value 0, remove of present and absent key.
+    @Test
+    public void testRemove() {
+        ObjIntMap<String> map = new ObjIntMap<>();
+        map.put("a", 1);
+        map.put("b", 2);
+        assertEquals(1, map.put("a", 0));
+        assertEquals(0, map.get("a"));
+        assertEquals(2, map.remove("b"));
+        assertEquals(0, map.remove("b"));
+        assertEquals(0, map.size());
+        assertEquals("{}", map.toString());
+    }
+
+    // Covers n entries with colliding probe runs, removal in the middle of runs.
+    @Test
+    public void testManyEntriesAgainstHashMap() {
+        ObjIntMap<Integer> map = new ObjIntMap<>();
+        Map<Integer, Integer> model = new HashMap<>();
+        for (int i = 1; i <= 1000; i++) {
+            map.put(i * 64, i);
+            model.put(i * 64, i);
+        }
+        for (int i = 1; i <= 1000; i += 3) {
+            assertEquals(i, map.remove(i * 64));
+            model.remove(i * 64);
+        }
+        assertEquals(model.size(), map.size());
+        for (int i = 1; i <= 1000; i++) {
+            assertEquals(model.getOrDefault(i * 64, 0).intValue(), map.get(i * 64));
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algo;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import graph.ConcreteVerticesGraph;
+import graph.CsrGraph;
+import graph.Graph;
+
+/**
+ * Tests for PageRank.
+ */
+public class PageRankTest {
+
+    /*
+     * Testing strategy for PageRank
+     *
+     * of(), ranks()
+     *   graph: empty, one vertex, cycle (uniform ranks), star into a hub, dangling vertices
+     *   weights: uniform, skewed (heavier edge carries more rank)
+     *   damping: 0 (uniform ranks), default; invalid damping, tolerance, iterations
+     *   ranks sum to 1; same ranks as a sequential power iteration on a random graph
+     */
+
+    private static final double EPSILON = 1e-9;
+
+    private static double sum(Map<String, Double> ranks) {
+        return ranks.values().stream().mapToDouble(Double::doubleValue).sum();
+    }
+
+    // Covers empty graph and one vertex.
+    @Test
+    public void testTrivial() {
+        assertEquals(Collections.emptyMap(), PageRank.of(Graph.empty()));
+        Graph<String> one = Graph.empty();
+        one.add("a");
+        assertEquals(1.0, PageRank.of(one).get("a"), EPSILON);
+    }
+
+    // Covers cycle with uniform weights: uniform ranks.
+    @Test
+    public void testCycle() {
+        Graph<String> graph = new ConcreteVerticesGraph<>();
+        graph.set("a", "b", 3);
+        graph.set("b", "c", 3);
+        graph.set("c", "a", 3);
+        Map<String, Double> ranks = PageRank.of(graph);
+        for (double rank : ranks.values()) {
+            assertEquals(1.0 / 3, rank, 1e-6);
+        }
+    }
+
+    // Covers star into a hub, dangling hub, skewed weights, damping 0, ranks sum to 1.
+    @Test
+    public void testHubAndWeights() {
+        Graph<String> graph = new ConcreteVerticesGraph<>();
+        graph.set("a", "hub", 1);
+        graph.set("b", "hub", 1);
+        graph.set("c", "hub", 1);
+        graph.set("c", "a", 9);
+        Map<String, Double> ranks = PageRank.of(graph);
+        assertEquals(1.0, sum(ranks), 1e-6);
+        assertTrue(ranks.get("hub") > ranks.get("a"));
+        assertTrue(ranks.get("a") > ranks.get("b"));
+        assertEquals(ranks.get("b"), ranks.get("c"), 1e-9);
+        Map<String, Double> uniform = PageRank.of(graph, 0, 0, 5);
+        for (double rank : uniform.values()) {
+            assertEquals(0.25, rank, EPSILON);
+        }
+    }
+
+    // Covers random graph: the parallel iteration matches a sequential one on labels.
+    @Test
+    public void testRandomGraph() {
+        Random random = new Random(6005);
+        Graph<String> graph = new ConcreteVerticesGraph<>();
+        int n = 500;
+        for (int v = 0; v < n; v++) {
+            graph.add("v" + v);
+        }
+        for (int e = 0; e < 3000; e++) {
+            // sources skip the last vertices, which are left dangling
+            graph.addToWeight("v" + random.nextInt(n - 50), "v" + random.nextInt(n), 1 + random.nextInt(5));
+        }
+        int iterations = 30;
+        double damping = PageRank.DEFAULT_DAMPING;
+        Map<String, Double> expected = new HashMap<>();
+        for (String v : graph.vertices()) {
+            expected.put(v, 1.0 / n);
+        }
+        for (int i = 0; i < iterations; i++) {
+            Map<String, Double> next = new HashMap<>();
+            double dangling = 0;
+            for (String u : graph.vertices()) {
+                long out = graph.targets(u).values().stream().mapToLong(Integer::longValue).sum();
+                if (out == 0) {
+                    dangling += expected.get(u);
+                }
+            }
+            for (String v : graph.vertices()) {
+                double pulled = 0;
+                for (Map.Entry<String, Integer> source : graph.sources(v).entrySet()) {
+                    long out = graph.targets(source.getKey()).values().stream().mapToLong(Integer::longValue).sum();
+                    pulled += expected.get(source.getKey()) * source.getValue() / out;
+                }
+                next.put(v, (1 - damping) / n + damping * (dangling / n + pulled));
+            }
+            expected = next;
+        }
+        CsrGraph<String> frozen = CsrGraph.freeze(graph);
+        double[] ranks = PageRank.ranks(frozen, damping, 0, iterations);
+        for (int v = 0; v < n; v++) {
+            assertEquals(expected.get(frozen.label(v)), ranks[v], 1e-12);
+        }
+        assertEquals(1.0, sum(PageRank.of(graph)), 1e-6);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testInvalidDamping() {
+        PageRank.of(Graph.empty(), 1, 0, 10);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testInvalidTolerance() {
+        PageRank.of(Graph.empty(), 0.5, Double.NaN, 10);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testInvalidIterations() {
+        PageRank.of(Graph.empty(), 0.5, 0, 0);
+    }
+
+}
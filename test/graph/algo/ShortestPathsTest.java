@@ -0,0 +1,144 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algo;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import graph.ConcreteVerticesGraph;
+import graph.CsrGraph;
+import graph.Graph;
+
+/**
+ * Tests for ShortestPaths.
+ */
+public class ShortestPathsTest {
+
+    /*
+     * Testing strategy for ShortestPaths
+     *
+     * distances()
+     *   graph: empty, n vertices; source: in graph, not in graph
+     *   vertices: reachable, unreachable; shortest path: direct edge, longer path of lighter edges
+     *   graph: mutable, already frozen; compare with Bellman-Ford on random graphs
+     * path()
+     *   path: none, source == target, several edges; vertex not in graph
+     *   estimate: zero (Dijkstra), consistent non-zero (A*), both give paths of the same length
+     */
+
+    /** a -> b -> c -> d costs 3, a -> d costs 10, a -> c costs 5; e is unreachable. */
+    private static Graph<String> sampleGraph() {
+        Graph<String> graph = new ConcreteVerticesGraph<>();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 1);
+        graph.set("c", "d", 1);
+        graph.set("a", "d", 10);
+        graph.set("a", "c", 5);
+        graph.set("e", "a", 1);
+        return graph;
+    }
+
+    private static long length(Graph<String> graph, List<String> path) {
+        long length = 0;
+        for (int i = 1; i < path.size(); i++) {
+            int weight = graph.weight(path.get(i - 1), path.get(i));
+            assertTrue("not an edge: " + path, weight > 0);
+            length += weight;
+        }
+        return length;
+    }
+
+    // Covers empty graph, source not in graph.
+    @Test
+    public void testEmpty() {
+        assertEquals(Collections.emptyMap(), ShortestPaths.distances(Graph.empty(), "a"));
+        assertEquals(Collections.emptyList(), ShortestPaths.path(Graph.empty(), "a", "a"));
+        assertEquals(Collections.emptyMap(), ShortestPaths.distances(sampleGraph(), "missing"));
+        assertEquals(Collections.emptyList(), ShortestPaths.path(sampleGraph(), "a", "missing"));
+    }
+
+    // Covers reachable and unreachable vertices, longer path of lighter edges, mutable graph.
+    @Test
+    public void testDistances() {
+        Map<String, Long> expected = new HashMap<>();
+        expected.put("a", 0L);
+        expected.put("b", 1L);
+        expected.put("c", 2L);
+        expected.put("d", 3L);
+        assertEquals(expected, ShortestPaths.distances(sampleGraph(), "a"));
+    }
+
+    // Covers already frozen graph, UNREACHABLE.
+    @Test
+    public void testDistancesById() {
+        CsrGraph<String> frozen = CsrGraph.freeze(sampleGraph());
+        long[] distance = ShortestPaths.distances(frozen, frozen.id("b"));
+        assertEquals(0, distance[frozen.id("b")]);
+        assertEquals(2, distance[frozen.id("d")]);
+        assertEquals(ShortestPaths.UNREACHABLE, distance[frozen.id("a")]);
+        assertEquals(ShortestPaths.UNREACHABLE, distance[frozen.id("e")]);
+    }
+
+    // Covers paths: none, source == target, several edges; Dijkstra and A*.
+    @Test
+    public void testPath() {
+        Graph<String> graph = sampleGraph();
+        assertEquals(List.of("e", "a", "b", "c", "d"), ShortestPaths.path(graph, "e", "d"));
+        assertEquals(List.of("c"), ShortestPaths.path(graph, "c", "c"));
+        assertEquals(Collections.emptyList(), ShortestPaths.path(graph, "d", "a"));
+        // the number of edges left is a consistent estimate when every weight is at least 1
+        Map<String, Long> hops = Map.of("a", 2L, "b", 2L, "c", 1L, "d", 0L, "e", 3L);
+        assertEquals(List.of("e", "a", "b", "c", "d"), ShortestPaths.path(graph, "e", "d", hops::get));
+    }
+
+    // Covers random graphs: Dijkstra and A* agree with Bellman-Ford.
+    @Test
+    public void testRandomGraphs() {
+        Random random = new Random(6005);
+        for (int round = 0; round < 20; round++) {
+            Graph<String> graph = new ConcreteVerticesGraph<>();
+            int n = 1 + random.nextInt(30);
+            for (int v = 0; v < n; v++) {
+                graph.add("v" + v);
+            }
+            for (int e = random.nextInt(4 * n); e > 0; e--) {
+                graph.set("v" + random.nextInt(n), "v" + random.nextInt(n), 1 + random.nextInt(20));
+            }
+            CsrGraph<String> frozen = CsrGraph.freeze(graph);
+            long[] expected = new long[n];
+            Arrays.fill(expected, ShortestPaths.UNREACHABLE);
+            int source = frozen.id("v0");
+            expected[source] = 0;
+            for (int pass = 0; pass < n; pass++) {
+                for (int u = 0; u < n; u++) {
+                    for (int i = frozen.outStart(u); i < frozen.outEnd(u); i++) {
+                        if (expected[u] != ShortestPaths.UNREACHABLE) {
+                            int v = frozen.outTarget(i);
+                            expected[v] = Math.min(expected[v], expected[u] + frozen.outWeight(i));
+                        }
+                    }
+                }
+            }
+            assertArrayEquals(expected, ShortestPaths.distances(frozen, source));
+            for (int t = 0; t < n; t++) {
+                List<String> path = ShortestPaths.path(frozen, "v0", frozen.label(t));
+                if (expected[t] == ShortestPaths.UNREACHABLE) {
+                    assertEquals(Collections.emptyList(), path);
+                } else {
+                    assertEquals(expected[t], length(graph, path));
+                    assertEquals(frozen.label(t), path.get(path.size() - 1));
+                }
+            }
+        }
+    }
+
+}
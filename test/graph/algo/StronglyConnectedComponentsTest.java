@@ -0,0 +1,114 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algo;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import graph.ConcreteVerticesGraph;
+import graph.CsrGraph;
+import graph.Graph;
+import graph.GraphBuilder;
+
+/**
+ * Tests for StronglyConnectedComponents.
+ */
+public class StronglyConnectedComponentsTest {
+
+    /*
+     * Testing strategy for StronglyConnectedComponents
+     *
+     * of(), componentIds()
+     *   graph: empty, isolated vertices, one cycle, several components with edges between them, self loop
+     *   depth of the search: small, a path of 10^6 vertices (no recursion)
+     *   components in reverse topological order; compare with mutual reachability on random graphs
+     */
+
+    // Covers empty graph.
+    @Test
+    public void testEmpty() {
+        assertEquals(Collections.emptyList(), StronglyConnectedComponents.of(Graph.empty()));
+    }
+
+    // Covers isolated vertices, self loop, one cycle, edges between components, reverse topological order.
+    @Test
+    public void testComponents() {
+        Graph<String> graph = new ConcreteVerticesGraph<>();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 1);
+        graph.set("c", "a", 1);
+        graph.set("c", "d", 1);
+        graph.set("d", "d", 1);
+        graph.set("e", "a", 1);
+        graph.add("f");
+        List<Set<String>> components = StronglyConnectedComponents.of(graph);
+        assertEquals(4, components.size());
+        assertTrue(components.contains(Set.of("a", "b", "c")));
+        assertTrue(components.contains(Set.of("d")));
+        assertTrue(components.contains(Set.of("e")));
+        assertTrue(components.contains(Set.of("f")));
+        assertTrue(components.indexOf(Set.of("d")) < components.indexOf(Set.of("a", "b", "c")));
+        assertTrue(components.indexOf(Set.of("a", "b", "c")) < components.indexOf(Set.of("e")));
+    }
+
+    // Covers a path of 10^6 vertices closed into a cycle: deep search without recursion.
+    @Test
+    public void testLongCycle() {
+        GraphBuilder<Integer> builder = Graph.builder();
+        int n = 1_000_000;
+        for (int v = 0; v < n; v++) {
+            builder.addEdge(v, (v + 1) % n, 1);
+        }
+        int[] component = StronglyConnectedComponents.componentIds(builder.build());
+        for (int c : component) {
+            assertEquals(0, c);
+        }
+    }
+
+    // Covers random graphs: same component iff mutually reachable; edges never go to a later component.
+    @Test
+    public void testRandomGraphs() {
+        Random random = new Random(6005);
+        for (int round = 0; round < 20; round++) {
+            Graph<Integer> graph = new ConcreteVerticesGraph<>();
+            int n = 1 + random.nextInt(25);
+            for (int v = 0; v < n; v++) {
+                graph.add(v);
+            }
+            for (int e = random.nextInt(2 * n); e > 0; e--) {
+                graph.set(random.nextInt(n), random.nextInt(n), 1);
+            }
+            CsrGraph<Integer> frozen = CsrGraph.freeze(graph);
+            int[] component = StronglyConnectedComponents.componentIds(frozen);
+            boolean[][] reaches = new boolean[n][];
+            for (int u = 0; u < n; u++) {
+                reaches[u] = new boolean[n];
+                for (int v : ShortestPaths.distances(graph, frozen.label(u)).keySet()) {
+                    reaches[u][frozen.id(v)] = true;
+                }
+            }
+            for (int u = 0; u < n; u++) {
+                for (int v = 0; v < n; v++) {
+                    assertEquals(reaches[u][v] && reaches[v][u], component[u] == component[v]);
+                }
+                for (int i = frozen.outStart(u); i < frozen.outEnd(u); i++) {
+                    assertTrue(component[u] >= component[frozen.outTarget(i)]);
+                }
+            }
+            Set<Integer> numbers = new HashSet<>();
+            for (int c : component) {
+                numbers.add(c);
+            }
+            assertEquals(StronglyConnectedComponents.of(graph).size(), numbers.size());
+        }
+    }
+
+}
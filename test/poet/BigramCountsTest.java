@@ -0,0 +1,69 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for BigramCounts.
+ */
+public class BigramCountsTest {
+
+    /*
+     * Testing strategy for BigramCounts
+     *
+     * add()
+     *   bigram new, already counted
+     *   new count at most Integer.MAX_VALUE, past Integer.MAX_VALUE
+     *   table resized: no, yes
+     * size(), forEach()
+     *   bigrams counted: none, one, many
+     */
+
+    // Covers no bigrams counted.
+    @Test
+    public void testEmpty() {
+        BigramCounts counts = new BigramCounts();
+        assertEquals(0, counts.size());
+        counts.forEach((from, to, count) -> fail("visited " + from + " -> " + to));
+    }
+
+    // Covers new and counted bigrams, table resized, many bigrams counted.
+    @Test
+    public void testAddMany() {
+        BigramCounts counts = new BigramCounts();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            int from = i % 37;
+            int to = i % 101;
+            expected.merge(((long) from << 32) | to, 1, Integer::sum);
+            assertEquals((int) expected.get(((long) from << 32) | to), counts.add(from, to, 1));
+        }
+        assertEquals(expected.size(), counts.size());
+        Map<Long, Integer> actual = new HashMap<>();
+        counts.forEach((from, to, count) -> assertNull(actual.put(((long) from << 32) | to, count)));
+        assertEquals(expected, actual);
+    }
+
+    // Covers already counted, new count exactly Integer.MAX_VALUE, then past Integer.MAX_VALUE.
+    @Test
+    public void testAddPastIntegerMax() {
+        BigramCounts counts = new BigramCounts();
+        assertEquals(Integer.MAX_VALUE - 1, counts.add(0, 1, Integer.MAX_VALUE - 1));
+        assertEquals(Integer.MAX_VALUE, counts.add(0, 1, 1));
+        try {
+            counts.add(0, 1, 1);
+            fail("expected the count to overflow");
+        } catch (ArithmeticException e) {
+            assertEquals(1, counts.size());
+        }
+        counts.forEach((from, to, count) -> assertEquals(Integer.MAX_VALUE, count));
+    }
+
+}
@@ -0,0 +1,89 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+/**
+ * Tests for BridgeCache.
+ */
+public class BridgeCacheTest {
+
+    /*
+     * Testing strategy for BridgeCache
+     *
+     * get()
+     *   pair cached (hit), not cached (miss)
+     *   loading while no invalidation happens (cached), while an invalidation happens (returned, not cached)
+     * invalidateAll(), invalidateIf()
+     *   pairs removed: none, some, all
+     *   runs while a pair is being loaded, as an append to a poet does
+     */
+
+    // Covers hit and miss, invalidateIf of some pairs, invalidateAll of all pairs.
+    @Test
+    public void testGetAndInvalidate() {
+        BridgeCache<String> cache = new BridgeCache<>(4);
+        assertEquals("a-b", cache.get("a", "b", (from, to) -> from + "-" + to));
+        assertEquals("a-b", cache.get("a", "b", (from, to) -> "reloaded"));
+        assertEquals("b-c", cache.get("b", "c", (from, to) -> from + "-" + to));
+        cache.invalidateIf((from, to) -> from.equals("a"));
+        assertEquals("reloaded", cache.get("a", "b", (from, to) -> "reloaded"));
+        assertEquals("b-c", cache.get("b", "c", (from, to) -> "reloaded"));
+        cache.invalidateAll();
+        assertEquals("reloaded", cache.get("b", "c", (from, to) -> "reloaded"));
+        BridgeCacheStats stats = cache.stats();
+        assertEquals(2, stats.hitCount());
+        assertEquals(4, stats.missCount());
+    }
+
+    // Covers invalidateIf of no cached pair while a pair is being loaded.
+    @Test
+    public void testInvalidateIfDuringLoad() throws Exception {
+        assertLoadDuringInvalidationNotCached(cache -> cache.invalidateIf((from, to) -> false));
+    }
+
+    // Covers invalidateAll while a pair is being loaded.
+    @Test
+    public void testInvalidateAllDuringLoad() throws Exception {
+        assertLoadDuringInvalidationNotCached(BridgeCache::invalidateAll);
+    }
+
+    /**
+     * Start loading a pair in another thread with a loader that blocks, invalidate while it is blocked, then
+     * check that the value it loaded is returned but not cached.
+     * @param invalidation invalidates the cache
+     */
+    private static void assertLoadDuringInvalidationNotCached(Consumer<BridgeCache<String>> invalidation)
+            throws InterruptedException, ExecutionException {
+        BridgeCache<String> cache = new BridgeCache<>(4);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        CompletableFuture<String> stale = CompletableFuture.supplyAsync(() -> cache.get("a", "b", (from, to) -> {
+            loading.countDown();
+            try {
+                assertTrue(invalidated.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            return "before";
+        }));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        invalidation.accept(cache);
+        invalidated.countDown();
+        assertEquals("before", stale.get());
+        assertEquals("after", cache.get("a", "b", (from, to) -> "after"));
+        assertEquals("after", cache.get("a", "b", (from, to) -> "again"));
+        assertEquals(2, cache.stats().missCount());
+    }
+
+}
@@ -0,0 +1,95 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for CorpusTokenizer.
+ */
+public class CorpusTokenizerTest {
+
+    /*
+     * Testing strategy for forEachWord()
+     *
+     * file: empty, only whitespace, one word, n words
+     * whitespace: spaces, tabs, newlines, runs of mixed whitespace, leading and trailing
+     * buffers: word spanning a buffer boundary, multi-byte character spanning a buffer boundary
+     * charset: UTF-8, ISO-8859-1
+     * file doesn't exist
+     */
+
+    private static List<String> words(File corpus) throws IOException {
+        List<String> result = new ArrayList<>();
+        CorpusTokenizer.forEachWord(corpus, StandardCharsets.UTF_8, result::add);
+        return result;
+    }
+
+    private static File corpusOf(byte[] content) throws IOException {
+        File corpus = File.createTempFile("corpus", ".txt");
+        corpus.deleteOnExit();
+        Files.write(corpus.toPath(), content);
+        return corpus;
+    }
+
+    // Covers empty file.
+    @Test
+    public void testEmptyFile() throws IOException {
+        assertEquals(Collections.emptyList(), words(new File("test/poet/empty.txt")));
+    }
+
+    // Covers only whitespace, mixed runs, leading and trailing whitespace.
+    @Test
+    public void testMixedWhitespace() throws IOException {
+        assertEquals(Collections.emptyList(), words(corpusOf(" \t\n ".getBytes(StandardCharsets.UTF_8))));
+        File corpus = corpusOf("  Hello,\t\tHELLO,\r\n hello,\n\ngoodbye!  ".getBytes(StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("Hello,", "HELLO,", "hello,", "goodbye!"), words(corpus));
+    }
+
+    // Covers one word without trailing whitespace.
+    @Test
+    public void testOneWord() throws IOException {
+        assertEquals(Arrays.asList("word"), words(corpusOf("word".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    // Covers word and multi-byte character spanning buffer boundaries.
+    @Test
+    public void testBufferBoundaries() throws IOException {
+        StringBuilder text = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 40000; i++) {
+            String word = (i % 7 == 0) ? "\u00e9t\u00e9" + i : "w" + i;
+            text.append(word).append(i % 3 == 0 ? "\n" : " ");
+            expected.add(word);
+        }
+        assertEquals(expected, words(corpusOf(text.toString().getBytes(StandardCharsets.UTF_8))));
+    }
+
+    // Covers explicit ISO-8859-1 charset.
+    @Test
+    public void testExplicitCharset() throws IOException {
+        File corpus = corpusOf("caf\u00e9 cr\u00e8me".getBytes(StandardCharsets.ISO_8859_1));
+        List<String> result = new ArrayList<>();
+        CorpusTokenizer.forEachWord(corpus, StandardCharsets.ISO_8859_1, result::add);
+        assertEquals(Arrays.asList("caf\u00e9", "cr\u00e8me"), result);
+    }
+
+    // Covers file doesn't exist.
+    @Test(expected = IOException.class)
+    public void testNonexistentFile() throws IOException {
+        words(new File("test/poet/fooled-you.txt"));
+    }
+
+}
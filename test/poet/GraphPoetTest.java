@@ -6,11 +6,31 @@ package poet;
 import static org.junit.Assert.*;
 
 
+import graph.CsrGraph;
 import graph.Graph;
+import graph.GraphFile;
+import graph.MappedGraph;
+import graph.ObjIntPredicate;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.io.File;
+import java.io.StringReader;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
 
 /**
  * Tests for GraphPoet.
@@ -32,10 +52,88 @@ public class GraphPoetTest {
      *      - cospus contains +2 words
      *      - adjacency graph has multiple words equally weighted between
      *          two words in poem -- code must choose which on to use
+     *      - ties go to the smallest word, whether the poet was loaded by the constructor,
+     *          fromMappedCorpus() or a snapshot, with no index, an eager index or a lazy index
+     *      - two-edge path weight past Integer.MAX_VALUE, with and without an index
      *      - for all words in poem, adjacency graph has no words weighted between them
+     *      - input: first word repeated later, words separated by tabs/newlines/runs of spaces,
+     *          leading and trailing whitespace, 100k words
+     *
+     * Partitions for indexBridges():
+     *      - eager, lazy
+     *      - memory budget: fits every pair, too small for every pair, fits the pairs but not the per-word
+     *        arrays and the tables while they grow
+     *      - poems are the same as without an index
+     *
+     * Partitions for cacheBridges(), bridgeCacheStats():
+     *      - no cache, cache
+     *      - lookups: hit, miss
+     *      - evictions: 0, n (maximum size smaller than the number of pairs)
+     *      - maximum size: 0 (rejected), 1, n
+     *
+     * Partitions for fromMappedCorpus():
+     *      - chunk size: 1, larger than the corpus
+     *      - same graph as the constructor on every test corpus
+     *      - corpus doesn't exist
+     *
+     * Partitions for fromCorpusInParallel():
+     *      - number of ranges: 1, n, more than the number of words
+     *      - same graph as the constructor on every test corpus
+     *      - corpus doesn't exist
+     *
+     * Partitions for writeSnapshot(), fromSnapshot(), fromMappedSnapshot():
+     *      - same graph and poems as the poet that wrote the snapshot, on every test corpus
+     *      - mapped snapshot: with and without a bridge index
+     *      - snapshot doesn't exist
+     *
+     * Partitions for poems() on a list, on a list with an executor, on a stream:
+     *      - number of inputs: 0, n (more than the number of batches)
+     *      - poet with no index or cache, with a lazy index and a small cache shared by all threads
+     *      - poems are the same, and in the same order, as calling poem() on each input
+     *
+     * Partitions for bridges():
+     *      - number of bridges: 0, fewer than k, more than k
+     *      - k: 1 (same bridge as poem()), n, 0 (rejected)
+     *      - words in upper and lower case
+     *
+     * Partitions for sampleBridge(), poem() with a Random, cacheSamplers():
+     *      - number of bridges: 0, 1 (same poem as poem()), n (frequencies follow the two-edge path weights)
+     *      - sampler cache: default, of size 1 (samplers evicted and rebuilt)
+     *
+     * Partitions for bridgePath(), poem() with maxBridgeWords:
+     *      - maxBridgeWords: 1 (same bridges as poem(), ties included), n, 0 (rejected)
+     *      - best path: no path, one bridge word, several bridge words, shorter than allowed
+     *      - search cut by the edge budget (on the first layer or later ones, within a word), by the beam width
+     *      - visits of a hub stopped by the graph at the budget: mutable, frozen, mapped, appended graph
+     *
+     * Partitions for rankBridgesByImportance(), importance():
+     *      - exponent: 0 (ties broken by importance), 1 (heavier bridge outranked), negative (rejected)
+     *      - poem() and bridges() follow the ranking; importance averages 1, 0 for unknown words or no ranking
+     *      - poet with an eager index, a lazy index, a cache; mapped snapshot
+     *
+     * Partitions for appendCorpus(), ingest():
+     *      - pieces appended: 0, 1, n; first piece: empty, not empty
+     *      - poet loaded from: corpus, mapped corpus, parallel corpus (last word known), snapshot, mapped
+     *        snapshot (last word unknown)
+     *      - same graph and poems as the whole corpus
+     *      - cached pairs: affected (dropped), unaffected (kept); bridge index dropped; samplers follow the text
+     *      - poem() running at the same time: no bridge of the graph before the append stays cached
+     *      - appended edges: few (appended graph), many (frozen again)
+     *      - ingest offset: start of appended bytes, end of file, past the end (rejected)
      *
      */
     
+    private static final String[] ALL_CORPORA = { "empty.txt", "mugar-omni-theater.txt", "differentWhitespace.txt",
+        "newLineAndAllChars.txt", "repeatedCorpusCaseVariantWords.txt", "multipleBridgesPossible.txt",
+        "TwoWordsNoSense.txt", "testText.txt" };
+
+    private static void assertSameGraph(String message, Graph<String> expected, Graph<String> actual) {
+        assertEquals(message, expected.vertices(), actual.vertices());
+        for (String vertex : expected.vertices()) {
+            assertEquals(message, expected.targets(vertex), actual.targets(vertex));
+        }
+    }
+
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
         assert false; // make sure assertions are enabled with VM argument: -ea
@@ -161,4 +259,852 @@ public class GraphPoetTest {
         GraphPoet graph = new GraphPoet(giveCorpus);
         assertEquals("Graph contains 11 vertices and 10 edges", graph.toString());
     }
+
+    // first word of the input repeated later in the input
+    @Test
+    public void testPoemRepeatedFirstWord() throws IOException {
+        GraphPoet graph = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        assertEquals("Test of the test of the", graph.poem("Test the test the"));
+    }
+
+    // input words separated by mixed whitespace, with leading and trailing whitespace
+    @Test
+    public void testPoemMixedWhitespaceInput() throws IOException {
+        GraphPoet graph = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        assertEquals("Test of the system.", graph.poem("  Test\tthe \n  system.\n"));
+    }
+
+    // 100k-word input: linear assembly finishes quickly with every word and bridge in place
+    @Test(timeout = 10000)
+    public void testPoemLongInput() throws IOException {
+        GraphPoet graph = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        StringBuilder input = new StringBuilder();
+        StringBuilder correctPoem = new StringBuilder("Test");
+        input.append("Test");
+        for (int i = 1; i < 100_000; i++) {
+            String word = i % 2 == 0 ? "test" : "the";
+            input.append(' ').append(word);
+            correctPoem.append(word.equals("the") ? " of the" : " test");
+        }
+        assertEquals(correctPoem.toString(), graph.poem(input.toString()));
+    }
+
+    // eager index within budget, poems unchanged
+    @Test
+    public void testIndexBridgesEager() throws IOException {
+        File giveCorpus = new File("test/poet/multipleBridgesPossible.txt");
+        GraphPoet graph = new GraphPoet(giveCorpus);
+        assertTrue(graph.indexBridges(true, 1 << 20));
+        String input = "Aren't they the of all the days of our lives?";
+        String correctPoem = "Aren't they the fastest of all the days of our lives?";
+        assertEquals(correctPoem, graph.poem(input));
+    }
+
+    // eager index over budget falls back to a lazy index, poems unchanged
+    @Test
+    public void testIndexBridgesOverBudget() throws IOException {
+        File giveCorpus = new File("test/poet/newLineAndAllChars.txt");
+        GraphPoet graph = new GraphPoet(giveCorpus);
+        assertFalse(graph.indexBridges(true, 0));
+        String input = "Watch them & over bones and you will see 6's and 7's";
+        String correctPoem = "Watch them wrangling & fighting over raw bones and you will see 6's and 7's";
+        assertEquals(correctPoem, graph.poem(input));
+        assertEquals(correctPoem, graph.poem(input));
+    }
+
+    // eager index whose budget holds the final table but not the per-word arrays and resizing falls back
+    @Test
+    public void testIndexBridgesBudgetCountsEverything() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append("w").append(i).append(' ');
+        }
+        File corpus = File.createTempFile("budget", ".txt");
+        corpus.deleteOnExit();
+        Files.write(corpus.toPath(), text.toString().getBytes("UTF-8"));
+        GraphPoet poet = new GraphPoet(corpus);
+        // 1998 pairs need 4096 slots of 16 bytes: 64 KiB, and 96 KiB while growing, plus 12 bytes per word
+        assertFalse(poet.indexBridges(true, 70_000));
+        assertTrue(poet.indexBridges(true, 130_000));
+        assertEquals("w0 w1 w2", poet.poem("w0 w2"));
+    }
+
+    // lazy index, poems unchanged
+    @Test
+    public void testIndexBridgesLazy() throws IOException {
+        File givenCorpus = new File("test/poet/mugar-omni-theater.txt");
+        GraphPoet graph = new GraphPoet(givenCorpus);
+        assertFalse(graph.indexBridges(false, 1 << 20));
+        String input = "Test the Theater system.";
+        String correctPoem = "Test of the Theater sound system.";
+        assertEquals(correctPoem, graph.poem(input));
+        assertEquals(correctPoem, graph.poem(input));
+    }
+
+    // no cache: all counters are zero
+    @Test
+    public void testBridgeCacheStatsNoCache() throws IOException {
+        GraphPoet graph = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        graph.poem("Test the Theater system.");
+        BridgeCacheStats stats = graph.bridgeCacheStats();
+        assertEquals(0, stats.hitCount());
+        assertEquals(0, stats.missCount());
+        assertEquals(1.0, stats.hitRate(), 0.0);
+    }
+
+    // cache large enough for all pairs: misses then hits, no evictions, poems unchanged
+    @Test
+    public void testBridgeCacheHitsAndMisses() throws IOException {
+        GraphPoet graph = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        graph.cacheBridges(100);
+        String input = "Test the Theater system.";
+        String correctPoem = "Test of the Theater sound system.";
+        assertEquals(correctPoem, graph.poem(input));
+        assertEquals(correctPoem, graph.poem(input));
+        BridgeCacheStats stats = graph.bridgeCacheStats();
+        assertEquals(3, stats.missCount());
+        assertEquals(3, stats.hitCount());
+        assertEquals(0, stats.evictionCount());
+    }
+
+    // cache of one pair: every new pair evicts the previous one, poems unchanged
+    @Test
+    public void testBridgeCacheEvictions() throws IOException {
+        GraphPoet graph = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        graph.cacheBridges(1);
+        String input = "Test the Theater system.";
+        String correctPoem = "Test of the Theater sound system.";
+        assertEquals(correctPoem, graph.poem(input));
+        assertEquals(correctPoem, graph.poem(input));
+        BridgeCacheStats stats = graph.bridgeCacheStats();
+        assertEquals(6, stats.missCount());
+        assertEquals(5, stats.evictionCount());
+    }
+
+    // maximum size 0 is rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void testBridgeCacheZeroSize() throws IOException {
+        new GraphPoet(new File("test/poet/mugar-omni-theater.txt")).cacheBridges(0);
+    }
+
+    // memory-mapped corpus gives the same graph as the constructor, for chunks of 1 byte and the default size
+    @Test
+    public void testFromMappedCorpusSameGraph() throws IOException {
+        for (String name : ALL_CORPORA) {
+            File corpus = new File("test/poet/" + name);
+            Graph<String> expected = new GraphPoet(corpus).affinityGraph();
+            assertSameGraph(name, expected, GraphPoet.fromMappedCorpus(corpus).affinityGraph());
+            assertSameGraph(name, expected, GraphPoet.fromMappedCorpus(corpus, 1).affinityGraph());
+        }
+    }
+
+    // memory-mapped corpus doesn't exist
+    @Test (expected = IOException.class)
+    public void testFromMappedCorpusNonexistent() throws IOException {
+        GraphPoet.fromMappedCorpus(new File("test/poet/fooled-you.txt"));
+    }
+
+    // parallel counting gives exactly the sequential graph, for 1 range, n ranges and more ranges than words
+    @Test
+    public void testFromCorpusInParallelSameGraph() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String name : ALL_CORPORA) {
+                File corpus = new File("test/poet/" + name);
+                Graph<String> expected = new GraphPoet(corpus).affinityGraph();
+                assertSameGraph(name, expected, GraphPoet.fromCorpusInParallel(corpus).affinityGraph());
+                for (int rangeCount : new int[] { 1, 3, 7, (int) corpus.length() + 1 }) {
+                    GraphPoet parallel = GraphPoet.fromCorpusInParallel(corpus, Math.max(1, rangeCount), pool);
+                    assertSameGraph(name + " in " + rangeCount + " ranges", expected, parallel.affinityGraph());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // parallel corpus doesn't exist
+    @Test (expected = IOException.class)
+    public void testFromCorpusInParallelNonexistent() throws IOException {
+        GraphPoet.fromCorpusInParallel(new File("test/poet/fooled-you.txt"));
+    }
+
+    // snapshot round trip gives the same graph on every corpus, and the same poems
+    @Test
+    public void testSnapshotSameGraphAndPoems() throws IOException {
+        File snapshot = File.createTempFile("poet", ".wagf");
+        snapshot.deleteOnExit();
+        for (String name : ALL_CORPORA) {
+            GraphPoet original = new GraphPoet(new File("test/poet/" + name));
+            original.writeSnapshot(snapshot);
+            GraphPoet loaded = GraphPoet.fromSnapshot(snapshot);
+            assertSameGraph(name, original.affinityGraph(), loaded.affinityGraph());
+        }
+        GraphPoet loaded = GraphPoet.fromSnapshot(writeSnapshotOf("test/poet/mugar-omni-theater.txt", snapshot));
+        assertEquals("Test of the Theater sound system.", loaded.poem("Test the Theater system."));
+    }
+
+    private static File writeSnapshotOf(String corpus, File snapshot) throws IOException {
+        new GraphPoet(new File(corpus)).writeSnapshot(snapshot);
+        return snapshot;
+    }
+
+    // snapshot doesn't exist
+    @Test (expected = IOException.class)
+    public void testFromSnapshotNonexistent() throws IOException {
+        GraphPoet.fromSnapshot(new File("test/poet/fooled-you.wagf"));
+    }
+
+    // mapped snapshot gives the same graph on every corpus, and the same poems with and without an index
+    @Test
+    public void testMappedSnapshotSameGraphAndPoems() throws IOException {
+        File snapshot = File.createTempFile("poet", ".wagf");
+        snapshot.deleteOnExit();
+        for (String name : ALL_CORPORA) {
+            GraphPoet original = new GraphPoet(new File("test/poet/" + name));
+            original.writeSnapshot(snapshot);
+            assertSameGraph(name, original.affinityGraph(), GraphPoet.fromMappedSnapshot(snapshot).affinityGraph());
+        }
+        writeSnapshotOf("test/poet/mugar-omni-theater.txt", snapshot);
+        GraphPoet loaded = GraphPoet.fromSnapshot(snapshot);
+        GraphPoet mapped = GraphPoet.fromMappedSnapshot(snapshot);
+        String input = "Test the Theater system. The sound of the theater";
+        assertEquals(loaded.poem(input), mapped.poem(input));
+        mapped.indexBridges(true, 1 << 20);
+        assertEquals(loaded.poem(input), mapped.poem(input));
+    }
+
+    // mapped snapshot doesn't exist
+    @Test (expected = IOException.class)
+    public void testFromMappedSnapshotNonexistent() throws IOException {
+        GraphPoet.fromMappedSnapshot(new File("test/poet/fooled-you.wagf"));
+    }
+
+    // no inputs: no poems
+    @Test
+    public void testPoemsEmpty() throws IOException {
+        GraphPoet graph = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        assertEquals(Collections.emptyList(), graph.poems(Collections.emptyList()));
+        assertEquals(Collections.emptyList(),
+                graph.poems(Collections.<String>emptyList().stream()).collect(Collectors.toList()));
+    }
+
+    // n inputs, poet with a lazy index and a small cache shared by all threads: poems in input order
+    @Test
+    public void testPoemsSameAsPoemInOrder() throws IOException {
+        File corpus = new File("test/poet/newLineAndAllChars.txt");
+        GraphPoet sequential = new GraphPoet(corpus);
+        List<String> words = new ArrayList<>(sequential.affinityGraph().vertices());
+        Collections.sort(words);
+        Random random = new Random(6005);
+        List<String> inputs = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder input = new StringBuilder(words.get(random.nextInt(words.size())));
+            for (int n = random.nextInt(6); n > 0; n--) {
+                input.append(' ').append(words.get(random.nextInt(words.size())).toUpperCase());
+            }
+            inputs.add(input.toString());
+            expected.add(sequential.poem(input.toString()));
+        }
+
+        GraphPoet shared = new GraphPoet(corpus);
+        assertEquals(expected, shared.poems(inputs));
+        shared.indexBridges(false, 256);
+        shared.cacheBridges(16);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            assertEquals(expected, shared.poems(inputs, executor));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(expected, shared.poems(inputs.stream()).collect(Collectors.toList()));
+    }
+
+    // bridges: more than k, fewer than k, none; k = 1 agrees with poem()
+    @Test
+    public void testBridgesTopK() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/multipleBridgesPossible.txt"));
+        // the -> fastest -> of weighs 6, the -> worst -> of 4, the -> best -> of 2
+        assertEquals(List.of("fastest", "worst"), poet.bridges("The", "OF", 2));
+        assertEquals(List.of("fastest", "worst", "best"), poet.bridges("the", "of", 10));
+        assertEquals(List.of("fastest"), poet.bridges("the", "of", 1));
+        assertEquals(Collections.emptyList(), poet.bridges("fastest", "the", 3));
+        assertEquals(Collections.emptyList(), poet.bridges("nowhere", "the", 3));
+    }
+
+    // bridges: k = 1 gives the bridge poem() chooses, ties included
+    @Test
+    public void testBridgesFirstIsPoemBridge() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        String[] words = { "test", "the", "theater", "system", "of", "sound", "mugar" };
+        for (String w1 : words) {
+            for (String w2 : words) {
+                List<String> best = poet.bridges(w1, w2, 1);
+                String expected = best.isEmpty() ? w1 + " " + w2 : w1 + " " + best.get(0) + " " + w2;
+                assertEquals(expected, poet.poem(w1 + " " + w2));
+            }
+        }
+    }
+
+    // bridges: k = 0
+    @Test (expected = IllegalArgumentException.class)
+    public void testBridgesNonPositiveK() throws IOException {
+        new GraphPoet(new File("test/poet/multipleBridgesPossible.txt")).bridges("the", "of", 0);
+    }
+
+    // sampled bridges follow the two-edge path weights 6 : 4 : 2; no bridge gives ""
+    @Test
+    public void testSampleBridgeFrequencies() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/multipleBridgesPossible.txt"));
+        Random random = new Random(6005);
+        int draws = 60_000;
+        int fastest = 0;
+        int worst = 0;
+        int best = 0;
+        for (int i = 0; i < draws; i++) {
+            String bridge = poet.sampleBridge("the", "Of", random);
+            fastest += bridge.equals("fastest") ? 1 : 0;
+            worst += bridge.equals("worst") ? 1 : 0;
+            best += bridge.equals("best") ? 1 : 0;
+        }
+        assertEquals(draws, fastest + worst + best);
+        assertEquals(draws / 2, fastest, draws / 100);
+        assertEquals(draws / 3, worst, draws / 100);
+        assertEquals(draws / 6, best, draws / 100);
+        assertEquals("", poet.sampleBridge("fastest", "the", random));
+    }
+
+    // random poems: bridges only where poem() has one; single bridges agree; tiny sampler cache
+    @Test
+    public void testRandomPoem() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/multipleBridgesPossible.txt"));
+        poet.cacheSamplers(1);
+        Random random = new Random(6005);
+        String input = "Aren't they the of all the days of our lives?";
+        for (int i = 0; i < 100; i++) {
+            String poem = poet.poem(input, random);
+            assertTrue(poem, poem.matches("Aren't they the (fastest|worst|best) of all the days of our lives\\?"));
+        }
+        GraphPoet theater = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        assertEquals("Test of the Theater sound system.", theater.poem("Test the Theater system.", random));
+    }
+
+    /**
+     * Writes a corpus of random text over a small vocabulary, so that most pairs of words have several bridges of
+     * equal weight, after "a z b a y b a x b", whose bridges from a to b tie in the reverse of corpus order.
+     */
+    private static File writeTieCorpus() throws IOException {
+        File corpus = File.createTempFile("ties", ".txt");
+        corpus.deleteOnExit();
+        StringBuilder text = new StringBuilder("a z b a y b a x b");
+        Random random = new Random(6005);
+        for (int i = 0; i < 2000; i++) {
+            text.append(' ').append("w").append(random.nextInt(30));
+        }
+        Files.write(corpus.toPath(), text.toString().getBytes("UTF-8"));
+        return corpus;
+    }
+
+    // ties go to the smallest word, the same through every way of loading a poet and of finding bridges
+    @Test
+    public void testTiesSameForEveryLoader() throws IOException {
+        File corpus = writeTieCorpus();
+        File snapshot = File.createTempFile("ties", ".wagf");
+        snapshot.deleteOnExit();
+        new GraphPoet(corpus).writeSnapshot(snapshot);
+        List<String> words = new ArrayList<>(new GraphPoet(corpus).affinityGraph().vertices());
+        Collections.sort(words);
+        Random random = new Random(6005);
+        StringBuilder input = new StringBuilder("a b");
+        for (int i = 0; i < 1000; i++) {
+            input.append(' ').append(words.get(random.nextInt(words.size())));
+        }
+
+        GraphPoet expected = new GraphPoet(corpus);
+        String poem = expected.poem(input.toString());
+        assertTrue(poem, poem.startsWith("a x b "));
+        assertEquals(List.of("x", "y", "z"), expected.bridges("a", "b", 3));
+        assertEquals(List.of("x"), expected.bridgePath("a", "b", 1));
+        for (int loader = 0; loader < 4; loader++) {
+            for (int index = 0; index < 3; index++) {
+                GraphPoet poet;
+                switch (loader) {
+                case 0: poet = new GraphPoet(corpus); break;
+                case 1: poet = GraphPoet.fromMappedCorpus(corpus); break;
+                case 2: poet = GraphPoet.fromSnapshot(snapshot); break;
+                default: poet = GraphPoet.fromMappedSnapshot(snapshot); break;
+                }
+                if (index > 0) {
+                    poet.indexBridges(index == 1, 1 << 20);
+                }
+                String message = "loader " + loader + ", index " + index;
+                assertEquals(message, poem, poet.poem(input.toString()));
+                assertEquals(message, poem, poet.poem(input.toString(), 1));
+                for (String w1 : words.subList(0, 10)) {
+                    for (String w2 : words.subList(0, 10)) {
+                        assertEquals(message, expected.bridges(w1, w2, 5), poet.bridges(w1, w2, 5));
+                    }
+                }
+            }
+        }
+    }
+
+    // two-edge path weights past Integer.MAX_VALUE: the heavy bridge wins in poem(), the index and bridges()
+    @Test
+    public void testBridgeWeightsPastIntegerMax() throws IOException {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "heavy", Integer.MAX_VALUE);
+        graph.set("heavy", "b", Integer.MAX_VALUE);
+        graph.set("a", "light", 1);
+        graph.set("light", "b", 1);
+        File snapshot = File.createTempFile("heavy", ".wagf");
+        snapshot.deleteOnExit();
+        GraphFile.write(graph, snapshot);
+        for (GraphPoet poet : List.of(GraphPoet.fromSnapshot(snapshot), GraphPoet.fromMappedSnapshot(snapshot))) {
+            for (int index = 0; index < 3; index++) {
+                if (index > 0) {
+                    poet.indexBridges(index == 1, 1 << 20);
+                }
+                assertEquals("a heavy b", poet.poem("a b"));
+                assertEquals(List.of("heavy", "light"), poet.bridges("a", "b", 2));
+                assertEquals(List.of("heavy"), poet.bridgePath("a", "b", 1));
+            }
+            poet.rankBridgesByImportance(0);
+            assertEquals("a heavy b", poet.poem("a b"));
+        }
+    }
+
+    /** Writes a corpus where start -> p -> q -> end weighs 9 and start -> b -> end weighs 2. */
+    private static File writePathCorpus() throws IOException {
+        File corpus = File.createTempFile("path", ".txt");
+        corpus.deleteOnExit();
+        Files.write(corpus.toPath(), "start p q end start p q end start p q end start b end".getBytes("UTF-8"));
+        return corpus;
+    }
+
+    // bridge paths: one word, several words, longer path allowed but absent; no path; k = 0
+    @Test
+    public void testBridgePath() throws IOException {
+        GraphPoet poet = new GraphPoet(writePathCorpus());
+        assertEquals(List.of("b"), poet.bridgePath("start", "end", 1));
+        assertEquals(List.of("p", "q"), poet.bridgePath("Start", "END", 2));
+        assertEquals(List.of("p", "q"), poet.bridgePath("start", "end", 3));
+        assertEquals(Collections.emptyList(), poet.bridgePath("b", "p", 1));
+        assertEquals(Collections.emptyList(), poet.bridgePath("nowhere", "end", 4));
+        assertEquals("Start p q End", poet.poem("Start End", 2));
+        assertEquals("Start b End", poet.poem("Start End", 1));
+    }
+
+    // bridge paths: k = 1 gives the poem() bridge, ties included; larger k never loses weight
+    @Test
+    public void testBridgePathOneWordIsPoem() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        String input = "Test the theater system of sound mugar the test";
+        assertEquals(poet.poem(input), poet.poem(input, 1));
+        GraphPoet ties = new GraphPoet(new File("test/poet/multipleBridgesPossible.txt"));
+        assertEquals(ties.poem("Aren't they the of all"), ties.poem("Aren't they the of all", 1));
+        assertEquals(List.of("fastest"), ties.bridgePath("the", "of", 1));
+    }
+
+    // bridge paths: edge budget and beam width (which keeps the heavier hub0) cut longer paths, but not the best
+    // one-word bridge if the first layers fit the budget; a smaller budget cuts it too
+    @Test
+    public void testBridgePathBudget() {
+        Graph<String> graph = Graph.empty();
+        for (int i = 0; i < 50; i++) {
+            graph.set("start", "hub" + i, 1);
+        }
+        graph.set("start", "hub0", 5);
+        graph.set("start", "p", 3);
+        graph.set("p", "q", 3);
+        graph.set("q", "end", 3);
+        graph.set("start", "b", 1);
+        graph.set("b", "end", 1);
+        assertEquals(List.of("p", "q"), new PathSearch(graph, 2, 1000, 100).search("start", "end"));
+        // start has 52 targets and end 2 sources
+        assertEquals(List.of("b"), new PathSearch(graph, 2, 54, 100).search("start", "end"));
+        assertEquals(Collections.emptyList(), new PathSearch(graph, 2, 52, 100).search("start", "end"));
+        assertEquals(List.of("b"), new PathSearch(graph, 2, 1000, 1).search("start", "end"));
+    }
+
+    // bridge paths: the edge budget holds within a single word, on the first layer and later ones, both ways
+    @Test
+    public void testBridgePathBudgetOnStar() {
+        Graph<String> graph = Graph.empty();
+        for (int i = 0; i < 1000; i++) {
+            graph.set("hub", "leaf" + i, 1);
+            graph.set("leaf" + i, "hub", 1);
+        }
+        for (int maxBridgeWords = 1; maxBridgeWords <= 4; maxBridgeWords++) {
+            PathSearch search = new PathSearch(graph, maxBridgeWords, 100, 1000);
+            search.search("hub", "leaf0");
+            assertEquals(100, search.edgesVisited());
+            search.search("leaf0", "hub");
+            assertEquals(100, search.edgesVisited());
+            search.search("leaf0", "leaf1");
+            assertTrue(search.edgesVisited() <= 100);
+        }
+    }
+
+    // bridge paths: on a hub of high degree, the graph itself stops visiting edges at the budget, whether it is
+    // mutable, frozen, mapped or appended to
+    @Test
+    public void testBridgePathBudgetStopsVisit() throws IOException {
+        Graph<String> star = Graph.empty();
+        for (int i = 0; i < 10_000; i++) {
+            star.set("hub", "leaf" + i, 1);
+            star.set("leaf" + i, "hub", 1);
+        }
+        File file = File.createTempFile("star", ".wagf");
+        file.deleteOnExit();
+        GraphFile.write(star, file);
+        AppendedGraph appended = new AppendedGraph(CsrGraph.freeze(star));
+        appended.addToWeight("hub", "leaf0", 1);
+        appended.addToWeight("leaf0", "hub", 1);
+        List<Graph<String>> graphs = List.of(star, CsrGraph.freeze(star), MappedGraph.open(file), appended);
+        for (Graph<String> graph : graphs) {
+            CountingGraph counting = new CountingGraph(graph);
+            for (int maxBridgeWords = 1; maxBridgeWords <= 4; maxBridgeWords++) {
+                PathSearch search = new PathSearch(counting, maxBridgeWords, 100, 1000);
+                for (String[] pair : new String[][] { { "hub", "leaf0" }, { "leaf0", "hub" }, { "leaf0", "leaf1" } }) {
+                    counting.visits = 0;
+                    search.search(pair[0], pair[1]);
+                    assertTrue(graph + ": " + counting.visits, counting.visits <= 100);
+                }
+            }
+        }
+    }
+
+    /**
+     * A graph that counts the edges its visits hand to their actions, and otherwise is another graph.
+     */
+    private static final class CountingGraph implements Graph<String> {
+        private final Graph<String> graph;
+        private int visits = 0;
+
+        CountingGraph(Graph<String> graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public boolean add(String vertex) {
+            return graph.add(vertex);
+        }
+
+        @Override
+        public int set(String source, String target, int weight) {
+            return graph.set(source, target, weight);
+        }
+
+        @Override
+        public boolean remove(String vertex) {
+            return graph.remove(vertex);
+        }
+
+        @Override
+        public Set<String> vertices() {
+            return graph.vertices();
+        }
+
+        @Override
+        public Map<String, Integer> sources(String target) {
+            return graph.sources(target);
+        }
+
+        @Override
+        public Map<String, Integer> targets(String source) {
+            return graph.targets(source);
+        }
+
+        @Override
+        public int weight(String source, String target) {
+            return graph.weight(source, target);
+        }
+
+        @Override
+        public void forEachTarget(String source, ObjIntConsumer<? super String> action) {
+            graph.forEachTarget(source, (target, weight) -> {
+                visits++;
+                action.accept(target, weight);
+            });
+        }
+
+        @Override
+        public void forEachSource(String target, ObjIntConsumer<? super String> action) {
+            graph.forEachSource(target, (source, weight) -> {
+                visits++;
+                action.accept(source, weight);
+            });
+        }
+
+        @Override
+        public boolean forEachTargetWhile(String source, ObjIntPredicate<? super String> action) {
+            return graph.forEachTargetWhile(source, (target, weight) -> {
+                visits++;
+                return action.test(target, weight);
+            });
+        }
+
+        @Override
+        public boolean forEachSourceWhile(String target, ObjIntPredicate<? super String> action) {
+            return graph.forEachSourceWhile(target, (source, weight) -> {
+                visits++;
+                return action.test(source, weight);
+            });
+        }
+    }
+
+    // bridge paths: maxBridgeWords = 0
+    @Test (expected = IllegalArgumentException.class)
+    public void testBridgePathNonPositive() throws IOException {
+        new GraphPoet(writePathCorpus()).poem("start end", 0);
+    }
+
+    /**
+     * Writes a corpus where the bridges from a to b are z (path weight 3), x and y (path weight 2 each, x first);
+     * y has the most in edges, so it is the most important bridge.
+     */
+    private static File writeImportanceCorpus() throws IOException {
+        File corpus = File.createTempFile("importance", ".txt");
+        corpus.deleteOnExit();
+        Files.write(corpus.toPath(), "a x b c a y b c d y e y f y g y a z b z b".getBytes("UTF-8"));
+        return corpus;
+    }
+
+    // importance: ties broken by importance with exponent 0, heavier path outranked with exponent 1
+    @Test
+    public void testRankBridgesByImportance() throws IOException {
+        GraphPoet poet = new GraphPoet(writeImportanceCorpus());
+        assertEquals(List.of("z", "x", "y"), poet.bridges("a", "b", 3));
+        assertEquals(0, poet.importance("y"), 0);
+        poet.rankBridgesByImportance(0);
+        assertEquals("A z B", poet.poem("A B"));
+        assertEquals(List.of("z", "y", "x"), poet.bridges("a", "b", 3));
+        assertTrue(poet.importance("Y") > poet.importance("z"));
+        assertTrue(poet.importance("z") > poet.importance("x"));
+        assertEquals(0, poet.importance("missing"), 0);
+        double sum = 0;
+        for (String word : poet.affinityGraph().vertices()) {
+            sum += poet.importance(word);
+        }
+        assertEquals(poet.affinityGraph().vertices().size(), sum, 1e-3);
+        poet.rankBridgesByImportance(1);
+        assertEquals("A y B", poet.poem("A B"));
+        assertEquals(List.of("y", "z", "x"), poet.bridges("a", "b", 3));
+        // multi-word bridges still go by weight
+        assertEquals("A z B", poet.poem("A B", 1));
+    }
+
+    // importance: eager index, lazy index and cache are rebuilt or dropped; mapped snapshot
+    @Test
+    public void testRankBridgesInvalidates() throws IOException {
+        File corpus = writeImportanceCorpus();
+        for (boolean eager : new boolean[] { true, false }) {
+            GraphPoet poet = new GraphPoet(corpus);
+            poet.indexBridges(eager, 1 << 20);
+            poet.cacheBridges(10);
+            assertEquals("a z b", poet.poem("a b"));
+            poet.rankBridgesByImportance(1);
+            assertEquals("a y b", poet.poem("a b"));
+            poet.rankBridgesByImportance(0);
+            assertEquals("a z b", poet.poem("a b"));
+            assertEquals(List.of("z", "y"), poet.bridges("a", "b", 2));
+        }
+        File snapshot = File.createTempFile("importance", ".wagf");
+        snapshot.deleteOnExit();
+        new GraphPoet(corpus).writeSnapshot(snapshot);
+        GraphPoet mapped = GraphPoet.fromMappedSnapshot(snapshot);
+        mapped.rankBridgesByImportance(1);
+        assertEquals("a y b", mapped.poem("a b"));
+        assertTrue(mapped.importance("y") > mapped.importance("z"));
+    }
+
+    // importance: negative exponent
+    @Test (expected = IllegalArgumentException.class)
+    public void testRankBridgesNegativeExponent() throws IOException {
+        new GraphPoet(writeImportanceCorpus()).rankBridgesByImportance(-1);
+    }
+
+    /**
+     * Split text at whitespace into the given number of pieces, each piece after the first starting at a word
+     * boundary.
+     */
+    private static List<String> splitAtWhitespace(String text, int pieces) {
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i < pieces; i++) {
+            int end = Math.max(start, text.length() * i / pieces);
+            while (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+                end++;
+            }
+            result.add(text.substring(start, end));
+            start = end;
+        }
+        result.add(text.substring(start));
+        return result;
+    }
+
+    private static File writeTemp(String text) throws IOException {
+        File file = File.createTempFile("append", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), text.getBytes("UTF-8"));
+        return file;
+    }
+
+    private static void assertSameSources(String message, Graph<String> expected, Graph<String> actual) {
+        for (String vertex : expected.vertices()) {
+            assertEquals(message, expected.sources(vertex), actual.sources(vertex));
+            for (String target : expected.targets(vertex).keySet()) {
+                assertEquals(message, expected.weight(vertex, target), actual.weight(vertex, target));
+            }
+        }
+    }
+
+    // appendCorpus: every test corpus in 1 to 4 pieces; first piece empty or not; same graph and poems as the
+    // whole corpus
+    @Test
+    public void testAppendCorpusSameAsWholeCorpus() throws IOException {
+        for (String name : ALL_CORPORA) {
+            File whole = new File("test/poet/" + name);
+            String text = new String(Files.readAllBytes(whole.toPath()), "UTF-8");
+            GraphPoet expected = new GraphPoet(whole);
+            for (int pieces = 1; pieces <= 4; pieces++) {
+                List<String> split = splitAtWhitespace(text, pieces);
+                GraphPoet poet = new GraphPoet(writeTemp(split.get(0)));
+                for (String piece : split.subList(1, split.size())) {
+                    poet.appendCorpus(new StringReader(piece));
+                }
+                String message = name + " in " + pieces + " pieces";
+                assertSameGraph(message, expected.affinityGraph(), poet.affinityGraph());
+                assertSameSources(message, expected.affinityGraph(), poet.affinityGraph());
+                assertEquals(message, expected.toString(), poet.toString());
+                assertEquals(message, expected.poem(text), poet.poem(text));
+            }
+        }
+    }
+
+    // ingest: growing file read from the returned offsets; parallel and mapped corpus loads keep the last word
+    @Test
+    public void testIngestGrowingFile() throws IOException {
+        File whole = new File("test/poet/mugar-omni-theater.txt");
+        String text = new String(Files.readAllBytes(whole.toPath()), "UTF-8");
+        List<String> split = splitAtWhitespace(text, 3);
+        GraphPoet expected = new GraphPoet(whole);
+        File growing = writeTemp(split.get(0));
+        List<GraphPoet> poets = List.of(new GraphPoet(growing), GraphPoet.fromCorpusInParallel(growing),
+                GraphPoet.fromMappedCorpus(growing));
+        long[] offsets = new long[poets.size()];
+        Arrays.fill(offsets, growing.length());
+        for (String piece : split.subList(1, split.size())) {
+            Files.write(growing.toPath(), piece.getBytes("UTF-8"), StandardOpenOption.APPEND);
+            for (int i = 0; i < poets.size(); i++) {
+                offsets[i] = poets.get(i).ingest(growing.toPath(), offsets[i]);
+                assertEquals(growing.length(), offsets[i]);
+            }
+        }
+        for (GraphPoet poet : poets) {
+            assertSameGraph(poet.toString(), expected.affinityGraph(), poet.affinityGraph());
+            assertEquals(growing.length(), poet.ingest(growing.toPath(), growing.length()));
+        }
+    }
+
+    // ingest: offset past the end of the file
+    @Test (expected = IllegalArgumentException.class)
+    public void testIngestBadOffset() throws IOException {
+        File corpus = writeTemp("a b");
+        new GraphPoet(corpus).ingest(corpus.toPath(), 4);
+    }
+
+    // appendCorpus: snapshots do not know the last word, so the seam bigram is not counted; mapped snapshot
+    @Test
+    public void testAppendToSnapshot() throws IOException {
+        File snapshot = File.createTempFile("append", ".wagf");
+        snapshot.deleteOnExit();
+        new GraphPoet(writeTemp("a b c")).writeSnapshot(snapshot);
+        for (GraphPoet poet : List.of(GraphPoet.fromSnapshot(snapshot), GraphPoet.fromMappedSnapshot(snapshot))) {
+            poet.appendCorpus(new StringReader("D a b"));
+            Graph<String> graph = poet.affinityGraph();
+            assertEquals(0, graph.weight("c", "d"));
+            assertEquals(1, graph.weight("d", "a"));
+            assertEquals(2, graph.weight("a", "b"));
+            assertEquals("a b c", poet.poem("a c"));
+            assertEquals("Graph contains 4 vertices and 3 edges", poet.toString());
+        }
+    }
+
+    // appendCorpus: only the cached pairs the text may change are dropped; index dropped; samplers updated
+    @Test
+    public void testAppendInvalidatesAffectedPairs() throws IOException {
+        GraphPoet poet = new GraphPoet(writeTemp("a x b c y d"));
+        poet.cacheBridges(10);
+        poet.indexBridges(true, 1 << 20);
+        assertEquals("a x b c y d", poet.poem("a b c d"));
+        assertEquals("x", poet.sampleBridge("a", "b", new Random(1)));
+        // adds d -> a at the seam and a -> z -> b twice (beats x); leaves every bridge from c and into d alone
+        poet.appendCorpus(new StringReader(" a z b a z b"));
+        BridgeCacheStats before = poet.bridgeCacheStats();
+        assertEquals("a z b c y d", poet.poem("a b c d"));
+        BridgeCacheStats after = poet.bridgeCacheStats();
+        // a b and b c (b gained the edge b -> a) were dropped and searched again; c d was still cached
+        assertEquals(before.missCount() + 2, after.missCount());
+        assertEquals(before.hitCount() + 1, after.hitCount());
+        assertEquals(List.of("z", "x"), poet.bridges("a", "b", 2));
+        Random random = new Random(6005);
+        int z = 0;
+        for (int i = 0; i < 1000; i++) {
+            z += poet.sampleBridge("a", "b", random).equals("z") ? 1 : 0;
+        }
+        assertTrue(z > 500 && z < 1000);
+    }
+
+    // appendCorpus while a poem runs: the poem may use either graph, but caches no bridge of the old one
+    @Test
+    public void testAppendDuringPoem() throws Exception {
+        int pairs = 2000;
+        StringBuilder corpus = new StringBuilder();
+        StringBuilder text = new StringBuilder();
+        StringBuilder cycle = new StringBuilder();
+        for (int i = 0; i < pairs; i++) {
+            corpus.append(" a").append(i).append(" x").append(i).append(" b").append(i);
+            // twice a -> z -> b beats once a -> x -> b
+            text.append(" a").append(i).append(" z").append(i).append(" b").append(i)
+                .append(" a").append(i).append(" z").append(i).append(" b").append(i);
+            cycle.append(" a").append(i).append(" b").append(i);
+        }
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            input.append(cycle);
+        }
+        GraphPoet poet = new GraphPoet(writeTemp(corpus.toString()));
+        poet.cacheBridges(4 * pairs);
+        CompletableFuture<String> poem = CompletableFuture.supplyAsync(() -> poet.poem(input.toString()));
+        while (poet.bridgeCacheStats().missCount() == 0) {
+            Thread.onSpinWait();
+        }
+        poet.appendCorpus(new StringReader(text.toString()));
+        assertFalse("poem finished before the append", poem.isDone());
+        poem.get();
+        for (int i = 0; i < pairs; i++) {
+            assertEquals("a" + i + " z" + i + " b" + i, poet.poem("a" + i + " b" + i));
+        }
+    }
+
+    // appendCorpus: enough new edges fold the appended graph into a frozen graph
+    @Test
+    public void testAppendCompacts() throws IOException {
+        GraphPoet poet = new GraphPoet(writeTemp("w0 w1"));
+        Random random = new Random(6005);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            text.append(" w").append(random.nextInt(2000));
+        }
+        poet.appendCorpus(new StringReader(text.toString()));
+        assertTrue(poet.affinityGraph() instanceof CsrGraph);
+        GraphPoet expected = new GraphPoet(writeTemp("w0 w1" + text));
+        assertSameGraph("compacted", expected.affinityGraph(), poet.affinityGraph());
+        poet.appendCorpus(new StringReader(" w0"));
+        assertFalse(poet.affinityGraph() instanceof CsrGraph);
+    }
+
 }
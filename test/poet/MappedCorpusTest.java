@@ -0,0 +1,109 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for MappedCorpus and WordDictionary.
+ */
+public class MappedCorpusTest {
+
+    /*
+     * Testing strategy for MappedCorpus.forEachWord()
+     *
+     * chunk size: 1, smaller than a word, larger than the file
+     * words: ASCII with mixed case, non-ASCII, non-ASCII whitespace inside a run of bytes
+     * range: whole file, part of the file
+     * compare with the lower-cased words of CorpusTokenizer on the test corpora
+     *
+     * Testing strategy for WordDictionary
+     *
+     * idOf(): new word, existing word in another ASCII case, n words (forces rehash)
+     * word(): returns the lower case word
+     */
+
+    private static final String[] CORPORA = {
+        "test/poet/empty.txt", "test/poet/mugar-omni-theater.txt", "test/poet/differentWhitespace.txt",
+        "test/poet/newLineAndAllChars.txt", "test/poet/repeatedCorpusCaseVariantWords.txt",
+        "test/poet/multipleBridgesPossible.txt", "test/poet/TwoWordsNoSense.txt", "test/poet/testText.txt"
+    };
+
+    private static List<String> mappedWords(File corpus, long start, long end, long chunkSize) throws IOException {
+        WordDictionary dictionary = new WordDictionary();
+        List<String> result = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ)) {
+            MappedCorpus.forEachWord(channel, start, Math.min(end, channel.size()), chunkSize, dictionary,
+                    id -> result.add(dictionary.word(id)));
+        }
+        return result;
+    }
+
+    private static List<String> streamedWords(File corpus) throws IOException {
+        List<String> result = new ArrayList<>();
+        CorpusTokenizer.forEachWord(corpus, StandardCharsets.UTF_8, word -> result.add(word.toLowerCase()));
+        return result;
+    }
+
+    // Covers chunk sizes 1, smaller than a word and larger than the file on all test corpora.
+    @Test
+    public void testSameWordsAsTokenizer() throws IOException {
+        for (String name : CORPORA) {
+            File corpus = new File(name);
+            List<String> expected = streamedWords(corpus);
+            for (long chunkSize : new long[] { 1, 3, 1 << 20 }) {
+                assertEquals(name + " chunk " + chunkSize, expected,
+                        mappedWords(corpus, 0, Long.MAX_VALUE, chunkSize));
+            }
+        }
+    }
+
+    // Covers non-ASCII words and non-ASCII whitespace.
+    @Test
+    public void testNonAscii() throws IOException {
+        File corpus = File.createTempFile("corpus", ".txt");
+        corpus.deleteOnExit();
+        String text = "\u00c9T\u00c9 Caf\u00e9\u2003cr\u00e8me\u3000BR\u00dbL\u00c9E\n";
+        Files.write(corpus.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("\u00e9t\u00e9", "caf\u00e9", "cr\u00e8me", "br\u00fbl\u00e9e"),
+                mappedWords(corpus, 0, Long.MAX_VALUE, 2));
+        assertEquals(streamedWords(corpus), mappedWords(corpus, 0, Long.MAX_VALUE, 5));
+    }
+
+    // Covers part of the file.
+    @Test
+    public void testRange() throws IOException {
+        File corpus = new File("test/poet/mugar-omni-theater.txt");
+        assertEquals(Arrays.asList("is", "a"), mappedWords(corpus, 5, 10, 4));
+    }
+
+    // Covers new word, ASCII case variants, n words.
+    @Test
+    public void testDictionary() {
+        WordDictionary dictionary = new WordDictionary();
+        byte[] hello = "HeLLo".getBytes(StandardCharsets.UTF_8);
+        int id = dictionary.idOf(hello, 0, hello.length);
+        assertEquals(id, dictionary.idOf("hello"));
+        assertEquals("hello", dictionary.word(id));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i + 1, dictionary.idOf("w" + i));
+        }
+        assertEquals(1001, dictionary.size());
+        assertEquals("w999", dictionary.word(1000));
+        assertEquals(id, dictionary.idOf("HELLO".toLowerCase()));
+    }
+
+}